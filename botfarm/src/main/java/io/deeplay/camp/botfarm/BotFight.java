@@ -12,6 +12,7 @@ import io.deeplay.camp.game.exceptions.GameException;
 import io.deeplay.camp.game.mechanics.GameStage;
 import io.deeplay.camp.game.mechanics.GameState;
 import io.deeplay.camp.game.mechanics.PlayerType;
+import io.deeplay.camp.game.mechanics.SeededDice;
 
 import java.awt.Font;
 import java.io.IOException;
@@ -22,6 +23,9 @@ import javax.swing.JTextArea;
 
 public class BotFight extends Thread{
 
+    /** Время на ход в миллисекундах, после которого игрок сдается. */
+    public static final long MOVE_TIME_LIMIT = 5000;
+
     private static int winsFirstPlayer = 0;
     private static int winsSecondPlayer = 0;
     private static int countDraw = 0;
@@ -46,7 +50,31 @@ public class BotFight extends Thread{
 
     Thread threadFight;
 
+    /** Seed кубика первой партии, у следующих партий seed больше на номер партии. Null - без seed. */
+    private final Long seed;
+
     public BotFight(Bot botFirst, Bot botSecond, int countGame, boolean infoGame) throws IOException {
+        this(botFirst, botSecond, countGame, infoGame, null);
+    }
+
+    /**
+     * Конструктор серии партий с воспроизводимыми бросками кубика. Партия с номером n играется
+     * кубиком {@link SeededDice} с seed + n, поэтому ее броски можно повторить.
+     *
+     * @param botFirst бот первого игрока.
+     * @param botSecond бот второго игрока.
+     * @param countGame количество партий.
+     * @param infoGame флаг вывода статистики серии.
+     * @param seed seed кубика первой партии.
+     */
+    public BotFight(Bot botFirst, Bot botSecond, int countGame, boolean infoGame, long seed)
+            throws IOException {
+        this(botFirst, botSecond, countGame, infoGame, Long.valueOf(seed));
+    }
+
+    private BotFight(Bot botFirst, Bot botSecond, int countGame, boolean infoGame, Long seed)
+            throws IOException {
+        this.seed = seed;
         this.botFirst = botFirst;
         this.botSecond = botSecond;
         this.countGame = countGame;
@@ -87,7 +115,7 @@ public class BotFight extends Thread{
     public void playGames() throws GameException, InterruptedException, IOException {
         for (int gameCount = 0; gameCount < countGame; gameCount++) {
 
-            game = new Game();
+            game = seed == null ? new Game() : new Game(new SeededDice(seed + gameCount));
             executePlace(game.getGameState(), gameCount);
             game.getGameState().changeCurrentPlayer();
             executePlace(game.getGameState(), gameCount);
@@ -118,7 +146,7 @@ public class BotFight extends Thread{
                 MakeMoveEvent event = botFirst.generateMakeMoveEvent(gameState);
                 long endTimer = System.currentTimeMillis();
                 gameAnalisys.reviewTimeMove(endTimer - startTimer, countGame);
-                if(endTimer - startTimer > 5000){
+                if(endTimer - startTimer > MOVE_TIME_LIMIT){
                     GiveUpEvent giveUpEvent = new GiveUpEvent(PlayerType.FIRST_PLAYER);
                     gameState.giveUp(giveUpEvent);
                 }
@@ -134,7 +162,7 @@ public class BotFight extends Thread{
                 MakeMoveEvent event = botSecond.generateMakeMoveEvent(gameState);
                 long endTimer = System.currentTimeMillis();
                 gameAnalisys.reviewTimeMove(endTimer - startTimer, countGame);
-                if(endTimer - startTimer > 5000){
+                if(endTimer - startTimer > MOVE_TIME_LIMIT){
                     GiveUpEvent giveUpEvent = new GiveUpEvent(PlayerType.SECOND_PLAYER);
                     gameState.giveUp(giveUpEvent);
                 }
@@ -23,7 +23,7 @@ public class Main {
 
 
     for(int i = 0; i<1;i++){
-      BotFight botFight = new BotFight(new MatthewsBot(new CachePlacementBot(), new AlphaBetaMinimaxBot(4)), new RandomBot(), 1000, true);
+      BotFight botFight = new BotFight(new MatthewsBot(new CachePlacementBot(), new AlphaBetaMinimaxBot(4), MatthewsBot.FIGHT_MOVE_TIME_LIMIT), new RandomBot(), 1000, true);
       BotFight botFight1 = new BotFight(new MatthewsBot(new CachePlacementBot(), new MonteCarloMinimaxBot(4)), new RandomBot(), 1000, true);
     }
 
@@ -12,6 +12,7 @@ import io.deeplay.camp.game.events.MakeMoveEvent;
 import io.deeplay.camp.game.events.PlaceUnitEvent;
 import io.deeplay.camp.game.exceptions.GameException;
 import io.deeplay.camp.game.mechanics.GameState;
+import io.deeplay.camp.game.mechanics.PackedGameState;
 import io.deeplay.camp.game.mechanics.PlayerType;
 import io.deeplay.camp.game.mechanics.PossibleActions;
 import org.slf4j.Logger;
@@ -35,9 +36,10 @@ public class RandomBot extends Bot{
 
     @Override
     public MakeMoveEvent generateMakeMoveEvent(GameState gameState) {
-        List<MakeMoveEvent> makeMoveEvents = gameState.getPossibleMoves();
-        if(!makeMoveEvents.isEmpty()){
-            return makeMoveEvents.get((int)(Math.random()*makeMoveEvents.size()));
+        int[] moves = new int[PackedGameState.MAX_MOVES];
+        int count = gameState.generateMoves(moves);
+        if(count != 0){
+            return gameState.toMakeMoveEvent(moves[(int)(Math.random()*count)]);
         }
         else{
             return null;
@@ -1,5 +1,6 @@
 package io.deeplay.camp.botfarm.bots.matthew_bots;
 
+import io.deeplay.camp.botfarm.BotFight;
 import io.deeplay.camp.botfarm.bots.Bot;
 import io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBot;
 import io.deeplay.camp.botfarm.bots.matthew_bots.placement_stage.PlacementBot;
@@ -12,6 +13,12 @@ import lombok.Getter;
 
 @Getter
 public class MatthewsBot extends Bot {
+  /**
+   * Бюджет времени на ход в миллисекундах для партий {@link BotFight}. Он на секунду меньше лимита,
+   * после которого игрок сдается: запас уходит на копию состояния и выход из прерванной итерации.
+   */
+  public static final long FIGHT_MOVE_TIME_LIMIT = BotFight.MOVE_TIME_LIMIT - 1000;
+
   /** Бот этапа расстновки. */
   private final PlacementBot placementBot;
 
@@ -33,6 +40,21 @@ public class MatthewsBot extends Bot {
     treeAnalyzer = movementBot.getTreeAnalyzer();
   }
 
+  /**
+   * Конструктор бота с ограничением времени на ход. Бот этапа игры перебирает итеративным
+   * углублением до своей maxDepth (без ограничения при 0) и возвращает ход последней итерации,
+   * уложившейся в бюджет. Бюджет учитывают боты
+   * на {@link MovementBot#searchWithinTimeLimit}, остальные перебирают на фиксированную глубину.
+   *
+   * @param placementBot бот этапа расстновки.
+   * @param movementBot бот этапа игры.
+   * @param moveTimeLimit бюджет времени на ход в миллисекундах.
+   */
+  public MatthewsBot(PlacementBot placementBot, MovementBot movementBot, long moveTimeLimit) {
+    this(placementBot, movementBot);
+    movementBot.setMoveTimeLimit(moveTimeLimit);
+  }
+
   /**
    * Метод, генерирующий ход расстановки по игровому состоянию.
    *
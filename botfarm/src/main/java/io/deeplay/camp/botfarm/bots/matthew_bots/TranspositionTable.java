@@ -0,0 +1,183 @@
+package io.deeplay.camp.botfarm.bots.matthew_bots;
+
+import java.util.Arrays;
+
+/**
+ * Таблица транспозиций фиксированного размера для переборных ботов. Один и тот же расклад часто
+ * достигается разным порядком ходов юнитов за ход, и таблица позволяет не пересчитывать его.
+ *
+ * <p>Запись хранит глубину, тип оценки, оценку и лучший ход. Корзина состоит из двух ячеек: первая
+ * заменяется только записью не меньшей глубины, записью нового поиска или точной оценкой той же
+ * позиции вместо граничной, во вторую пишется всё остальное.
+ *
+ * <p>Таблица не использует блокировки. Запись - три long: данные, оценка и ключ, сложенный по XOR с
+ * ними. Если два потока одновременно записали одну ячейку, ключ не сойдется, и запись будет
+ * считаться отсутствующей.
+ */
+public class TranspositionTable {
+  /** Ход в записи отсутствует. */
+  public static final int NO_MOVE = -1;
+
+  /** Количество корзин по умолчанию, около 6 МБ. */
+  public static final int DEFAULT_BUCKETS = 1 << 17;
+
+  private static final int DEPTH_BITS = 8;
+  private static final int BOUND_SHIFT = DEPTH_BITS;
+  private static final int MOVE_SHIFT = BOUND_SHIFT + 2;
+  private static final int AGE_SHIFT = MOVE_SHIFT + 8;
+  private static final long VALID = 1L << (AGE_SHIFT + 8);
+  private static final int MASK_8 = 0xFF;
+  private static final int EMPTY_MOVE = MASK_8;
+
+  /** Тип оценки в записи. */
+  public enum Bound {
+    /** Точная оценка. */
+    EXACT(0),
+    /** Оценка не меньше записанной (было отсечение по бете). */
+    LOWER(1),
+    /** Оценка не больше записанной (ни один ход не улучшил альфу). */
+    UPPER(2);
+
+    private static final Bound[] BY_INDEX = new Bound[3];
+
+    static {
+      for (Bound bound : values()) {
+        BY_INDEX[bound.index] = bound;
+      }
+    }
+
+    /** Код типа в двух битах записи. */
+    private final int index;
+
+    Bound(int index) {
+      this.index = index;
+    }
+
+    public int index() {
+      return index;
+    }
+
+    public static Bound byIndex(int index) {
+      return BY_INDEX[index];
+    }
+  }
+
+  /**
+   * Найденная запись.
+   *
+   * @param depth оставшаяся глубина, на которой получена оценка.
+   * @param bound тип оценки.
+   * @param score оценка.
+   * @param move лучший ход в кодировке {@code PackedGameState.encodeMove} или {@link #NO_MOVE}.
+   */
+  public record Entry(int depth, Bound bound, double score, int move) {}
+
+  private final int bucketMask;
+  private final long[] checks;
+  private final long[] data;
+  private final long[] scores;
+  private volatile int age;
+
+  /** Конструктор таблицы на {@link #DEFAULT_BUCKETS} корзин. */
+  public TranspositionTable() {
+    this(DEFAULT_BUCKETS);
+  }
+
+  /**
+   * Конструктор.
+   *
+   * @param buckets количество корзин, степень двойки.
+   */
+  public TranspositionTable(int buckets) {
+    if (buckets <= 0 || Integer.bitCount(buckets) != 1) {
+      throw new IllegalArgumentException("Количество корзин должно быть степенью двойки");
+    }
+    bucketMask = buckets - 1;
+    checks = new long[2 * buckets];
+    data = new long[2 * buckets];
+    scores = new long[2 * buckets];
+  }
+
+  /**
+   * Метод начинает новый поиск: записи прошлых поисков остаются доступными, но вытесняются в первую
+   * очередь.
+   */
+  public void newSearch() {
+    age = (age + 1) & MASK_8;
+  }
+
+  /**
+   * Метод ищет запись по ключу.
+   *
+   * @param key 64-битный ключ состояния.
+   * @return запись или null.
+   */
+  public Entry probe(long key) {
+    int slot = slot(key);
+    for (int i = slot; i < slot + 2; i++) {
+      long entryData = data[i];
+      long entryScore = scores[i];
+      if ((entryData & VALID) != 0 && (checks[i] ^ entryData ^ entryScore) == key) {
+        int move = (int) (entryData >>> MOVE_SHIFT) & MASK_8;
+        return new Entry(
+            (int) entryData & MASK_8,
+            boundOf(entryData),
+            Double.longBitsToDouble(entryScore),
+            move == EMPTY_MOVE ? NO_MOVE : move);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Метод сохраняет запись.
+   *
+   * @param key 64-битный ключ состояния.
+   * @param depth оставшаяся глубина, от 0 до 255.
+   * @param bound тип оценки.
+   * @param score оценка.
+   * @param move лучший ход или {@link #NO_MOVE}.
+   */
+  public void store(long key, int depth, Bound bound, double score, int move) {
+    long entryData =
+        VALID
+            | Math.min(Math.max(depth, 0), MASK_8)
+            | (long) bound.index() << BOUND_SHIFT
+            | (long) (move == NO_MOVE ? EMPTY_MOVE : move & MASK_8) << MOVE_SHIFT
+            | (long) age << AGE_SHIFT;
+    long entryScore = Double.doubleToRawLongBits(score);
+    int slot = slot(key);
+    long preferred = data[slot];
+    int preferredDepth = (int) preferred & MASK_8;
+    boolean samePosition = (checks[slot] ^ preferred ^ scores[slot]) == key;
+    if ((preferred & VALID) == 0
+        || ((int) (preferred >>> AGE_SHIFT) & MASK_8) != age
+        || preferredDepth <= depth
+        || (samePosition && bound == Bound.EXACT && boundOf(preferred) != Bound.EXACT)) {
+      write(slot, key, entryData, entryScore);
+    } else {
+      write(slot + 1, key, entryData, entryScore);
+    }
+  }
+
+  /** Метод очищает таблицу. */
+  public void clear() {
+    Arrays.fill(checks, 0);
+    Arrays.fill(data, 0);
+    Arrays.fill(scores, 0);
+  }
+
+  private static Bound boundOf(long entryData) {
+    return Bound.byIndex((int) (entryData >>> BOUND_SHIFT) & 3);
+  }
+
+  private int slot(long key) {
+    return ((int) (key ^ key >>> 32) & bucketMask) << 1;
+  }
+
+  private void write(int slot, long key, long entryData, long entryScore) {
+    data[slot] = entryData;
+    scores[slot] = entryScore;
+    checks[slot] = key ^ entryData ^ entryScore;
+  }
+}
@@ -9,6 +9,24 @@ public class TreeAnalyzer {
   /** Количество вершин */
   private final AtomicInteger nodesCount = new AtomicInteger(0);
 
+  /** Количество обращений к таблице транспозиций. */
+  private final AtomicInteger transpositionProbes = new AtomicInteger(0);
+
+  /** Количество найденных в таблице транспозиций записей. */
+  private final AtomicInteger transpositionHits = new AtomicInteger(0);
+
+  /** Количество узлов, оценка которых взята из таблицы транспозиций без перебора. */
+  private final AtomicInteger transpositionCutoffs = new AtomicInteger(0);
+
+  /** Количество отсечений по альфе или бете. */
+  private final AtomicInteger cutoffs = new AtomicInteger(0);
+
+  /** Количество отсечений, которые дал первый рассмотренный ход. */
+  private final AtomicInteger firstMoveCutoffs = new AtomicInteger(0);
+
+  /** Количество повторных переборов корня после выхода оценки за окно стремления. */
+  private final AtomicInteger aspirationResearches = new AtomicInteger(0);
+
   /** Время начала генерации хода. */
   private long moveStartTime = 0L;
 
@@ -39,11 +57,82 @@ public class TreeAnalyzer {
     nodesCount.incrementAndGet();
   }
 
+  /**
+   * Метод учитывает обращение к таблице транспозиций.
+   *
+   * @param hit найдена ли запись.
+   */
+  public void recordTranspositionProbe(boolean hit) {
+    transpositionProbes.incrementAndGet();
+    if (hit) {
+      transpositionHits.incrementAndGet();
+    }
+  }
+
+  /** Метод учитывает узел, оценка которого взята из таблицы транспозиций. */
+  public void incrementTranspositionCutoffs() {
+    transpositionCutoffs.incrementAndGet();
+  }
+
+  /**
+   * Метод возвращает долю обращений к таблице транспозиций, в которых запись нашлась.
+   *
+   * @return доля от 0 до 1, 0 без обращений.
+   */
+  public double getTranspositionHitRate() {
+    int probes = transpositionProbes.get();
+    return probes == 0 ? 0 : (double) transpositionHits.get() / probes;
+  }
+
+  /**
+   * Метод учитывает отсечение в вершине.
+   *
+   * @param firstMove отсечение дал первый рассмотренный ход.
+   */
+  public void recordCutoff(boolean firstMove) {
+    cutoffs.incrementAndGet();
+    if (firstMove) {
+      firstMoveCutoffs.incrementAndGet();
+    }
+  }
+
+  /** Метод учитывает повторный перебор корня с расширенным окном стремления. */
+  public void incrementAspirationResearches() {
+    aspirationResearches.incrementAndGet();
+  }
+
+  /**
+   * Метод возвращает долю отсечений, которые дал первый рассмотренный ход. Чем она ближе к 1, тем
+   * лучше упорядочены ходы.
+   *
+   * @return доля от 0 до 1, 0 без отсечений.
+   */
+  public double getFirstMoveCutoffRate() {
+    int total = cutoffs.get();
+    return total == 0 ? 0 : (double) firstMoveCutoffs.get() / total;
+  }
+
   public void printStatistics() {
     System.out.println("Tree Analysis Statistics:");
     System.out.println("------------------------");
     System.out.println("Nodes Visited: " + nodesCount);
     System.out.println("Move Time: " + getMoveTime() + " ms");
+    if (transpositionProbes.get() > 0) {
+      System.out.printf(
+          "TT Hit Rate: %.1f%% (%d/%d), cutoffs: %d%n",
+          getTranspositionHitRate() * 100,
+          transpositionHits.get(),
+          transpositionProbes.get(),
+          transpositionCutoffs.get());
+    }
+    if (cutoffs.get() > 0) {
+      System.out.printf(
+          "First Move Cutoffs: %.1f%% (%d/%d)%n",
+          getFirstMoveCutoffRate() * 100, firstMoveCutoffs.get(), cutoffs.get());
+    }
+    if (aspirationResearches.get() > 0) {
+      System.out.println("Aspiration Re-searches: " + aspirationResearches);
+    }
     System.out.println("------------------------");
   }
 }
@@ -9,6 +9,7 @@ import io.deeplay.camp.game.mechanics.PlayerType;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
+import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,7 +23,7 @@ public class BaseEvaluator implements GameStateEvaluator {
   private final double[][] unitsCosts = new double[Board.COLUMNS][Board.ROWS];
 
   /** Коэффициент-бонус для юнитов-генералов. */
-  private final double isGeneralBonus;
+  @Getter private final double isGeneralBonus;
 
   /** Коэффициент-штраф для юнитов, находящихся не в своей полосе. */
   private final double rowPenalty;
@@ -1,12 +1,10 @@
 package io.deeplay.camp.botfarm.bots.matthew_bots.evaluate;
 
-import io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.RandomMovementBot;
 import io.deeplay.camp.game.entities.Board;
-import io.deeplay.camp.game.events.MakeMoveEvent;
-import io.deeplay.camp.game.exceptions.GameException;
-import io.deeplay.camp.game.mechanics.GameStage;
+import io.deeplay.camp.game.mechanics.BatchSimulator;
 import io.deeplay.camp.game.mechanics.GameState;
 import io.deeplay.camp.game.mechanics.PlayerType;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Функция оценки Монте-Карло. Сам метод Монте-Карло вступает в работу, когда юнитов бота осталось
@@ -74,31 +72,11 @@ public class MonteCarloEvaluator implements GameStateEvaluator {
    * @return оценка
    */
   public double monteCarloEvaluate(GameState gameState, PlayerType maximizingPlayer) {
-    int botWinCount = 0;
-    RandomMovementBot randomMovementBot = new RandomMovementBot();
-    for (int i = 0; i < gamesCount; i++) {
-      GameState gameStateCopy = gameState.getCopy();
-      while (gameStateCopy.getGameStage() != GameStage.ENDED) {
-        MakeMoveEvent move;
-        if (gameStateCopy.getCurrentPlayer() == PlayerType.FIRST_PLAYER) {
-          move = randomMovementBot.generateMakeMoveEvent(gameStateCopy);
-        } else {
-          move = randomMovementBot.generateMakeMoveEvent(gameStateCopy);
-        }
-        if (move != null) {
-          try {
-            gameStateCopy.makeMove(move);
-          } catch (GameException e) {
-            System.out.println(e.getMessage());
-          }
-        } else {
-          gameStateCopy.changeCurrentPlayer();
-        }
-      }
-      if (gameState.getWinner() == maximizingPlayer) {
-        botWinCount++;
-      }
-    }
+    BatchSimulator simulator =
+        new BatchSimulator(gameState, gamesCount, ThreadLocalRandom.current());
+    BatchSimulator.Result result = simulator.run(BatchSimulator.RANDOM);
+    int botWinCount =
+        maximizingPlayer == PlayerType.FIRST_PLAYER ? result.firstWins() : result.secondWins();
     return (botWinCount * GameStateEvaluator.MAX_COST) / gamesCount;
   }
 }
@@ -2,7 +2,10 @@ package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
 
 import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.BAD_BRANCH_PROBABILITY;
 import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.removeUnnecessaryMoves;
+import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.tableMove;
+import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.transpositionKey;
 
+import io.deeplay.camp.botfarm.bots.matthew_bots.TranspositionTable;
 import io.deeplay.camp.botfarm.bots.matthew_bots.TreeAnalyzer;
 import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.BaseEvaluator;
 import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.EventScore;
@@ -10,8 +13,10 @@ import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.GameStateEvaluator;
 import io.deeplay.camp.game.entities.StateChance;
 import io.deeplay.camp.game.events.MakeMoveEvent;
 import io.deeplay.camp.game.exceptions.GameException;
+import io.deeplay.camp.game.mechanics.BoardSymmetry;
 import io.deeplay.camp.game.mechanics.GameStage;
 import io.deeplay.camp.game.mechanics.GameState;
+import io.deeplay.camp.game.mechanics.PackedGameState;
 import io.deeplay.camp.game.mechanics.PlayerType;
 import java.util.List;
 import org.slf4j.Logger;
@@ -33,9 +38,24 @@ public class AlphaBetaMinimaxBot extends MovementBot {
   /** Оценщик игровых состояний. */
   private final GameStateEvaluator gameStateEvaluator;
 
+  /** Таблица транспозиций, общая для всех ходов бота. */
+  private final TranspositionTable transpositionTable;
+
+  /** Упорядочивание ходов. */
+  private final MoveOrderer moveOrderer;
+
   /** Максимизирующий игрок, т.е. сторона, за которую играет бот. */
   private PlayerType maximizingPlayerType;
 
+  /** Глубина корня текущей итерации перебора. */
+  private int rootDepth;
+
+  /** Лучший ход корня по предыдущей итерации, рассматривается первым. */
+  private int principalMove;
+
+  /** Оценка корня по предыдущей итерации, NaN до конца первой итерации. */
+  protected double previousRootScore;
+
   /**
    * Конструктор.
    *
@@ -43,11 +63,16 @@ public class AlphaBetaMinimaxBot extends MovementBot {
    */
   public AlphaBetaMinimaxBot(int maxDepth) {
     super(new TreeAnalyzer(), maxDepth);
-    gameStateEvaluator = new BaseEvaluator();
+    BaseEvaluator baseEvaluator = new BaseEvaluator();
+    gameStateEvaluator = baseEvaluator;
+    transpositionTable = new TranspositionTable();
+    moveOrderer = new MoveOrderer(baseEvaluator.getIsGeneralBonus());
   }
 
   /**
-   * Метод, генерирующий ход для текущего игрока игрового состояния.
+   * Метод, генерирующий ход для текущего игрока игрового состояния. При бюджете времени на ход
+   * перебор идет итеративным углублением: лучший ход корня предыдущей итерации рассматривается
+   * первым, а лучшие ходы ниже корня берутся из таблицы транспозиций.
    *
    * @param gameState Игровое состояние.
    * @return ивент с ходом.
@@ -56,13 +81,62 @@ public class AlphaBetaMinimaxBot extends MovementBot {
   public MakeMoveEvent generateMakeMoveEvent(GameState gameState) {
     maximizingPlayerType = gameState.getCurrentPlayer();
     treeAnalyzer.startMoveStopWatch();
-    EventScore result = minimax(gameState.getCopy(), maxDepth, MIN_COST, MAX_COST, true);
+    transpositionTable.newSearch();
+    moveOrderer.newSearch();
+    principalMove = TranspositionTable.NO_MOVE;
+    previousRootScore = Double.NaN;
+    MakeMoveEvent move =
+        searchWithinTimeLimit(
+            depth -> {
+              rootDepth = depth;
+              EventScore result = searchRoot(gameState, depth);
+              if (result.getEvent() != null) {
+                principalMove = PackedGameState.encodeMove((MakeMoveEvent) result.getEvent());
+              }
+              previousRootScore = result.getScore();
+              return result;
+            });
     treeAnalyzer.endMoveStopWatch();
-    return (MakeMoveEvent) result.getEvent();
+    return move;
+  }
+
+  /**
+   * Метод, перебирающий дерево от корня на заданную глубину с полным окном.
+   *
+   * @param gameState Игровое состояние, не изменяется.
+   * @param depth Глубина итерации.
+   * @return ивент и его оценку.
+   */
+  protected EventScore searchRoot(GameState gameState, int depth) {
+    return minimax(gameState.getCopy(), depth, MIN_COST, MAX_COST, true);
+  }
+
+  /**
+   * Метод, перебирающий поддерево исхода хода. Все потомки перебираются с окном родителя. Оценка
+   * возвращается без умножения на вероятность исхода.
+   *
+   * @param stateChance Игровое состояние исхода и его вероятность.
+   * @param depth Оставшаяся глубина.
+   * @param alpha Значение альфа.
+   * @param beta Значение бета.
+   * @param maximizing Флаг, обозначающий максимизирующего игрока.
+   * @param firstChild Флаг, обозначающий первого перебираемого потомка вершины.
+   * @return ивент и его оценку.
+   */
+  protected EventScore searchChild(
+      StateChance stateChance,
+      int depth,
+      double alpha,
+      double beta,
+      boolean maximizing,
+      boolean firstChild) {
+    return minimax(stateChance.gameState(), depth, alpha, beta, maximizing);
   }
 
   /**
-   * Метод, исполняющий алгоритм минимакс с альфа-бета отсечениями.
+   * Метод, исполняющий алгоритм минимакс с альфа-бета отсечениями. Оценки узлов ниже корня
+   * сохраняются в таблице транспозиций вместе с типом оценки относительно окна, ходы упорядочивает
+   * {@link MoveOrderer}.
    *
    * @param gameState Игровое состояние.
    * @param depth Максимальная глубина.
@@ -71,29 +145,84 @@ public class AlphaBetaMinimaxBot extends MovementBot {
    * @param maximizing Флаг, обозначающий максимизирующего игрока.
    * @return ивент и его оценку.
    */
-  private EventScore minimax(
+  protected EventScore minimax(
       GameState gameState, int depth, double alpha, double beta, boolean maximizing) {
     treeAnalyzer.incrementNodesCount();
+    checkDeadline();
     // Базовый случай (Дошли до ограничения глубины или конца игры)
     if (depth == 0 || gameState.getGameStage() == GameStage.ENDED) {
+      if (gameState.getGameStage() != GameStage.ENDED) {
+        markDepthLimitReached();
+      }
       return new EventScore(null, gameStateEvaluator.evaluate(gameState, maximizingPlayerType));
     }
 
-    List<MakeMoveEvent> possibleMoves = gameState.getPossibleMoves();
-    if (possibleMoves.isEmpty()) {
-      if (depth == maxDepth) {
+    // В корне нужен ход, а не только оценка, поэтому корень в таблицу не попадает
+    boolean useTable = depth < rootDepth;
+    long key = useTable ? transpositionKey(gameState, maximizingPlayerType, maximizing) : 0;
+    BoardSymmetry.Transform tableTransform =
+        useTable
+            ? BoardSymmetry.canonicalKeyTransform(gameState)
+            : BoardSymmetry.Transform.IDENTITY;
+    double alphaOrig = alpha;
+    double betaOrig = beta;
+    int hashMove = TranspositionTable.NO_MOVE;
+    if (useTable) {
+      TranspositionTable.Entry entry = transpositionTable.probe(key);
+      treeAnalyzer.recordTranspositionProbe(entry != null);
+      if (entry != null) {
+        hashMove = tableMove(tableTransform, entry.move());
+        if (entry.depth() >= depth) {
+          if (entry.bound() == TranspositionTable.Bound.LOWER) {
+            alpha = Math.max(alpha, entry.score());
+          } else if (entry.bound() == TranspositionTable.Bound.UPPER) {
+            beta = Math.min(beta, entry.score());
+          }
+          if (entry.bound() == TranspositionTable.Bound.EXACT || beta <= alpha) {
+            treeAnalyzer.incrementTranspositionCutoffs();
+            markDepthLimitReached();
+            return new EventScore(null, entry.score());
+          }
+        }
+      }
+    }
+
+    int ply = rootDepth - depth;
+    int[] moves = moveBuffer(ply);
+    int count = gameState.generateMoves(moves);
+    if (count == 0) {
+      if (depth == rootDepth) {
         return new EventScore(null, maximizing ? MIN_COST : MAX_COST);
       }
       gameState.changeCurrentPlayer();
-      possibleMoves = gameState.getPossibleMoves();
+      count = gameState.generateMoves(moves);
       maximizing = !maximizing;
     }
 
-    removeUnnecessaryMoves(possibleMoves);
+    count = removeUnnecessaryMoves(gameState, moves, count);
+    moveOrderer.order(moves, count, gameState, depth == rootDepth ? principalMove : hashMove, ply);
 
-    return maximizing
-        ? maximize(gameState, depth, alpha, beta, possibleMoves)
-        : minimize(gameState, depth, alpha, beta, possibleMoves);
+    EventScore result =
+        maximizing
+            ? maximize(gameState, depth, alpha, beta, moves, count)
+            : minimize(gameState, depth, alpha, beta, moves, count);
+    if (useTable) {
+      TranspositionTable.Bound bound;
+      if (result.getScore() <= alphaOrig) {
+        bound = TranspositionTable.Bound.UPPER;
+      } else if (result.getScore() >= betaOrig) {
+        bound = TranspositionTable.Bound.LOWER;
+      } else {
+        bound = TranspositionTable.Bound.EXACT;
+      }
+      int bestMove =
+          result.getEvent() == null
+              ? TranspositionTable.NO_MOVE
+              : tableMove(
+                  tableTransform, PackedGameState.encodeMove((MakeMoveEvent) result.getEvent()));
+      transpositionTable.store(key, depth, bound, result.getScore(), bestMove);
+    }
+    return result;
   }
 
   /**
@@ -103,24 +232,24 @@ public class AlphaBetaMinimaxBot extends MovementBot {
    * @param depth Максимальная глубина.
    * @param alpha Значение альфа.
    * @param beta Значение бета.
-   * @param possibleMoves Возможные ходы.
+   * @param moves Буфер возможных ходов, ивент создается только для перебираемого хода.
+   * @param count Количество ходов в буфере.
    * @return ивент и его оценку.
    */
   private EventScore maximize(
-      GameState gameState,
-      int depth,
-      double alpha,
-      double beta,
-      List<MakeMoveEvent> possibleMoves) {
+      GameState gameState, int depth, double alpha, double beta, int[] moves, int count) {
     EventScore bestResult = new EventScore(null, MIN_COST);
+    boolean firstChild = true;
     try {
-      for (MakeMoveEvent move : possibleMoves) {
+      for (int i = 0; i < count; i++) {
+        MakeMoveEvent move = gameState.toMakeMoveEvent(moves[i]);
         List<StateChance> possibleStates = gameState.getPossibleState(move);
         for (StateChance stateChance : possibleStates) {
           if (stateChance.chance() < BAD_BRANCH_PROBABILITY) {
             continue;
           }
-          EventScore result = minimax(stateChance.gameState(), depth - 1, alpha, beta, true);
+          EventScore result = searchChild(stateChance, depth - 1, alpha, beta, true, firstChild);
+          firstChild = false;
           result.setScore(result.getScore() * stateChance.chance());
           if (result.getScore() > bestResult.getScore()) {
             bestResult = new EventScore(move, result.getScore());
@@ -131,6 +260,8 @@ public class AlphaBetaMinimaxBot extends MovementBot {
           }
         }
         if (beta <= alpha) {
+          treeAnalyzer.recordCutoff(i == 0);
+          moveOrderer.recordCutoff(moves[i], depth, rootDepth - depth);
           break;
         }
       }
@@ -147,24 +278,24 @@ public class AlphaBetaMinimaxBot extends MovementBot {
    * @param depth Максимальная глубина.
    * @param alpha Значение альфа.
    * @param beta Значение бета.
-   * @param possibleMoves Возможные ходы.
+   * @param moves Буфер возможных ходов, ивент создается только для перебираемого хода.
+   * @param count Количество ходов в буфере.
    * @return ивент и его оценку.
    */
   private EventScore minimize(
-      GameState gameState,
-      int depth,
-      double alpha,
-      double beta,
-      List<MakeMoveEvent> possibleMoves) {
+      GameState gameState, int depth, double alpha, double beta, int[] moves, int count) {
     EventScore bestResult = new EventScore(null, MAX_COST);
+    boolean firstChild = true;
     try {
-      for (MakeMoveEvent move : possibleMoves) {
+      for (int i = 0; i < count; i++) {
+        MakeMoveEvent move = gameState.toMakeMoveEvent(moves[i]);
         List<StateChance> possibleStates = gameState.getPossibleState(move);
         for (StateChance stateChance : possibleStates) {
           if (stateChance.chance() < BAD_BRANCH_PROBABILITY) {
             continue;
           }
-          EventScore result = minimax(stateChance.gameState(), depth - 1, alpha, beta, false);
+          EventScore result = searchChild(stateChance, depth - 1, alpha, beta, false, firstChild);
+          firstChild = false;
           result.setScore(result.getScore() * stateChance.chance());
           if (result.getScore() < bestResult.getScore()) {
             bestResult = new EventScore(move, result.getScore());
@@ -175,6 +306,8 @@ public class AlphaBetaMinimaxBot extends MovementBot {
           }
         }
         if (beta <= alpha) {
+          treeAnalyzer.recordCutoff(i == 0);
+          moveOrderer.recordCutoff(moves[i], depth, rootDepth - depth);
           break;
         }
       }
@@ -42,6 +42,7 @@ public class BotsAnalyzer {
         bots.add(new MonteCarloMinimaxBot(0));
         bots.add(new MinimaxBot(0));
         bots.add(new AlphaBetaMinimaxBot(0));
+        bots.add(new PvsMinimaxBot(0));
         bots.add(new MultiThreadMinimaxBot(0));
         bots.add(new ExpectimaxBot(0));
         bots.add(new MultiThreadExpectimaxBot(0));
@@ -1,25 +1,42 @@
 package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
 
 import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.collectPossibleStates;
+import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.moveToFront;
 import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.removeUnnecessaryMoves;
+import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.tableMove;
+import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.transpositionKey;
 
+import io.deeplay.camp.botfarm.bots.matthew_bots.TranspositionTable;
 import io.deeplay.camp.botfarm.bots.matthew_bots.TreeAnalyzer;
 import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.BaseEvaluator;
 import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.EventScore;
 import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.GameStateEvaluator;
 import io.deeplay.camp.game.events.MakeMoveEvent;
 import io.deeplay.camp.game.exceptions.GameException;
+import io.deeplay.camp.game.mechanics.BoardSymmetry;
 import io.deeplay.camp.game.mechanics.GameStage;
 import io.deeplay.camp.game.mechanics.GameState;
+import io.deeplay.camp.game.mechanics.PackedGameState;
 import io.deeplay.camp.game.mechanics.PlayerType;
-import java.util.ArrayList;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Бот, выбирающий ход алгоритмом экспектимакс. Узлы оппонента - узлы случая: их оценка - среднее
+ * оценок исходов, взвешенных вероятностями. Оценщик ограничен отрезком [MIN_COST, MAX_COST],
+ * поэтому по уже перебранным исходам узла случая известны границы его оценки, и перебор исходов
+ * прекращается, когда оценка не может попасть в окно родителя (Star1). Перед перебором исходов
+ * их нижние границы уточняются оценками листьев и записями таблицы транспозиций (Star2).
+ * Отсечения включены по умолчанию.
+ */
 public class ExpectimaxBot extends MovementBot {
     private static final Logger logger = LoggerFactory.getLogger(MultiThreadExpectimaxBot.class);
 
+    /**
+     * Максимальная оценка игрового состояния.
+     */
+    private static final double MAX_COST = GameStateEvaluator.MAX_COST;
     /**
      * Минимальная оценка игрового состояния.
      */
@@ -29,24 +46,75 @@ public class ExpectimaxBot extends MovementBot {
      */
     private final GameStateEvaluator gameStateEvaluator;
 
+    /**
+     * Таблица транспозиций, общая для всех ходов бота.
+     */
+    private final TranspositionTable transpositionTable;
+
+    /**
+     * Флаг, обозначающий отсечения Star1/Star2. Без них перебираются все исходы.
+     */
+    private final boolean chancePruning;
+
+    /**
+     * Флаг, обозначающий использование таблицы транспозиций.
+     */
+    private final boolean useTranspositionTable;
+
     /**
      * Максимизирующий игрок, т.е. сторона, за которую играет бот.
      */
     private PlayerType maximizingPlayerType;
 
     /**
-     * Конструктор.
+     * Глубина корня текущей итерации перебора.
+     */
+    private int rootDepth;
+
+    /**
+     * Лучший ход корня предыдущей итерации.
+     */
+    private int principalMove;
+
+    /**
+     * Конструктор бота с отсечениями Star1/Star2 в узлах случая.
      *
      * @param maxDepth Максимальная глубина дерева.
      */
     public ExpectimaxBot(int maxDepth){
+        this(maxDepth, true);
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param maxDepth Максимальная глубина дерева.
+     * @param chancePruning Флаг, обозначающий отсечения Star1/Star2 в узлах случая.
+     */
+    public ExpectimaxBot(int maxDepth, boolean chancePruning){
+        this(maxDepth, chancePruning, true);
+    }
+
+    /**
+     * Конструктор.
+     *
+     * @param maxDepth Максимальная глубина дерева.
+     * @param chancePruning Флаг, обозначающий отсечения Star1/Star2 в узлах случая.
+     * @param useTranspositionTable Флаг, обозначающий использование таблицы транспозиций.
+     */
+    public ExpectimaxBot(int maxDepth, boolean chancePruning, boolean useTranspositionTable) {
         super(new TreeAnalyzer(), maxDepth);
         this.gameStateEvaluator =new BaseEvaluator();
+        this.chancePruning = chancePruning;
+        this.useTranspositionTable = useTranspositionTable;
         treeAnalyzer = new TreeAnalyzer();
+        transpositionTable = new TranspositionTable();
     }
 
     /**
-     * Метод, генерирующий ход для текущего игрока игрового состояния.
+     * Метод, генерирующий ход для текущего игрока игрового состояния. При бюджете времени на ход
+     * перебор идет итеративным углублением: лучший ход корня предыдущей итерации рассматривается
+     * первым, а лучшие ходы ниже корня берутся из таблицы транспозиций.
      * @param gameState Игровое состояние.
      * @return ивент с ходом.
      */
@@ -54,93 +122,267 @@ public class ExpectimaxBot extends MovementBot {
     public MakeMoveEvent generateMakeMoveEvent(GameState gameState) {
         maximizingPlayerType = gameState.getCurrentPlayer();
         treeAnalyzer.startMoveStopWatch();
-        EventScore result = expectimax(gameState.getCopy(), maxDepth, true);
+        transpositionTable.newSearch();
+        principalMove = TranspositionTable.NO_MOVE;
+        MakeMoveEvent move = searchWithinTimeLimit(depth -> {
+            rootDepth = depth;
+            EventScore result = expectimax(gameState.getCopy(), depth, MIN_COST, MAX_COST, true);
+            if (result.getEvent() != null) {
+                principalMove = PackedGameState.encodeMove((MakeMoveEvent) result.getEvent());
+            }
+            return result;
+        });
         treeAnalyzer.endMoveStopWatch();
-        return (MakeMoveEvent) result.getEvent();
+        return move;
     }
 
     /**
-     * Метод, исполняющий алгоритм экспектимакс.
+     * Метод, исполняющий алгоритм экспектимакс. Оценка точна, если попадает в окно (alpha, beta),
+     * иначе она - граница точной оценки с той же стороны окна. Оценки узлов ниже корня сохраняются
+     * в таблице транспозиций вместе с типом оценки относительно окна.
      * @param gameState Игровое состояние.
      * @param depth Максимальная глубина.
+     * @param alpha Значение альфа.
+     * @param beta Значение бета.
      * @param maximizing Флаг, обозначающий максимизирующего игрока.
      * @return ивент и его оценку.
      */
-    private EventScore expectimax(GameState gameState, int depth, boolean maximizing)
-             {
+    private EventScore expectimax(
+            GameState gameState, int depth, double alpha, double beta, boolean maximizing) {
         treeAnalyzer.incrementNodesCount();
+        checkDeadline();
         // Базовый случай (Дошли до ограничения глубины или конца игры)
         if (depth == 0 || gameState.getGameStage() == GameStage.ENDED) {
+            if (gameState.getGameStage() != GameStage.ENDED) {
+                markDepthLimitReached();
+            }
             return new EventScore(null, gameStateEvaluator.evaluate(gameState, maximizingPlayerType));
         }
 
-        List<MakeMoveEvent> possibleMoves = gameState.getPossibleMoves();
-        if (possibleMoves.isEmpty()) {
-            if (depth == maxDepth) {
+        // В корне нужен ход, а не только оценка, поэтому корень в таблицу не попадает
+        boolean useTable = useTranspositionTable && depth < rootDepth;
+        long key = useTable ? transpositionKey(gameState, maximizingPlayerType, maximizing) : 0;
+        BoardSymmetry.Transform tableTransform = useTable
+                ? BoardSymmetry.canonicalKeyTransform(gameState)
+                : BoardSymmetry.Transform.IDENTITY;
+        double alphaOrig = alpha;
+        double betaOrig = beta;
+        int hashMove = TranspositionTable.NO_MOVE;
+        if (useTable) {
+            TranspositionTable.Entry entry = transpositionTable.probe(key);
+            treeAnalyzer.recordTranspositionProbe(entry != null);
+            if (entry != null) {
+                hashMove = tableMove(tableTransform, entry.move());
+            }
+            if (entry != null && entry.depth() >= depth) {
+                if (entry.bound() == TranspositionTable.Bound.LOWER) {
+                    alpha = Math.max(alpha, entry.score());
+                } else if (entry.bound() == TranspositionTable.Bound.UPPER) {
+                    beta = Math.min(beta, entry.score());
+                }
+                if (entry.bound() == TranspositionTable.Bound.EXACT || beta <= alpha) {
+                    treeAnalyzer.incrementTranspositionCutoffs();
+                    markDepthLimitReached();
+                    return new EventScore(null, entry.score());
+                }
+            }
+        }
+
+        int[] moves = moveBuffer(rootDepth - depth);
+        int count = gameState.generateMoves(moves);
+        if (count == 0) {
+            if (depth == rootDepth) {
                 return new EventScore(null, maximizing ? MIN_COST : 0);
             }
             gameState.changeCurrentPlayer();
-            possibleMoves = gameState.getPossibleMoves();
+            count = gameState.generateMoves(moves);
             maximizing = !maximizing;
 
         }
-        removeUnnecessaryMoves(possibleMoves);
+        count = removeUnnecessaryMoves(gameState, moves, count);
+        moveToFront(moves, count, depth == rootDepth ? principalMove : hashMove);
 
-
-        return maximizing
-                ? maximize(gameState, depth, possibleMoves)
-                : expect(gameState, depth, possibleMoves);
+        EventScore result = maximizing
+                ? maximize(gameState, depth, alpha, beta, moves, count)
+                : expect(gameState, depth, alpha, beta, moves, count);
+        if (useTable) {
+            TranspositionTable.Bound bound;
+            if (result.getScore() <= alphaOrig) {
+                bound = TranspositionTable.Bound.UPPER;
+            } else if (result.getScore() >= betaOrig) {
+                bound = TranspositionTable.Bound.LOWER;
+            } else {
+                bound = TranspositionTable.Bound.EXACT;
+            }
+            int bestMove = result.getEvent() == null
+                    ? TranspositionTable.NO_MOVE
+                    : tableMove(tableTransform,
+                            PackedGameState.encodeMove((MakeMoveEvent) result.getEvent()));
+            transpositionTable.store(key, depth, bound, result.getScore(), bestMove);
+        }
+        return result;
     }
 
     /**
-     * Метод, отвечающий за максимизирующего игрока.
+     * Метод, отвечающий за максимизирующего игрока. Оценка исхода умножается на его вероятность,
+     * поэтому окно исхода - окно узла, деленное на вероятность. Исходы, которые даже с
+     * наибольшей оценкой не улучшат альфа, не перебираются.
      * @param gameState Игровое состояние.
      * @param depth Максимальная глубина.
-     * @param possibleMoves Возможные ходы.
+     * @param alpha Значение альфа.
+     * @param beta Значение бета.
+     * @param moves Буфер возможных ходов.
+     * @param moveCount Количество ходов в буфере.
      * @return ивент и его оценку.
      */
-    private EventScore maximize(GameState gameState, int depth, List<MakeMoveEvent> possibleMoves) {
+    private EventScore maximize(GameState gameState, int depth, double alpha, double beta,
+            int[] moves, int moveCount) {
         EventScore bestResult = new EventScore(null, MIN_COST);
+        // Наибольшая оценка неперебранных исходов, нужна, чтобы вернуть верную верхнюю границу
+        double skippedBound = MIN_COST;
         try {
-            List<Double> values = new ArrayList<>();
-            List<State> possibleStates = collectPossibleStates(gameState, possibleMoves);
+            List<State> possibleStates = collectPossibleStates(gameState, moves, moveCount);
             for(State possibleState : possibleStates){
-                EventScore result = expectimax(possibleState.getGameState(), depth - 1, true);
-                result.setScore(result.getScore() * possibleState.getProbability());
-                values.add(result.getScore()*possibleState.getProbability());
+                double probability = possibleState.getProbability();
+                EventScore result;
+                if (chancePruning) {
+                    if (probability * MAX_COST <= alpha) {
+                        skippedBound = Math.max(skippedBound, probability * MAX_COST);
+                        continue;
+                    }
+                    result = expectimax(possibleState.getGameState(), depth - 1,
+                            Math.max(MIN_COST, alpha / probability),
+                            Math.min(MAX_COST, beta / probability), true);
+                } else {
+                    result = expectimax(
+                            possibleState.getGameState(), depth - 1, MIN_COST, MAX_COST, true);
+                }
+                result.setScore(result.getScore() * probability);
                 if (result.getScore() > bestResult.getScore()) {
                     bestResult = new EventScore((MakeMoveEvent)possibleState.getLastMove(), result.getScore());
                 }
+                if (chancePruning) {
+                    alpha = Math.max(alpha, bestResult.getScore());
+                    if (beta <= alpha) {
+                        break;
+                    }
+                }
             }
         }catch (GameException e){
             logger.error("Ошибка в применении хода к игровому состоянию!");
         }
+        if (skippedBound > bestResult.getScore()) {
+            bestResult.setScore(skippedBound);
+        }
         return bestResult;
     }
 
     /**
-     * Метод, отвечающий за игрока оппонента.
+     * Метод, отвечающий за игрока оппонента. Оценка узла - сумма оценок исходов, взвешенных
+     * вероятностями, деленная на количество исходов. Неперебранные исходы лежат в
+     * [нижняя граница, MAX_COST], поэтому после каждого исхода известны границы оценки узла. Если
+     * граница вышла за окно, перебор прекращается и возвращается граница (Star1). Окно каждого
+     * исхода выбирается так, чтобы выход его оценки за окно означал выход оценки узла.
      * @param gameState Игровое состояние.
      * @param depth Максимальная глубина.
-     * @param possibleMoves Возможные ходы.
+     * @param alpha Значение альфа.
+     * @param beta Значение бета.
+     * @param moves Буфер возможных ходов.
+     * @param moveCount Количество ходов в буфере.
      * @return ивент и его оценку.
      */
-    private EventScore expect(GameState gameState, int depth, List<MakeMoveEvent> possibleMoves)
-            {
+    private EventScore expect(GameState gameState, int depth, double alpha, double beta,
+            int[] moves, int moveCount) {
         double expectedValue = 0;
         EventScore bestResult = new EventScore(null, 0);
         try {
-            List<State> possibleStates = collectPossibleStates(gameState, possibleMoves);
-            for (State state : possibleStates) {
-                EventScore result = expectimax(state.getGameState(), depth - 1, false);
-                expectedValue += result.getScore() * state.getProbability();
+            List<State> possibleStates = collectPossibleStates(gameState, moves, moveCount);
+            int count = possibleStates.size();
+            if (!chancePruning) {
+                for (State state : possibleStates) {
+                    EventScore result = expectimax(
+                            state.getGameState(), depth - 1, MIN_COST, MAX_COST, false);
+                    expectedValue += result.getScore() * state.getProbability();
+                }
+                bestResult.setScore(expectedValue / count);
+                return bestResult;
+            }
+
+            double[] lowerBounds = new double[count];
+            // Взвешенные суммы границ неперебранных исходов
+            double remainingUpper = 0;
+            double remainingLower = 0;
+            for (int i = 0; i < count; i++) {
+                double probability = possibleStates.get(i).getProbability();
+                lowerBounds[i] = MIN_COST;
+                remainingUpper += probability * MAX_COST;
+                remainingLower += probability * MIN_COST;
+            }
+            if (remainingUpper / count <= alpha) {
+                bestResult.setScore(remainingUpper / count);
+                return bestResult;
+            }
+            // Отсечение снизу возможно, только если бета меньше наибольшей оценки
+            for (int i = 0; i < count && beta < MAX_COST; i++) {
+                State state = possibleStates.get(i);
+                double probability = state.getProbability();
+                lowerBounds[i] = probeLowerBound(state.getGameState(), depth - 1);
+                remainingLower += probability * (lowerBounds[i] - MIN_COST);
+                if (remainingLower / count >= beta) {
+                    bestResult.setScore(remainingLower / count);
+                    return bestResult;
+                }
+            }
+
+            for (int i = 0; i < count; i++) {
+                State state = possibleStates.get(i);
+                double probability = state.getProbability();
+                remainingUpper -= probability * MAX_COST;
+                remainingLower -= probability * lowerBounds[i];
+                double childAlpha = (alpha * count - expectedValue - remainingUpper) / probability;
+                double childBeta = (beta * count - expectedValue - remainingLower) / probability;
+                EventScore result = expectimax(state.getGameState(), depth - 1,
+                        Math.max(MIN_COST, childAlpha), Math.min(MAX_COST, childBeta), false);
+                expectedValue += result.getScore() * probability;
+                if (result.getScore() <= childAlpha) {
+                    bestResult.setScore((expectedValue + remainingUpper) / count);
+                    return bestResult;
+                }
+                if (result.getScore() >= childBeta) {
+                    bestResult.setScore((expectedValue + remainingLower) / count);
+                    return bestResult;
+                }
             }
 
-            expectedValue /= possibleStates.size();
+            expectedValue /= count;
             bestResult.setScore(expectedValue);
         }catch(GameException e) {
             logger.error("Ошибка в применении хода к игровому состоянию!");
         }
         return bestResult;
     }
+
+    /**
+     * Метод, возвращающий нижнюю границу оценки исхода хода оппонента (Star2) без перебора.
+     * Оценка листа точна, иначе граница берется из записи таблицы транспозиций с точной или
+     * нижней оценкой исхода. Перебор первого хода ради границы почти не дает отсечений и стоит
+     * дороже, чем экономит.
+     * @param gameState Игровое состояние исхода.
+     * @param depth Оставшаяся глубина исхода.
+     * @return нижнюю границу оценки исхода.
+     */
+    private double probeLowerBound(GameState gameState, int depth) {
+        if (depth == 0 || gameState.getGameStage() == GameStage.ENDED) {
+            return gameStateEvaluator.evaluate(gameState, maximizingPlayerType);
+        }
+        if (useTranspositionTable) {
+            TranspositionTable.Entry entry = transpositionTable.probe(
+                    transpositionKey(gameState, maximizingPlayerType, false));
+            if (entry != null && entry.depth() >= depth
+                    && entry.bound() != TranspositionTable.Bound.UPPER) {
+                return entry.score();
+            }
+        }
+        return MIN_COST;
+    }
 }
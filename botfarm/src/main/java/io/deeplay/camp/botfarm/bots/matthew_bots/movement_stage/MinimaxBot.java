@@ -33,6 +33,9 @@ public class MinimaxBot extends MovementBot {
   /** Максимизирующий игрок, т.е. сторона, за которую играет бот. */
   private PlayerType maximizingPlayerType;
 
+  /** Глубина корня текущей итерации перебора. */
+  private int rootDepth;
+
   /**
    * Конструктор.
    *
@@ -44,7 +47,8 @@ public class MinimaxBot extends MovementBot {
   }
 
   /**
-   * Метод, генерирующий ход для текущего игрока игрового состояния.
+   * Метод, генерирующий ход для текущего игрока игрового состояния. При бюджете времени на ход
+   * перебор идет итеративным углублением.
    *
    * @param gameState Игровое состояние.
    * @return ивент с ходом.
@@ -53,9 +57,14 @@ public class MinimaxBot extends MovementBot {
   public MakeMoveEvent generateMakeMoveEvent(GameState gameState) {
     maximizingPlayerType = gameState.getCurrentPlayer();
     treeAnalyzer.startMoveStopWatch();
-    EventScore result = minimax(gameState.getCopy(), maxDepth, true);
+    MakeMoveEvent move =
+        searchWithinTimeLimit(
+            depth -> {
+              rootDepth = depth;
+              return minimax(gameState.getCopy(), depth, true);
+            });
     treeAnalyzer.endMoveStopWatch();
-    return (MakeMoveEvent) result.getEvent();
+    return move;
   }
 
   /**
@@ -68,14 +77,18 @@ public class MinimaxBot extends MovementBot {
    */
   private EventScore minimax(GameState gameState, int depth, boolean maximizing) {
     treeAnalyzer.incrementNodesCount();
+    checkDeadline();
     // Базовый случай (Дошли до ограничения глубины или конца игры)
     if (depth == 0 || gameState.getGameStage() == GameStage.ENDED) {
+      if (gameState.getGameStage() != GameStage.ENDED) {
+        markDepthLimitReached();
+      }
       return new EventScore(null, gameStateEvaluator.evaluate(gameState, maximizingPlayerType));
     }
 
     List<MakeMoveEvent> possibleMoves = gameState.getPossibleMoves();
     if (possibleMoves.isEmpty()) {
-      if (depth == maxDepth) {
+      if (depth == rootDepth) {
         return new EventScore(null, maximizing ? MIN_COST : MAX_COST);
       }
       gameState.changeCurrentPlayer();
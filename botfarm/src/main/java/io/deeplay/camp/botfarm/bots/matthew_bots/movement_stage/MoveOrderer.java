@@ -0,0 +1,193 @@
+package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
+
+import io.deeplay.camp.botfarm.bots.matthew_bots.TranspositionTable;
+import io.deeplay.camp.game.entities.AttackType;
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitType;
+import io.deeplay.camp.game.mechanics.CombatTables;
+import io.deeplay.camp.game.mechanics.GameState;
+import io.deeplay.camp.game.mechanics.PackedGameState;
+import io.deeplay.camp.game.mechanics.PlayerType;
+import java.util.Arrays;
+
+/**
+ * Упорядочивание ходов для ботов с альфа-бета отсечениями. Чем раньше рассмотрен ход, дающий
+ * отсечение, тем меньше вершин перебирается.
+ *
+ * <p>Порядок: ход из таблицы транспозиций, затем killer-ходы текущего уровня (ходы, уже дававшие
+ * отсечение на этом уровне в соседних ветках), затем остальные по статической оценке. Статическая
+ * оценка - ожидаемое уменьшение стоимости цели в {@code BaseEvaluator}: доля хп, снимаемая
+ * атакой, с бонусом за убийство и множителем генерала. Ходы с близкой статической оценкой
+ * различает таблица истории: счетчик отсечений по паре (клетка атакующего, клетка цели).
+ */
+public class MoveOrderer {
+  /** Наибольший уровень дерева, для которого хранятся killer-ходы. */
+  private static final int MAX_PLY = 128;
+
+  /** Количество killer-ходов на уровень. */
+  private static final int KILLERS_PER_PLY = 2;
+
+  /** Наибольший вклад истории в ключ сортировки. */
+  private static final double HISTORY_WEIGHT = 0.5;
+
+  private static final double HASH_MOVE_KEY = Double.MAX_VALUE;
+  private static final double KILLER_MOVE_KEY = 1e9;
+
+  /** Множитель стоимости генерала. */
+  private final double generalBonus;
+
+  private final int[][] killers = new int[MAX_PLY][KILLERS_PER_PLY];
+  private final int[][] history = new int[PackedGameState.CELLS][PackedGameState.CELLS];
+  private int maxHistory;
+
+  /** Ключи сортировки упорядочиваемых ходов. */
+  private final double[] keys = new double[PackedGameState.MAX_MOVES];
+
+  /**
+   * Конструктор.
+   *
+   * @param generalBonus множитель стоимости генерала из {@code BaseEvaluator}.
+   */
+  public MoveOrderer(double generalBonus) {
+    this.generalBonus = generalBonus;
+    clearKillers();
+  }
+
+  /**
+   * Метод готовит упорядочивание к поиску хода в новой позиции: killer-ходы сбрасываются, история
+   * уменьшается вдвое, чтобы старые отсечения весили меньше новых.
+   */
+  public void newSearch() {
+    clearKillers();
+    maxHistory = 0;
+    for (int[] row : history) {
+      for (int i = 0; i < row.length; i++) {
+        row[i] >>= 1;
+        maxHistory = Math.max(maxHistory, row[i]);
+      }
+    }
+  }
+
+  /**
+   * Метод упорядочивает ходы на месте по убыванию ключа. Сортировка вставками устойчива, ходы с
+   * равным ключом остаются в порядке генерации.
+   *
+   * @param moves буфер ходов {@link GameState#generateMoves(int[])}.
+   * @param count количество ходов в буфере.
+   * @param gameState игровое состояние, в котором делаются ходы.
+   * @param hashMove лучший ход из таблицы транспозиций или {@link TranspositionTable#NO_MOVE}.
+   * @param ply уровень вершины, 0 - корень.
+   */
+  public void order(int[] moves, int count, GameState gameState, int hashMove, int ply) {
+    if (count < 2) {
+      return;
+    }
+    for (int i = 0; i < count; i++) {
+      keys[i] = key(moves[i], gameState, hashMove, ply);
+    }
+    for (int i = 1; i < count; i++) {
+      int move = moves[i];
+      double key = keys[i];
+      int j = i - 1;
+      while (j >= 0 && keys[j] < key) {
+        moves[j + 1] = moves[j];
+        keys[j + 1] = keys[j];
+        j--;
+      }
+      moves[j + 1] = move;
+      keys[j + 1] = key;
+    }
+  }
+
+  /**
+   * Метод запоминает ход, давший отсечение.
+   *
+   * @param encoded ход в кодировке {@link PackedGameState#encodeMove(int, int)}.
+   * @param depth оставшаяся глубина вершины: отсечения ближе к корню экономят больше.
+   * @param ply уровень вершины.
+   */
+  public void recordCutoff(int encoded, int depth, int ply) {
+    if (ply < MAX_PLY && killers[ply][0] != encoded) {
+      killers[ply][1] = killers[ply][0];
+      killers[ply][0] = encoded;
+    }
+    int from = PackedGameState.moveFrom(encoded);
+    int to = PackedGameState.moveTo(encoded);
+    history[from][to] += depth * depth;
+    maxHistory = Math.max(maxHistory, history[from][to]);
+  }
+
+  /**
+   * Метод возвращает статическую оценку хода.
+   *
+   * @param move ход в кодировке {@link PackedGameState#encodeMove(int, int)}.
+   * @param gameState игровое состояние.
+   * @return ожидаемое уменьшение стоимости целей, для лечения - восстановленная стоимость.
+   */
+  double staticScore(int move, GameState gameState) {
+    Board board = gameState.getBoard();
+    int from = PackedGameState.moveFrom(move);
+    int to = PackedGameState.moveTo(move);
+    Unit attacker = board.getUnit(PackedGameState.x(from), PackedGameState.y(from));
+    if (attacker.getUnitType() == UnitType.HEALER) {
+      Unit target = board.getUnit(PackedGameState.x(to), PackedGameState.y(to));
+      if (!target.isAlive()) {
+        return 0;
+      }
+      int healed = Math.min(attacker.getDamage(), target.getMaxHp() - target.getCurrentHp());
+      return weight(target) * healed / target.getMaxHp();
+    }
+    if (attacker.getAttackType() == AttackType.MASS_ATTACK) {
+      double score = 0;
+      int startRow = attacker.getPlayerType() == PlayerType.FIRST_PLAYER ? Board.ROWS / 2 : 0;
+      for (int row = startRow; row < startRow + Board.ROWS / 2; row++) {
+        for (int col = 0; col < Board.COLUMNS; col++) {
+          score += attackScore(attacker, board.getUnit(col, row));
+        }
+      }
+      return score;
+    }
+    return attackScore(attacker, board.getUnit(PackedGameState.x(to), PackedGameState.y(to)));
+  }
+
+  private double attackScore(Unit attacker, Unit target) {
+    if (target == null || !target.isAlive()) {
+      return 0;
+    }
+    int damage = Math.min(attacker.getDamage(), target.getCurrentHp());
+    double gain = (double) damage / target.getMaxHp();
+    // Убитый юнит больше не атакует и не прикрывает соседа
+    if (damage == target.getCurrentHp()) {
+      gain += 1;
+    }
+    return CombatTables.hitChance(attacker, target) * weight(target) * gain;
+  }
+
+  private double weight(Unit unit) {
+    return unit.isGeneral() ? generalBonus : 1;
+  }
+
+  private double key(int encoded, GameState gameState, int hashMove, int ply) {
+    if (encoded == hashMove) {
+      return HASH_MOVE_KEY;
+    }
+    if (ply < MAX_PLY) {
+      for (int i = 0; i < KILLERS_PER_PLY; i++) {
+        if (killers[ply][i] == encoded) {
+          return KILLER_MOVE_KEY - i;
+        }
+      }
+    }
+    double historyScore =
+        (double) history[PackedGameState.moveFrom(encoded)][PackedGameState.moveTo(encoded)]
+            / (maxHistory + 1);
+    return staticScore(encoded, gameState) + HISTORY_WEIGHT * historyScore;
+  }
+
+  private void clearKillers() {
+    for (int[] plyKillers : killers) {
+      Arrays.fill(plyKillers, TranspositionTable.NO_MOVE);
+    }
+  }
+}
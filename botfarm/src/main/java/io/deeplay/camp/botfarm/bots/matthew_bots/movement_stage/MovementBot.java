@@ -1,8 +1,15 @@
 package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
 
 import io.deeplay.camp.botfarm.bots.matthew_bots.TreeAnalyzer;
+import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.EventScore;
 import io.deeplay.camp.game.events.MakeMoveEvent;
 import io.deeplay.camp.game.mechanics.GameState;
+import io.deeplay.camp.game.mechanics.PackedGameState;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -10,13 +17,154 @@ import lombok.Setter;
 @Setter
 @Getter
 public abstract class MovementBot {
+  /** Наибольшая глубина итеративного углубления при maxDepth, равной 0. */
+  public static final int MAX_ITERATIVE_DEPTH = 64;
+
   int maxDepth;
   TreeAnalyzer treeAnalyzer;
 
+  /** Бюджет времени на ход в миллисекундах, 0 - перебор на фиксированную глубину maxDepth. */
+  long moveTimeLimit;
+
+  /** Глубина последней завершенной итерации перебора. */
+  @Setter(AccessLevel.NONE)
+  int completedDepth;
+
+  /** Момент в наносекундах, после которого перебор прерывается. */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private long deadline;
+
+  /** Флаг, обозначающий, что перебор ограничен по времени. */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private volatile boolean deadlineArmed;
+
+  /** Флаг, обозначающий, что итерация дошла до листа, оборванного ограничением глубины. */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private boolean depthLimitReached;
+
+  /** Буферы ходов по уровням дерева для однопоточного перебора. */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  private int[][] moveBuffers = new int[0][];
+
   public MovementBot(TreeAnalyzer treeAnalyzer, int maxDepth) {
     this.maxDepth = maxDepth;
     this.treeAnalyzer = treeAnalyzer;
   }
 
   public abstract MakeMoveEvent generateMakeMoveEvent(GameState gameState);
+
+  /** Перебор на заданную глубину от корня. */
+  @FunctionalInterface
+  protected interface DepthSearch {
+    EventScore search(int depth);
+  }
+
+  /**
+   * Метод, выбирающий ход перебором. Без бюджета времени перебор идет на глубину maxDepth. С
+   * бюджетом - итеративным углублением: глубина растет на 1, пока не кончится время или не будет
+   * достигнута положительная maxDepth, и возвращается ход последней завершенной итерации. Первая
+   * итерация не прерывается, поэтому ход есть всегда. Если итерация ни разу не уперлась в
+   * ограничение глубины, дерево перебрано до конца игры, и углубление останавливается.
+   *
+   * @param search перебор на заданную глубину.
+   * @return ход.
+   */
+  protected MakeMoveEvent searchWithinTimeLimit(DepthSearch search) {
+    if (moveTimeLimit <= 0) {
+      completedDepth = maxDepth;
+      return (MakeMoveEvent) search.search(maxDepth).getEvent();
+    }
+    deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(moveTimeLimit);
+    completedDepth = 0;
+    MakeMoveEvent bestMove = null;
+    int depthLimit = maxDepth > 0 ? maxDepth : MAX_ITERATIVE_DEPTH;
+    try {
+      for (int depth = 1; depth <= depthLimit; depth++) {
+        depthLimitReached = false;
+        EventScore result = search.search(depth);
+        bestMove = (MakeMoveEvent) result.getEvent();
+        completedDepth = depth;
+        deadlineArmed = true;
+        // Дерево перебрано до конца игры: следующая итерация повторит ту же работу
+        if (!depthLimitReached) {
+          break;
+        }
+      }
+    } catch (SearchTimeoutException e) {
+      // Ход берется из последней завершенной итерации
+    } finally {
+      deadlineArmed = false;
+    }
+    return bestMove;
+  }
+
+  /**
+   * Метод возвращает буфер ходов уровня дерева для {@link GameState#generateMoves(int[])}. Вершина
+   * пишет ходы в буфер своего уровня, и он не меняется, пока перебираются ее потомки: они пишут в
+   * буферы более глубоких уровней.
+   *
+   * @param ply уровень вершины, 0 - корень.
+   * @return буфер на {@link PackedGameState#MAX_MOVES} ходов.
+   */
+  protected int[] moveBuffer(int ply) {
+    if (ply >= moveBuffers.length) {
+      int[][] buffers = Arrays.copyOf(moveBuffers, ply + 1);
+      for (int i = moveBuffers.length; i <= ply; i++) {
+        buffers[i] = new int[PackedGameState.MAX_MOVES];
+      }
+      moveBuffers = buffers;
+    }
+    return moveBuffers[ply];
+  }
+
+  /**
+   * Метод выполняет итерацию перебора в пуле потоков. Если время вышло, задачи, разветвленные до
+   * прерывания, еще лежат в пуле, поэтому метод дожидается, пока они тоже прервутся, и только потом
+   * пробрасывает исключение: иначе они продолжили бы перебор после выбора хода.
+   *
+   * @param forkJoinPool пул потоков бота.
+   * @param task корневая задача перебора.
+   * @return результат задачи.
+   * @throws SearchTimeoutException если время вышло.
+   */
+  protected EventScore invokeWithinTimeLimit(
+      ForkJoinPool forkJoinPool, ForkJoinTask<EventScore> task) {
+    try {
+      return forkJoinPool.invoke(task);
+    } catch (SearchTimeoutException e) {
+      forkJoinPool.awaitQuiescence(moveTimeLimit, TimeUnit.MILLISECONDS);
+      throw e;
+    }
+  }
+
+  /**
+   * Метод прерывает перебор, если время на ход вышло. Вызывается в каждой вершине дерева.
+   *
+   * @throws SearchTimeoutException если время вышло.
+   */
+  protected void checkDeadline() {
+    if (deadlineArmed && System.nanoTime() - deadline >= 0) {
+      throw new SearchTimeoutException();
+    }
+  }
+
+  /**
+   * Метод отмечает, что оценка вершины получена без перебора до конца игры. Вызывается в листьях
+   * на нулевой глубине и при отсечениях по таблице транспозиций, за которыми могут стоять такие
+   * листья.
+   */
+  protected void markDepthLimitReached() {
+    depthLimitReached = true;
+  }
+
+  /** Исключение без стека, прерывающее итерацию перебора по истечении времени. */
+  protected static final class SearchTimeoutException extends RuntimeException {
+    private SearchTimeoutException() {
+      super("Время на ход вышло", null, false, false);
+    }
+  }
 }
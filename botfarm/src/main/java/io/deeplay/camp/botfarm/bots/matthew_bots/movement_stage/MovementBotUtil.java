@@ -1,17 +1,32 @@
 package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
 
+import io.deeplay.camp.botfarm.bots.matthew_bots.TranspositionTable;
+import io.deeplay.camp.game.entities.AttackType;
+import io.deeplay.camp.game.entities.Board;
 import io.deeplay.camp.game.entities.Position;
 import io.deeplay.camp.game.entities.StateChance;
 import io.deeplay.camp.game.entities.UnitType;
 import io.deeplay.camp.game.events.MakeMoveEvent;
 import io.deeplay.camp.game.exceptions.GameException;
+import io.deeplay.camp.game.mechanics.BoardSymmetry;
+import io.deeplay.camp.game.mechanics.ChanceOutcomeEnumerator;
 import io.deeplay.camp.game.mechanics.GameState;
-import lombok.SneakyThrows;
+import io.deeplay.camp.game.mechanics.PackedGameState;
+import io.deeplay.camp.game.mechanics.PlayerType;
+import io.deeplay.camp.game.mechanics.TurnOutcomeEnumerator;
 
 import java.util.*;
 
 public class MovementBotUtil {
   public static final double BAD_BRANCH_PROBABILITY = 0.1;
+  /** Максимальное количество рассматриваемых исходов массовой атаки. */
+  public static final int MAX_MASS_ATTACK_OUTCOMES = 8;
+  /** Порог вероятности исхода комплексного хода. */
+  public static final double MIN_TURN_OUTCOME_CHANCE = 0.01;
+  /** Добавка к ключу узла минимизирующего игрока в таблице транспозиций. */
+  private static final long MINIMIZING_NODE_KEY = 0x9E3779B97F4A7C15L;
+  /** Добавка к ключу, если оценка ведется за второго игрока. */
+  private static final long SECOND_PLAYER_VIEW_KEY = 0xC2B2AE3D27D4EB4FL;
 
   /**
    * Метод, удаляющий из списка ходов похожие ходы.
@@ -24,6 +39,39 @@ public class MovementBotUtil {
     removeSimilarMovesOfUnitType(possibleMoves, UnitType.HEALER);
   }
 
+  /**
+   * Метод, удаляющий похожие ходы из буфера ходов {@link GameState#generateMoves(int[])}: как и
+   * {@link #removeUnnecessaryMoves(List)}, для лучников, рыцарей и лекарей остается только первый
+   * ход юнита каждого типа в каждую цель. Порядок оставшихся ходов сохраняется.
+   *
+   * @param gameState игровое состояние, в котором сгенерированы ходы
+   * @param moves буфер ходов
+   * @param count количество ходов в буфере
+   * @return количество оставшихся ходов
+   */
+  public static int removeUnnecessaryMoves(GameState gameState, int[] moves, int count) {
+    Board board = gameState.getBoard();
+    // Бит (тип атакующего, клетка цели) для уже оставленных ходов
+    long seenTargets = 0;
+    int kept = 0;
+    for (int i = 0; i < count; i++) {
+      int move = moves[i];
+      int from = PackedGameState.moveFrom(move);
+      UnitType unitType =
+          board.getUnit(PackedGameState.x(from), PackedGameState.y(from)).getUnitType();
+      if (unitType != UnitType.MAGE) {
+        long target =
+            1L << (unitType.index() * PackedGameState.CELLS + PackedGameState.moveTo(move));
+        if ((seenTargets & target) != 0) {
+          continue;
+        }
+        seenTargets |= target;
+      }
+      moves[kept++] = move;
+    }
+    return kept;
+  }
+
   /**
    * Метод, удаляющий из списка похожие ходы юнитов одного типа.
    *
@@ -57,23 +105,56 @@ public class MovementBotUtil {
       GameState gameState, List<MakeMoveEvent> possibleMoves) throws GameException {
     List<State> possibleStates = new ArrayList<>();
     for (MakeMoveEvent move : possibleMoves) {
-      List<StateChance> possibleOptions = gameState.getPossibleState(move);
-      for (StateChance stateChance : possibleOptions) {
-        if ((stateChance.chance() > BAD_BRANCH_PROBABILITY)) {
-          possibleStates.add(
-              new State(
-                  stateChance.gameState(),
-                  stateChance.chance(),
-                  new MakeMoveEvent(move.getFrom(), move.getTo(), move.getAttacker().getCopy())));
-        }
-      }
+      addPossibleStates(possibleStates, gameState, move);
+    }
+    return possibleStates;
+  }
+
+  /**
+   * Метод, собирающий список возможных состояний на следующем уровне по буферу ходов {@link
+   * GameState#generateMoves(int[])}. Ивент создается только для хода из буфера, чьи исходы
+   * собираются, поэтому буфер можно переиспользовать сразу после вызова.
+   *
+   * @param gameState игровое состояние
+   * @param moves буфер ходов
+   * @param count количество ходов в буфере
+   * @return сформированный список возможных состояний
+   * @throws GameException если getPossibleState не может применить ход
+   */
+  public static List<State> collectPossibleStates(GameState gameState, int[] moves, int count)
+      throws GameException {
+    List<State> possibleStates = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      addPossibleStates(possibleStates, gameState, gameState.toMakeMoveEvent(moves[i]));
     }
     return possibleStates;
   }
 
+  private static void addPossibleStates(
+      List<State> possibleStates, GameState gameState, MakeMoveEvent move) throws GameException {
+    // У массовой атаки много маловероятных исходов, их отсекает ограничение количества исходов
+    boolean massAttack = move.getAttacker().getAttackType() == AttackType.MASS_ATTACK;
+    List<StateChance> possibleOptions =
+        massAttack
+            ? ChanceOutcomeEnumerator.enumerate(gameState, move, MAX_MASS_ATTACK_OUTCOMES)
+            : gameState.getPossibleState(move);
+    for (StateChance stateChance : possibleOptions) {
+      if (massAttack || stateChance.chance() > BAD_BRANCH_PROBABILITY) {
+        possibleStates.add(
+            new State(
+                stateChance.gameState(),
+                stateChance.chance(),
+                new MakeMoveEvent(move.getFrom(), move.getTo(), move.getAttacker().getCopy())));
+      }
+    }
+  }
+
+
   /**
    * Метод, создающий список возмиожных игровых состояний, к которым могут привести комплексные
-   * ходы.
+   * ходы. Исходы каждого комплексного хода считаются динамикой по ходам юнитов, одинаковые
+   * состояния не дублируются, а исходы с вероятностью меньше {@link #MIN_TURN_OUTCOME_CHANCE}
+   * отбрасываются.
    *
    * @param gameState начанльное игровое состояние
    * @param complexMoves список комплексных ходов
@@ -83,53 +164,69 @@ public class MovementBotUtil {
       GameState gameState, List<List<MakeMoveEvent>> complexMoves) {
     List<State> possibleStates = new ArrayList<>();
     for (List<MakeMoveEvent> complexMove : complexMoves) {
-      collectPossibleStatesRecursive(
-          new State(gameState.getCopy(), 1, complexMove),
-          new ArrayList<>(complexMove),
-          possibleStates);
+      for (StateChance stateChance :
+          TurnOutcomeEnumerator.enumerate(gameState, complexMove, MIN_TURN_OUTCOME_CHANCE)) {
+        possibleStates.add(new State(stateChance.gameState(), stateChance.chance(), complexMove));
+      }
     }
     return possibleStates;
   }
 
   /**
-   * Рекурсивный метод поиска возможных состояний для комплексного хода. Учитывает попадание/промах.
+   * Метод ставит ход первым в буфере, сохраняя порядок остальных. Так лучший ход прошлой итерации
+   * или ход из таблицы транспозиций перебирается первым и сразу задает альфа.
    *
-   * @param state игровое состояние
-   * @param complexMove комплексный ход
-   * @param result список возможных состояний, который необходимо заполнить
+   * @param moves буфер ходов
+   * @param count количество ходов в буфере
+   * @param move закодированный ход или {@link TranspositionTable#NO_MOVE}
    */
-  private static void collectPossibleStatesRecursive(
-      State state, List<MakeMoveEvent> complexMove, List<State> result) {
-    if (complexMove.isEmpty()) {
-      result.add(state);
+  public static void moveToFront(int[] moves, int count, int move) {
+    if (move == TranspositionTable.NO_MOVE) {
       return;
     }
-    MakeMoveEvent moveEvent = complexMove.getLast();
-    double hitProbability = state.getGameState().getPositiveMoveChance(moveEvent);
-    double mistakeProbability = 1 - hitProbability;
-    GameState hitState = state.getGameState().getCopy();
-    try {
-      // невалидные комбинации нужно пропустить
-      hitState.makeAccurateMove(moveEvent);
-    } catch (GameException e) {
-      return;
+    for (int i = 1; i < count; i++) {
+      if (moves[i] == move) {
+        System.arraycopy(moves, 0, moves, 1, i);
+        moves[0] = move;
+        return;
+      }
     }
-    GameState missState = state.getGameState().getCopy();
-    try {
-      // невалидные комбинации нужно пропустить
-      missState.makeNotAccurateMove(moveEvent);
-    } catch (GameException e) {
+  }
 
-      return;
+
+  /**
+   * Метод возвращает ключ узла дерева для таблицы транспозиций. Оценка узла зависит не только от
+   * состояния, но и от того, за кого играет бот и чей ход в дереве, поэтому они добавляются к
+   * каноническому ключу состояния ({@link BoardSymmetry#canonicalKey}): состояние и его отражение
+   * делят одну запись. Ход записи переводится через {@link #tableMove}.
+   *
+   * @param gameState игровое состояние
+   * @param maximizingPlayerType сторона, за которую играет бот
+   * @param maximizing ход максимизирующего игрока
+   * @return ключ узла
+   */
+  public static long transpositionKey(
+      GameState gameState, PlayerType maximizingPlayerType, boolean maximizing) {
+    long key = BoardSymmetry.canonicalKey(gameState);
+    if (!maximizing) {
+      key ^= MINIMIZING_NODE_KEY;
+    }
+    if (maximizingPlayerType == PlayerType.SECOND_PLAYER) {
+      key ^= SECOND_PLAYER_VIEW_KEY;
     }
-    complexMove.remove(moveEvent);
-    collectPossibleStatesRecursive(
-        new State(hitState, state.getProbability() * hitProbability),
-        new ArrayList<>(complexMove),
-        result);
-    collectPossibleStatesRecursive(
-        new State(hitState, state.getProbability() * mistakeProbability),
-        new ArrayList<>(complexMove),
-        result);
+    return key;
+  }
+
+  /**
+   * Метод переводит ход между ориентацией узла и канонической ориентацией, в которой он лежит в
+   * таблице транспозиций. Отражение обратно самому себе, поэтому метод годится в обе стороны.
+   *
+   * @param tableTransform {@link BoardSymmetry#canonicalKeyTransform} состояния узла, взятое
+   *     вместе с ключом
+   * @param move закодированный ход или {@link TranspositionTable#NO_MOVE}
+   * @return ход в другой ориентации
+   */
+  public static int tableMove(BoardSymmetry.Transform tableTransform, int move) {
+    return move == TranspositionTable.NO_MOVE ? move : tableTransform.move(move);
   }
 }
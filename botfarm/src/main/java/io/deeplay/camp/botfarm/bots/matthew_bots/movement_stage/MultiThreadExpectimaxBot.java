@@ -1,16 +1,22 @@
 package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
 
 import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.collectPossibleStates;
+import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.moveToFront;
 import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.removeUnnecessaryMoves;
+import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.tableMove;
+import static io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.MovementBotUtil.transpositionKey;
 
+import io.deeplay.camp.botfarm.bots.matthew_bots.TranspositionTable;
 import io.deeplay.camp.botfarm.bots.matthew_bots.TreeAnalyzer;
 import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.BaseEvaluator;
 import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.EventScore;
 import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.GameStateEvaluator;
 import io.deeplay.camp.game.events.MakeMoveEvent;
 import io.deeplay.camp.game.exceptions.GameException;
+import io.deeplay.camp.game.mechanics.BoardSymmetry;
 import io.deeplay.camp.game.mechanics.GameStage;
 import io.deeplay.camp.game.mechanics.GameState;
+import io.deeplay.camp.game.mechanics.PackedGameState;
 import io.deeplay.camp.game.mechanics.PlayerType;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,32 +25,92 @@ import java.util.concurrent.RecursiveTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Многопоточный вариант {@link ExpectimaxBot} с теми же отсечениями Star1/Star2. Первый исход узла
+ * максимизирующего игрока перебирается в текущем потоке, чтобы получить альфа, остальные - в
+ * параллельных задачах с окнами от этого альфа. Без отсечений все исходы перебираются параллельно
+ * с полным окном.
+ */
 public class MultiThreadExpectimaxBot extends MovementBot {
   private static final Logger logger = LoggerFactory.getLogger(MultiThreadExpectimaxBot.class);
 
+  /** Максимальная оценка игрового состояния. */
+  private static final double MAX_COST = GameStateEvaluator.MAX_COST;
+
   /** Минимальная оценка игрового состояния. */
   private static final double MIN_COST = GameStateEvaluator.MIN_COST;
 
+  /**
+   * Буфер ходов своего потока. Задача читает ходы только до того, как соберет исходы, поэтому
+   * вложенные задачи, выполняемые тем же потоком, могут его перезаписать.
+   */
+  private static final ThreadLocal<int[]> MOVE_BUFFER =
+      ThreadLocal.withInitial(() -> new int[PackedGameState.MAX_MOVES]);
+
   /** Оценщик игровых состояний. */
   private final GameStateEvaluator gameStateEvaluator;
   private final ForkJoinPool forkJoinPool;
+
+  /** Таблица транспозиций, общая для всех потоков и ходов бота. */
+  private final TranspositionTable transpositionTable;
+
+  /** Флаг, обозначающий отсечения Star1/Star2. Без них перебираются все исходы. */
+  private final boolean chancePruning;
+
+  /** Флаг, обозначающий использование таблицы транспозиций. */
+  private final boolean useTranspositionTable;
+
   /** Максимизирующий игрок, т.е. сторона, за которую играет бот. */
   private PlayerType maximizingPlayerType;
 
+  /** Глубина корня текущей итерации перебора. */
+  private int rootDepth;
+
+  /** Лучший ход корня предыдущей итерации. */
+  private int principalMove;
+
   /**
-   * Конструктор.
+   * Конструктор бота с отсечениями Star1/Star2 в узлах случая.
    *
    * @param maxDepth Максимальная глубина дерева.
    */
   public MultiThreadExpectimaxBot(int maxDepth) {
+    this(maxDepth, true);
+  }
+
+  /**
+   * Конструктор.
+   *
+   * @param maxDepth Максимальная глубина дерева.
+   * @param chancePruning Флаг, обозначающий отсечения Star1/Star2 в узлах случая.
+   */
+  public MultiThreadExpectimaxBot(int maxDepth, boolean chancePruning) {
+    this(maxDepth, chancePruning, true);
+  }
+
+  /**
+   * Конструктор. Без таблицы транспозиций и отсечений дерево не зависит от порядка работы потоков,
+   * и количество узлов совпадает с {@link ExpectimaxBot} с теми же флагами.
+   *
+   * @param maxDepth Максимальная глубина дерева.
+   * @param chancePruning Флаг, обозначающий отсечения Star1/Star2 в узлах случая.
+   * @param useTranspositionTable Флаг, обозначающий использование таблицы транспозиций.
+   */
+  public MultiThreadExpectimaxBot(
+      int maxDepth, boolean chancePruning, boolean useTranspositionTable) {
     super(new TreeAnalyzer(), maxDepth);
     this.gameStateEvaluator = new BaseEvaluator();
+    this.chancePruning = chancePruning;
+    this.useTranspositionTable = useTranspositionTable;
     treeAnalyzer = new TreeAnalyzer();
     forkJoinPool = new ForkJoinPool();
+    transpositionTable = new TranspositionTable();
   }
 
   /**
-   * Метод, генерирующий ход для текущего игрока игрового состояния.
+   * Метод, генерирующий ход для текущего игрока игрового состояния. При бюджете времени на ход
+   * перебор идет итеративным углублением: лучший ход корня предыдущей итерации рассматривается
+   * первым, а лучшие ходы ниже корня берутся из таблицы транспозиций.
    *
    * @param gameState Игровое состояние.
    * @return ивент с ходом.
@@ -53,11 +119,28 @@ public class MultiThreadExpectimaxBot extends MovementBot {
   public MakeMoveEvent generateMakeMoveEvent(GameState gameState) {
     maximizingPlayerType = gameState.getCurrentPlayer();
     treeAnalyzer.startMoveStopWatch();
-    ExpectimaxTask expectimaxTask =
-        new ExpectimaxTask(new State(gameState.getCopy(), 1, null), maxDepth, true);
-    EventScore result = forkJoinPool.invoke(expectimaxTask);
+    transpositionTable.newSearch();
+    principalMove = TranspositionTable.NO_MOVE;
+    MakeMoveEvent move =
+        searchWithinTimeLimit(
+            depth -> {
+              rootDepth = depth;
+              EventScore result =
+                  invokeWithinTimeLimit(
+                      forkJoinPool,
+                      new ExpectimaxTask(
+                          new State(gameState.getCopy(), 1, null),
+                          depth,
+                          MIN_COST,
+                          MAX_COST,
+                          true));
+              if (result.getEvent() != null) {
+                principalMove = PackedGameState.encodeMove((MakeMoveEvent) result.getEvent());
+              }
+              return result;
+            });
     treeAnalyzer.endMoveStopWatch();
-    return (MakeMoveEvent) result.getEvent();
+    return move;
   }
 
   public class ExpectimaxTask extends RecursiveTask<EventScore> {
@@ -65,61 +148,161 @@ public class MultiThreadExpectimaxBot extends MovementBot {
     private final int depth;
     private final MakeMoveEvent lastMove;
     private final double probability;
+    private double alpha;
+    private double beta;
     private boolean maximizing;
 
     public ExpectimaxTask(
-            io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State state, int depth, boolean maximizing) {
+            io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State state,
+            int depth,
+            double alpha,
+            double beta,
+            boolean maximizing) {
       gameState = state.getGameState();
       this.depth = depth;
       lastMove = (MakeMoveEvent)state.getLastMove();
       probability = state.getProbability();
+      this.alpha = alpha;
+      this.beta = beta;
       this.maximizing = maximizing;
     }
 
     /**
-     * Метод, исполняющий алгоритм экспектимакс.
+     * Метод, исполняющий алгоритм экспектимакс. Оценка точна, если попадает в окно (alpha, beta),
+     * иначе она - граница точной оценки с той же стороны окна.
      *
      * @return ивент и его оценку.
      */
     @Override
     protected EventScore compute() {
       treeAnalyzer.incrementNodesCount();
+      checkDeadline();
       // Базовый случай (Дошли до ограничения глубины или конца игры)
       if (depth == 0 || gameState.getGameStage() == GameStage.ENDED) {
+        if (gameState.getGameStage() != GameStage.ENDED) {
+          markDepthLimitReached();
+        }
         return new EventScore(null, gameStateEvaluator.evaluate(gameState, maximizingPlayerType));
       }
 
-      List<MakeMoveEvent> possibleMoves = gameState.getPossibleMoves();
-      if (possibleMoves.isEmpty()) {
-        if (depth == maxDepth) {
+      // В корне нужен ход, а не только оценка, поэтому корень в таблицу не попадает
+      boolean useTable = useTranspositionTable && depth < rootDepth;
+      long key = useTable ? transpositionKey(gameState, maximizingPlayerType, maximizing) : 0;
+      BoardSymmetry.Transform tableTransform =
+          useTable
+              ? BoardSymmetry.canonicalKeyTransform(gameState)
+              : BoardSymmetry.Transform.IDENTITY;
+      double alphaOrig = alpha;
+      double betaOrig = beta;
+      int hashMove = TranspositionTable.NO_MOVE;
+      if (useTable) {
+        TranspositionTable.Entry entry = transpositionTable.probe(key);
+        treeAnalyzer.recordTranspositionProbe(entry != null);
+        if (entry != null) {
+          hashMove = tableMove(tableTransform, entry.move());
+        }
+        if (entry != null && entry.depth() >= depth) {
+          if (entry.bound() == TranspositionTable.Bound.LOWER) {
+            alpha = Math.max(alpha, entry.score());
+          } else if (entry.bound() == TranspositionTable.Bound.UPPER) {
+            beta = Math.min(beta, entry.score());
+          }
+          if (entry.bound() == TranspositionTable.Bound.EXACT || beta <= alpha) {
+            treeAnalyzer.incrementTranspositionCutoffs();
+            markDepthLimitReached();
+            return new EventScore(null, entry.score());
+          }
+        }
+      }
+
+      int[] moves = MOVE_BUFFER.get();
+      int count = gameState.generateMoves(moves);
+      if (count == 0) {
+        if (depth == rootDepth) {
           return new EventScore(null, maximizing ? MIN_COST : 0);
         }
         gameState.changeCurrentPlayer();
-        possibleMoves = gameState.getPossibleMoves();
+        count = gameState.generateMoves(moves);
         maximizing = !maximizing;
       }
-      removeUnnecessaryMoves(possibleMoves);
+      count = removeUnnecessaryMoves(gameState, moves, count);
+      moveToFront(moves, count, depth == rootDepth ? principalMove : hashMove);
 
-      return maximizing
-          ? maximize(gameState, depth, possibleMoves)
-          : expect(gameState, depth, possibleMoves);
+      EventScore result =
+          maximizing
+              ? maximize(gameState, depth, moves, count)
+              : expect(gameState, depth, moves, count);
+      if (useTable) {
+        TranspositionTable.Bound bound;
+        if (result.getScore() <= alphaOrig) {
+          bound = TranspositionTable.Bound.UPPER;
+        } else if (result.getScore() >= betaOrig) {
+          bound = TranspositionTable.Bound.LOWER;
+        } else {
+          bound = TranspositionTable.Bound.EXACT;
+        }
+        int bestMove =
+            result.getEvent() == null
+                ? TranspositionTable.NO_MOVE
+                : tableMove(
+                    tableTransform, PackedGameState.encodeMove((MakeMoveEvent) result.getEvent()));
+        transpositionTable.store(key, depth, bound, result.getScore(), bestMove);
+      }
+      return result;
     }
 
     /**
-     * Метод, отвечающий за максимизирующего игрока.
+     * Метод, отвечающий за максимизирующего игрока. Первый исход перебирается в текущем потоке,
+     * остальные - параллельно с окном, деленным на вероятность исхода. Исходы, которые даже с
+     * наибольшей оценкой не улучшат альфа, не перебираются.
      *
      * @param gameState Игровое состояние.
      * @param depth Максимальная глубина.
-     * @param possibleMoves Возможные ходы.
+     * @param moves Буфер возможных ходов.
+     * @param moveCount Количество ходов в буфере.
      * @return ивент и его оценку.
      */
-    private EventScore maximize(GameState gameState, int depth, List<MakeMoveEvent> possibleMoves) {
+    private EventScore maximize(GameState gameState, int depth, int[] moves, int moveCount) {
       EventScore bestResult = new EventScore(null, MIN_COST);
+      // Наибольшая оценка неперебранных исходов, нужна, чтобы вернуть верную верхнюю границу
+      double skippedBound = MIN_COST;
       try {
-        List<io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State> possibleStates = collectPossibleStates(gameState, possibleMoves);
+        List<io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State> possibleStates =
+            collectPossibleStates(gameState, moves, moveCount);
         List<ExpectimaxTask> tasks = new ArrayList<>();
-        for (io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State state : possibleStates) {
-          ExpectimaxTask task = new ExpectimaxTask(state, depth - 1, true);
+        boolean firstSearched = false;
+        for (int i = 0; i < possibleStates.size(); i++) {
+          io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State state =
+              possibleStates.get(i);
+          double stateProbability = state.getProbability();
+          if (!chancePruning) {
+            ExpectimaxTask task = new ExpectimaxTask(state, depth - 1, MIN_COST, MAX_COST, true);
+            tasks.add(task);
+            task.fork();
+            continue;
+          }
+          if (stateProbability * MAX_COST <= alpha) {
+            skippedBound = Math.max(skippedBound, stateProbability * MAX_COST);
+            continue;
+          }
+          ExpectimaxTask task =
+              new ExpectimaxTask(
+                  state,
+                  depth - 1,
+                  Math.max(MIN_COST, alpha / stateProbability),
+                  Math.min(MAX_COST, beta / stateProbability),
+                  true);
+          if (!firstSearched) {
+            firstSearched = true;
+            EventScore result = task.compute();
+            result.setScore(result.getScore() * stateProbability);
+            bestResult = new EventScore(task.lastMove, result.getScore());
+            alpha = Math.max(alpha, bestResult.getScore());
+            if (beta <= alpha) {
+              break;
+            }
+            continue;
+          }
           tasks.add(task);
           task.fork();
         }
@@ -133,33 +316,122 @@ public class MultiThreadExpectimaxBot extends MovementBot {
       } catch (GameException e) {
         logger.error("Ошибка в применении хода к игровому состоянию!", e);
       }
+      if (skippedBound > bestResult.getScore()) {
+        bestResult.setScore(skippedBound);
+      }
       return bestResult;
     }
 
     /**
-     * Метод, отвечающий за игрока оппонента.
+     * Метод, отвечающий за игрока оппонента. Исходы перебираются последовательно с отсечениями
+     * Star1/Star2, как в {@link ExpectimaxBot}.
      *
      * @param gameState Игровое состояние.
      * @param depth Максимальная глубина.
-     * @param possibleMoves Возможные ходы.
+     * @param moves Буфер возможных ходов.
+     * @param moveCount Количество ходов в буфере.
      * @return ивент и его оценку.
      */
-    private EventScore expect(GameState gameState, int depth, List<MakeMoveEvent> possibleMoves) {
+    private EventScore expect(GameState gameState, int depth, int[] moves, int moveCount) {
       double expectedValue = 0;
       EventScore bestResult = new EventScore(null, 0);
       try {
-        List<io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State> possibleStates = collectPossibleStates(gameState, possibleMoves);
-        for (io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State state : possibleStates) {
-          ExpectimaxTask task = new ExpectimaxTask(state, depth - 1, false);
+        List<io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State> possibleStates =
+            collectPossibleStates(gameState, moves, moveCount);
+        int count = possibleStates.size();
+        if (!chancePruning) {
+          for (io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State state :
+              possibleStates) {
+            ExpectimaxTask task = new ExpectimaxTask(state, depth - 1, MIN_COST, MAX_COST, false);
+            expectedValue += task.compute().getScore() * state.getProbability();
+          }
+          bestResult.setScore(expectedValue / count);
+          return bestResult;
+        }
+
+        double[] lowerBounds = new double[count];
+        // Взвешенные суммы границ неперебранных исходов
+        double remainingUpper = 0;
+        double remainingLower = 0;
+        for (int i = 0; i < count; i++) {
+          double stateProbability = possibleStates.get(i).getProbability();
+          lowerBounds[i] = MIN_COST;
+          remainingUpper += stateProbability * MAX_COST;
+          remainingLower += stateProbability * MIN_COST;
+        }
+        if (remainingUpper / count <= alpha) {
+          bestResult.setScore(remainingUpper / count);
+          return bestResult;
+        }
+        // Отсечение снизу возможно, только если бета меньше наибольшей оценки
+        for (int i = 0; i < count && beta < MAX_COST; i++) {
+          io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State state =
+              possibleStates.get(i);
+          double stateProbability = state.getProbability();
+          lowerBounds[i] = probeLowerBound(state.getGameState(), depth - 1);
+          remainingLower += stateProbability * (lowerBounds[i] - MIN_COST);
+          if (remainingLower / count >= beta) {
+            bestResult.setScore(remainingLower / count);
+            return bestResult;
+          }
+        }
+
+        for (int i = 0; i < count; i++) {
+          io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State state =
+              possibleStates.get(i);
+          double stateProbability = state.getProbability();
+          remainingUpper -= stateProbability * MAX_COST;
+          remainingLower -= stateProbability * lowerBounds[i];
+          double childAlpha = (alpha * count - expectedValue - remainingUpper) / stateProbability;
+          double childBeta = (beta * count - expectedValue - remainingLower) / stateProbability;
+          ExpectimaxTask task =
+              new ExpectimaxTask(
+                  state,
+                  depth - 1,
+                  Math.max(MIN_COST, childAlpha),
+                  Math.min(MAX_COST, childBeta),
+                  false);
           EventScore result = task.compute();
-          expectedValue += result.getScore() * state.getProbability();
+          expectedValue += result.getScore() * stateProbability;
+          if (result.getScore() <= childAlpha) {
+            bestResult.setScore((expectedValue + remainingUpper) / count);
+            return bestResult;
+          }
+          if (result.getScore() >= childBeta) {
+            bestResult.setScore((expectedValue + remainingLower) / count);
+            return bestResult;
+          }
         }
-        expectedValue /= possibleStates.size();
+        expectedValue /= count;
         bestResult.setScore(expectedValue);
       } catch (GameException e) {
         logger.error("Ошибка в применении хода к игровому состоянию!", e);
       }
       return bestResult;
     }
+
+    /**
+     * Метод, возвращающий нижнюю границу оценки исхода хода оппонента (Star2) без перебора, как в
+     * {@link ExpectimaxBot}.
+     *
+     * @param gameState Игровое состояние исхода.
+     * @param depth Оставшаяся глубина исхода.
+     * @return нижнюю границу оценки исхода.
+     */
+    private double probeLowerBound(GameState gameState, int depth) {
+      if (depth == 0 || gameState.getGameStage() == GameStage.ENDED) {
+        return gameStateEvaluator.evaluate(gameState, maximizingPlayerType);
+      }
+      if (useTranspositionTable) {
+        TranspositionTable.Entry entry =
+            transpositionTable.probe(transpositionKey(gameState, maximizingPlayerType, false));
+        if (entry != null
+            && entry.depth() >= depth
+            && entry.bound() != TranspositionTable.Bound.UPPER) {
+          return entry.score();
+        }
+      }
+      return MIN_COST;
+    }
   }
 }
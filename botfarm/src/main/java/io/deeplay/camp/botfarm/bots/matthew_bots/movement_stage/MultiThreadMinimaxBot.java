@@ -11,6 +11,7 @@ import io.deeplay.camp.game.events.MakeMoveEvent;
 import io.deeplay.camp.game.exceptions.GameException;
 import io.deeplay.camp.game.mechanics.GameStage;
 import io.deeplay.camp.game.mechanics.GameState;
+import io.deeplay.camp.game.mechanics.PackedGameState;
 import io.deeplay.camp.game.mechanics.PlayerType;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,25 +25,47 @@ public class MultiThreadMinimaxBot extends MovementBot {
   private static final Logger logger = LoggerFactory.getLogger(MultiThreadMinimaxBot.class);
   private static final double MAX_COST = GameStateEvaluator.MAX_COST;
   private static final double MIN_COST = GameStateEvaluator.MIN_COST;
+
+  /**
+   * Буфер ходов своего потока. Задача читает ходы только до того, как соберет исходы, поэтому
+   * вложенные задачи, выполняемые тем же потоком, могут его перезаписать.
+   */
+  private static final ThreadLocal<int[]> MOVE_BUFFER =
+      ThreadLocal.withInitial(() -> new int[PackedGameState.MAX_MOVES]);
   private final GameStateEvaluator gameStateEvaluator;
   private final ForkJoinPool forkJoinPool;
   private PlayerType maximizingPlayerType;
 
+  /** Глубина корня текущей итерации перебора. */
+  private int rootDepth;
+
   public MultiThreadMinimaxBot(int maxDepth) {
     super(new TreeAnalyzer(), maxDepth);
     this.gameStateEvaluator = new BaseEvaluator();
     this.forkJoinPool = new ForkJoinPool();
   }
 
+  /**
+   * Метод, генерирующий ход для текущего игрока игрового состояния. При бюджете времени на ход
+   * перебор идет итеративным углублением.
+   *
+   * @param gameState Игровое состояние.
+   * @return ивент с ходом.
+   */
   @Override
   public MakeMoveEvent generateMakeMoveEvent(GameState gameState) {
     maximizingPlayerType = gameState.getCurrentPlayer();
     treeAnalyzer.startMoveStopWatch();
-    EventScore result =
-        forkJoinPool.invoke(
-            new MinimaxTask(new State(gameState.getCopy(), 1, null), maxDepth, true));
+    MakeMoveEvent move =
+        searchWithinTimeLimit(
+            depth -> {
+              rootDepth = depth;
+              return invokeWithinTimeLimit(
+                  forkJoinPool,
+                  new MinimaxTask(new State(gameState.getCopy(), 1, null), depth, true));
+            });
     treeAnalyzer.endMoveStopWatch();
-    return (MakeMoveEvent) result.getEvent();
+    return move;
   }
 
   private class MinimaxTask extends RecursiveTask<EventScore> {
@@ -69,24 +92,29 @@ public class MultiThreadMinimaxBot extends MovementBot {
     @Override
     protected EventScore compute() {
       treeAnalyzer.incrementNodesCount();
+      checkDeadline();
       if (depth == 0 || gameState.getGameStage() == GameStage.ENDED) {
+        if (gameState.getGameStage() != GameStage.ENDED) {
+          markDepthLimitReached();
+        }
         return new EventScore(null, gameStateEvaluator.evaluate(gameState, maximizingPlayerType));
       }
 
-      List<MakeMoveEvent> possibleMoves = gameState.getPossibleMoves();
-      if (possibleMoves.isEmpty()) {
-        if (depth == maxDepth) {
+      int[] moves = MOVE_BUFFER.get();
+      int count = gameState.generateMoves(moves);
+      if (count == 0) {
+        if (depth == rootDepth) {
           return new EventScore(null, maximizing ? MIN_COST : MAX_COST);
         }
         gameState.changeCurrentPlayer();
-        possibleMoves = gameState.getPossibleMoves();
+        count = gameState.generateMoves(moves);
         maximizing = !maximizing;
       }
-      removeUnnecessaryMoves(possibleMoves);
+      count = removeUnnecessaryMoves(gameState, moves, count);
 
       return maximizing
-          ? maximize(gameState, depth, possibleMoves)
-          : minimize(gameState, depth, possibleMoves);
+          ? maximize(gameState, depth, moves, count)
+          : minimize(gameState, depth, moves, count);
     }
 
     /**
@@ -94,14 +122,15 @@ public class MultiThreadMinimaxBot extends MovementBot {
      *
      * @param gameState Игровое состояние.
      * @param depth Максимальная глубина.
-     * @param possibleMoves Возможные ходы.
+     * @param moves Буфер возможных ходов.
+     * @param count Количество ходов в буфере.
      * @return ивент и его оценку.
      */
-    private EventScore maximize(GameState gameState, int depth, List<MakeMoveEvent> possibleMoves) {
+    private EventScore maximize(GameState gameState, int depth, int[] moves, int count) {
       EventScore bestResult = new EventScore(null, MIN_COST);
       try {
         List<io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State> possibleStates =
-            collectPossibleStates(gameState, possibleMoves);
+            collectPossibleStates(gameState, moves, count);
         List<MinimaxTask> tasks = new ArrayList<>();
         for (io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State state :
             possibleStates) {
@@ -127,14 +156,15 @@ public class MultiThreadMinimaxBot extends MovementBot {
      *
      * @param gameState Игровое состояние.
      * @param depth Максимальная глубина.
-     * @param possibleMoves Возможные ходы.
+     * @param moves Буфер возможных ходов.
+     * @param count Количество ходов в буфере.
      * @return ивент и его оценку.
      */
-    private EventScore minimize(GameState gameState, int depth, List<MakeMoveEvent> possibleMoves) {
+    private EventScore minimize(GameState gameState, int depth, int[] moves, int count) {
       EventScore bestResult = new EventScore(null, MAX_COST);
       try {
         List<io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State> possibleStates =
-            collectPossibleStates(gameState, possibleMoves);
+            collectPossibleStates(gameState, moves, count);
         List<MinimaxTask> tasks = new ArrayList<>();
         for (io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage.State state :
             possibleStates) {
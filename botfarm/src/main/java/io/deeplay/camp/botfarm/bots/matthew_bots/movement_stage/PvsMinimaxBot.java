@@ -0,0 +1,127 @@
+package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
+
+import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.EventScore;
+import io.deeplay.camp.botfarm.bots.matthew_bots.evaluate.GameStateEvaluator;
+import io.deeplay.camp.game.entities.StateChance;
+import io.deeplay.camp.game.mechanics.GameState;
+
+/**
+ * Вариант {@link AlphaBetaMinimaxBot} с поиском главного варианта (PVS, NegaScout). Первый потомок
+ * вершины перебирается с полным окном, остальные - с нулевым: перебор только проверяет, что потомок
+ * не лучше уже найденного, и поэтому отсекает больше. Если проверка не прошла, потомок перебирается
+ * заново с полным окном.
+ *
+ * <p>При итеративном углублении корень перебирается с окном стремления вокруг оценки предыдущей
+ * итерации. Если оценка вышла за окно, окно расширяется и корень перебирается заново.
+ */
+public class PvsMinimaxBot extends AlphaBetaMinimaxBot {
+  /** Максимальная оценка игрового состояния. */
+  private static final double MAX_COST = GameStateEvaluator.MAX_COST;
+
+  /** Минимальная оценка игрового состояния. */
+  private static final double MIN_COST = GameStateEvaluator.MIN_COST;
+
+  /** Ширина нулевого окна. */
+  private static final double NULL_WINDOW = 1e-6;
+
+  /** Начальная полуширина окна стремления по умолчанию. */
+  private static final double ASPIRATION_WINDOW = 25;
+
+  /** Во сколько раз расширяется окно стремления после выхода оценки за него. */
+  private static final double ASPIRATION_GROWTH = 4;
+
+  /** Начальная полуширина окна стремления. */
+  private final double aspirationWindow;
+
+  /**
+   * Конструктор.
+   *
+   * @param maxDepth Максимальная глубина дерева.
+   */
+  public PvsMinimaxBot(int maxDepth) {
+    this(maxDepth, ASPIRATION_WINDOW);
+  }
+
+  /**
+   * Конструктор с заданной начальной полушириной окна стремления.
+   *
+   * @param maxDepth Максимальная глубина дерева.
+   * @param aspirationWindow Начальная полуширина окна стремления.
+   */
+  PvsMinimaxBot(int maxDepth, double aspirationWindow) {
+    super(maxDepth);
+    this.aspirationWindow = aspirationWindow;
+  }
+
+  /**
+   * Метод, перебирающий дерево от корня с окном стремления вокруг оценки предыдущей итерации. Без
+   * предыдущей итерации окно полное.
+   *
+   * @param gameState Игровое состояние, не изменяется.
+   * @param depth Глубина итерации.
+   * @return ивент и его оценку.
+   */
+  @Override
+  protected EventScore searchRoot(GameState gameState, int depth) {
+    if (Double.isNaN(previousRootScore)) {
+      return super.searchRoot(gameState, depth);
+    }
+    double delta = aspirationWindow;
+    while (true) {
+      double alpha = Math.max(MIN_COST, previousRootScore - delta);
+      double beta = Math.min(MAX_COST, previousRootScore + delta);
+      EventScore result = minimax(gameState.getCopy(), depth, alpha, beta, true);
+      boolean failLow = result.getScore() <= alpha && alpha > MIN_COST;
+      boolean failHigh = result.getScore() >= beta && beta < MAX_COST;
+      if (!failLow && !failHigh) {
+        return result;
+      }
+      treeAnalyzer.incrementAspirationResearches();
+      delta *= ASPIRATION_GROWTH;
+    }
+  }
+
+  /**
+   * Метод, перебирающий поддерево исхода хода. Первый потомок перебирается с окном родителя.
+   * Остальные сначала проверяются нулевым окном: родитель умножает оценку исхода на его
+   * вероятность, поэтому окно ставится у границы родителя, деленной на вероятность. Если потомок
+   * улучшает границу, но не дает отсечения, он перебирается повторно с окном родителя.
+   *
+   * @param stateChance Игровое состояние исхода и его вероятность.
+   * @param depth Оставшаяся глубина.
+   * @param alpha Значение альфа.
+   * @param beta Значение бета.
+   * @param maximizing Флаг, обозначающий максимизирующего игрока.
+   * @param firstChild Флаг, обозначающий первого перебираемого потомка вершины.
+   * @return ивент и его оценку.
+   */
+  @Override
+  protected EventScore searchChild(
+      StateChance stateChance,
+      int depth,
+      double alpha,
+      double beta,
+      boolean maximizing,
+      boolean firstChild) {
+    GameState gameState = stateChance.gameState();
+    double chance = stateChance.chance();
+    if (firstChild || beta - alpha <= NULL_WINDOW) {
+      return minimax(gameState, depth, alpha, beta, maximizing);
+    }
+    // Перебор меняет состояние, если у игрока нет ходов, поэтому проверка идет на копии
+    if (maximizing) {
+      double bound = alpha / chance;
+      EventScore probe = minimax(gameState.getCopy(), depth, bound, bound + NULL_WINDOW, true);
+      if (probe.getScore() > bound && probe.getScore() * chance < beta) {
+        return minimax(gameState, depth, alpha, beta, true);
+      }
+      return probe;
+    }
+    double bound = beta / chance;
+    EventScore probe = minimax(gameState.getCopy(), depth, bound - NULL_WINDOW, bound, false);
+    if (probe.getScore() < bound && probe.getScore() * chance > alpha) {
+      return minimax(gameState, depth, alpha, beta, false);
+    }
+    return probe;
+  }
+}
@@ -3,7 +3,7 @@ package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
 import io.deeplay.camp.botfarm.bots.matthew_bots.TreeAnalyzer;
 import io.deeplay.camp.game.events.MakeMoveEvent;
 import io.deeplay.camp.game.mechanics.GameState;
-import java.util.List;
+import io.deeplay.camp.game.mechanics.PackedGameState;
 
 public class RandomMovementBot extends MovementBot {
 
@@ -13,9 +13,10 @@ public class RandomMovementBot extends MovementBot {
 
   @Override
   public MakeMoveEvent generateMakeMoveEvent(GameState gameState) {
-    List<MakeMoveEvent> makeMoveEvents = gameState.getPossibleMoves();
-    if (!makeMoveEvents.isEmpty()) {
-      return makeMoveEvents.get((int) (Math.random() * makeMoveEvents.size()));
+    int[] moves = new int[PackedGameState.MAX_MOVES];
+    int count = gameState.generateMoves(moves);
+    if (count != 0) {
+      return gameState.toMakeMoveEvent(moves[(int) (Math.random() * count)]);
     } else {
       return null;
     }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.deeplay.camp.game.entities.Board;
 import io.deeplay.camp.game.entities.Unit;
 import io.deeplay.camp.game.events.PlaceUnitEvent;
+import io.deeplay.camp.game.mechanics.BoardSymmetry;
 import io.deeplay.camp.game.mechanics.GameState;
 import io.deeplay.camp.game.mechanics.PlayerType;
 import java.io.BufferedReader;
@@ -20,8 +21,11 @@ public class CachePlacementBot extends PlacementBot {
   /** Список лучших расстановок для первого игрока. */
   private final List<Unit[][]> bestFirstPlayerPlacements;
 
-  /** Мапа, где ключ - расстановка первого игрока, а значение - расстановка второго игрока. */
-  private final Map<Unit[][], Unit[][]> counterPlacements;
+  /**
+   * Мапа, где ключ - каноническая расстановка первого игрока (см. {@link #placementKey}), а значение
+   * - расстановка второго игрока для неё.
+   */
+  private final Map<String, Unit[][]> counterPlacements;
 
   /**
    * Стэк с уже сгенерированной расстановкой. Необходим, так как взаимодействие с игрой происходит
@@ -41,19 +45,22 @@ public class CachePlacementBot extends PlacementBot {
    *
    * @return мапу с расстановками и контррасстановками.
    */
-  private Map<Unit[][], Unit[][]> loadCounterPlacements() {
-    Map<Unit[][], Unit[][]> counterPlacements = new HashMap<>();
+  private Map<String, Unit[][]> loadCounterPlacements() {
+    Map<String, Unit[][]> counterPlacements = new HashMap<>();
     ObjectMapper objectMapper = new ObjectMapper();
     try (BufferedReader br =
         new BufferedReader(
             new FileReader("botfarm/src/main/resources/matthews_bots/counter-placements.csv"))) {
       String line;
       while ((line = br.readLine()) != null) {
-        String[] parts = line.split(",");
+        // Запятые есть и внутри json, поэтому делим строку между двумя массивами
+        String[] parts = line.split("(?<=]]),(?=\\[\\[)");
         if (parts.length == 2) {
           Unit[][] placement = objectMapper.readValue(parts[0], Unit[][].class);
           Unit[][] counterPlacement = objectMapper.readValue(parts[1], Unit[][].class);
-          counterPlacements.put(placement, counterPlacement);
+          BoardSymmetry.Transform transform = BoardSymmetry.canonicalTransform(placement);
+          counterPlacements.putIfAbsent(
+              placementKey(transform.apply(placement)), transform.apply(counterPlacement));
         }
       }
     } catch (IOException e) {
@@ -99,17 +106,22 @@ public class CachePlacementBot extends PlacementBot {
             bestFirstPlayerPlacements.get(new Random().nextInt(bestFirstPlayerPlacements.size()));
         placeUnitEvents = generateEventsFromPlacements(placement, PlayerType.FIRST_PLAYER);
       } else {
-        Unit[][] enemyPlacement = new Unit[Board.COLUMNS][Board.ROWS];
+        Unit[][] enemyPlacement = new Unit[Board.COLUMNS][Board.ROWS / 2];
         Board board = gameStateCopy.getBoard();
         for (int col = 0; col < Board.COLUMNS; col++) {
           for (int row = 0; row < Board.ROWS / 2; row++) {
             enemyPlacement[col][row] = board.getUnit(col, row);
           }
         }
-        if (counterPlacements.containsKey(enemyPlacement)) {
+        // Кэш хранит одну ориентацию, контррасстановка отражается так же, как расстановка врага
+        BoardSymmetry.Transform transform = BoardSymmetry.canonicalTransform(enemyPlacement);
+        Unit[][] counterPlacement =
+            counterPlacements.get(placementKey(transform.apply(enemyPlacement)));
+        if (counterPlacement != null) {
           placeUnitEvents =
               generateEventsFromPlacements(
-                  counterPlacements.get(enemyPlacement), PlayerType.FIRST_PLAYER);
+                  invertPlacement(transform.inverse().apply(counterPlacement)),
+                  PlayerType.SECOND_PLAYER);
         } else {
           int randomInd = new Random().nextInt(bestFirstPlayerPlacements.size());
           System.out.println(randomInd);
@@ -121,6 +133,27 @@ public class CachePlacementBot extends PlacementBot {
     return placeUnitEvents.pop();
   }
 
+  /**
+   * Метод возвращает ключ расстановки: типы юнитов и генерала по клеткам. Хп и флаги при расстановке
+   * всегда одинаковы, поэтому в ключ не входят.
+   *
+   * @param placement расстановка.
+   * @return ключ, или null если расстановка неполная.
+   */
+  private static String placementKey(Unit[][] placement) {
+    StringBuilder key = new StringBuilder();
+    for (int col = 0; col < Board.COLUMNS; col++) {
+      for (int row = 0; row < Board.ROWS / 2; row++) {
+        Unit unit = placement[col][row];
+        if (unit == null) {
+          return null;
+        }
+        key.append(unit.getUnitType().index()).append(unit.isGeneral() ? '*' : ' ');
+      }
+    }
+    return key.toString();
+  }
+
   /**
    * Метод, инвертирующий расстановку первого игрока в расстановку для второго игрока.
    *
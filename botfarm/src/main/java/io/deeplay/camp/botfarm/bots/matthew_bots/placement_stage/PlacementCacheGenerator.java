@@ -2,14 +2,14 @@ package io.deeplay.camp.botfarm.bots.matthew_bots.placement_stage;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.deeplay.camp.botfarm.bots.RandomBot;
 import io.deeplay.camp.game.entities.Board;
 import io.deeplay.camp.game.entities.Knight;
 import io.deeplay.camp.game.entities.Unit;
 import io.deeplay.camp.game.entities.UnitType;
-import io.deeplay.camp.game.events.MakeMoveEvent;
 import io.deeplay.camp.game.events.PlaceUnitEvent;
 import io.deeplay.camp.game.exceptions.GameException;
+import io.deeplay.camp.game.mechanics.BatchSimulator;
+import io.deeplay.camp.game.mechanics.BoardSymmetry;
 import io.deeplay.camp.game.mechanics.GameStage;
 import io.deeplay.camp.game.mechanics.GameState;
 import io.deeplay.camp.game.mechanics.PlayerType;
@@ -132,6 +132,7 @@ public class PlacementCacheGenerator {
 
   /**
    * Рекурсивный метод генерации всех вохможных расстановок, отталкивающийся от игрового состояния.
+   * Из двух зеркальных расстановок сохраняется только каноническая (см. {@link BoardSymmetry}).
    *
    * @param gameState игровое состояние.
    */
@@ -141,7 +142,8 @@ public class PlacementCacheGenerator {
       if (possiblePlaces.isEmpty()) {
         Unit[][] placement = extractFirstPlayerPlacement(gameState.getBoard());
         String placementJson = objectMapper.writeValueAsString(placement);
-        if (placement[2][1].getUnitType() == UnitType.KNIGHT) {
+        if (placement[2][1].getUnitType() == UnitType.KNIGHT
+            && BoardSymmetry.canonicalTransform(placement) == BoardSymmetry.Transform.IDENTITY) {
           possiblePlacements.add(placementJson);
         }
         return;
@@ -222,7 +224,8 @@ public class PlacementCacheGenerator {
   }
 
   /**
-   * Метод генерации контррасстановки для конкретной расстановки первого игрока
+   * Метод генерации контррасстановки для конкретной расстановки первого игрока. В файле лежат только
+   * канонические расстановки, поэтому каждая проверяется в обеих ориентациях.
    *
    * @param firstPlayerPlacement расстановка первого игрока.
    * @return строку с контррасстановкой.
@@ -234,12 +237,20 @@ public class PlacementCacheGenerator {
       double bestPercent = 0;
       String bestCounterPlacement = "";
       while ((line = br.readLine()) != null) {
-        Unit[][] counterPlacement = objectMapper.readValue(line, Unit[][].class);
-        setPlayerTypeForPlacement(counterPlacement, PlayerType.SECOND_PLAYER);
-        double wins = simulateBattles(firstPlayerPlacement, counterPlacement);
-        if (wins >= bestPercent) {
-          bestPercent = wins;
-          bestCounterPlacement = objectMapper.writeValueAsString(counterPlacement);
+        Unit[][] canonicalPlacement = objectMapper.readValue(line, Unit[][].class);
+        setPlayerTypeForPlacement(canonicalPlacement, PlayerType.SECOND_PLAYER);
+        List<Unit[][]> orientations = new ArrayList<>();
+        orientations.add(canonicalPlacement);
+        Unit[][] mirroredPlacement = BoardSymmetry.Transform.MIRROR.apply(canonicalPlacement);
+        if (BoardSymmetry.canonicalTransform(mirroredPlacement) == BoardSymmetry.Transform.MIRROR) {
+          orientations.add(mirroredPlacement);
+        }
+        for (Unit[][] counterPlacement : orientations) {
+          double wins = simulateBattles(firstPlayerPlacement, counterPlacement);
+          if (wins >= bestPercent) {
+            bestPercent = wins;
+            bestCounterPlacement = objectMapper.writeValueAsString(counterPlacement);
+          }
         }
       }
       return bestCounterPlacement;
@@ -270,34 +281,28 @@ public class PlacementCacheGenerator {
   private double simulateBattles(Unit[][] firstPlayerPlacement, Unit[][] secondPlayerPlacement) {
     Board board = createBoard(firstPlayerPlacement, secondPlayerPlacement);
     GameState gameState = createGameState(board);
-    RandomBot randomBot = new RandomBot();
 
     int numGames = 5000;
     int numThreads = Runtime.getRuntime().availableProcessors();
     ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+    SplittableRandom random = new SplittableRandom();
 
     try {
-      Future<Integer>[] results = new Future[numGames];
-      for (int i = 0; i < numGames; i++) {
-        results[i] =
-            executorService.submit(new BattleSimulationTask(gameState.getCopy(), randomBot));
+      List<Future<BatchSimulator.Result>> results = new ArrayList<>();
+      for (int i = 0; i < numThreads; i++) {
+        int games = numGames / numThreads + (i < numGames % numThreads ? 1 : 0);
+        BatchSimulator simulator = new BatchSimulator(gameState, games, random.split());
+        results.add(executorService.submit(() -> simulator.run(BatchSimulator.RANDOM)));
       }
 
-      int firstWins = 0;
       int secondWins = 0;
-      int draw = 0;
-      for (Future<Integer> result : results) {
-        int outcome = result.get();
-        if (outcome == 1) {
-          firstWins++;
-        } else if (outcome == 2) {
-          secondWins++;
-        } else {
-          draw++;
-        }
+      int games = 0;
+      for (Future<BatchSimulator.Result> result : results) {
+        secondWins += result.get().secondWins();
+        games += result.get().games();
       }
 
-      return (double) secondWins / (double) (firstWins + secondWins + draw);
+      return (double) secondWins / (double) games;
     } catch (ExecutionException | InterruptedException e) {
       logger.error("При симуляции рандомных игр возникли проблемы с многопоточностью.");
       return 0;
@@ -357,40 +362,4 @@ public class PlacementCacheGenerator {
       logger.error("Ошибка при создании csv файла расстановок!");
     }
   }
-
-  /** Класс таски для рандомной игры. */
-  private static class BattleSimulationTask implements Callable<Integer> {
-    private final GameState gameState;
-    private final RandomBot randomBot;
-
-    public BattleSimulationTask(GameState gameState, RandomBot randomBot) {
-      this.gameState = gameState;
-      this.randomBot = randomBot;
-    }
-
-    /**
-     * Метод, запускающий рандомную игру.
-     *
-     * @return 1,2 - выигрыш первого/второго игрока. 0 - ничья.
-     */
-    @Override
-    public Integer call() {
-      try {
-        while (gameState.getGameStage() != GameStage.ENDED) {
-          MakeMoveEvent moveEvent = randomBot.generateMakeMoveEvent(gameState);
-          if (moveEvent == null) {
-            gameState.changeCurrentPlayer();
-            continue;
-          }
-          gameState.makeMove(moveEvent);
-        }
-        return gameState.getWinner() == PlayerType.FIRST_PLAYER
-            ? 1
-            : gameState.getWinner() == PlayerType.SECOND_PLAYER ? 2 : 0;
-      } catch (GameException e) {
-        logger.error("В симуляции рандомной игры возник некорректный ход!");
-        return 0;
-      }
-    }
-  }
 }
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class BotsTest {
 
@@ -36,6 +37,72 @@ class BotsTest {
     assertEquals(makeMoveEvent1, makeMoveEvent2);
   }
 
+  @Test
+  public void abMinimaxVsPvsMinimaxTest() {
+    GameState gameState = new GameState();
+    System.out.println("AB Minimax:");
+    gameState.setDefaultPlacementWithoutMage();
+    MatthewsBot minimaxBot = new MatthewsBot(new RandomPlacementBot(), new AlphaBetaMinimaxBot(5));
+    MakeMoveEvent makeMoveEvent1 = minimaxBot.generateMakeMoveEvent(gameState);
+    minimaxBot.treeAnalyzer.printStatistics();
+    int nodesCount1 = minimaxBot.treeAnalyzer.getNodesCount().get();
+
+    gameState = new GameState();
+    System.out.println("PVS Minimax:");
+    gameState.setDefaultPlacementWithoutMage();
+    MatthewsBot minimaxBot1 = new MatthewsBot(new RandomPlacementBot(), new PvsMinimaxBot(5));
+    MakeMoveEvent makeMoveEvent2 = minimaxBot1.generateMakeMoveEvent(gameState);
+    minimaxBot1.treeAnalyzer.printStatistics();
+    int nodesCount2 = minimaxBot1.treeAnalyzer.getNodesCount().get();
+
+    assertTrue(nodesCount1 >= nodesCount2);
+    assertEquals(makeMoveEvent1, makeMoveEvent2);
+  }
+
+  @Test
+  public void expectimaxVsPrunedExpectimaxTest() {
+    // С магом исходы ходов различаются сильнее, и отсечения в узлах случая заметнее
+    for (int depth = 5; depth <= 7; depth++) {
+      GameState gameState = new GameState();
+      System.out.println("Expectimax, глубина " + depth + ":");
+      gameState.setDefaultPlacement();
+      MatthewsBot expectimaxBot =
+          new MatthewsBot(new RandomPlacementBot(), new ExpectimaxBot(depth, false));
+      MakeMoveEvent makeMoveEvent1 = expectimaxBot.generateMakeMoveEvent(gameState);
+      expectimaxBot.treeAnalyzer.printStatistics();
+      int nodesCount1 = expectimaxBot.treeAnalyzer.getNodesCount().get();
+
+      gameState = new GameState();
+      System.out.println("Star1/Star2 Expectimax, глубина " + depth + ":");
+      gameState.setDefaultPlacement();
+      MatthewsBot expectimaxBot1 =
+          new MatthewsBot(new RandomPlacementBot(), new ExpectimaxBot(depth, true));
+      MakeMoveEvent makeMoveEvent2 = expectimaxBot1.generateMakeMoveEvent(gameState);
+      expectimaxBot1.treeAnalyzer.printStatistics();
+      int nodesCount2 = expectimaxBot1.treeAnalyzer.getNodesCount().get();
+
+      assertTrue(nodesCount2 < nodesCount1);
+      assertEquals(makeMoveEvent1, makeMoveEvent2);
+    }
+  }
+
+  @Test
+  public void prunedMultiThreadExpectimaxVsPrunedExpectimaxTest() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacementWithoutMage();
+    MatthewsBot expectimaxBot =
+        new MatthewsBot(new RandomPlacementBot(), new ExpectimaxBot(5, true));
+    MakeMoveEvent makeMoveEvent1 = expectimaxBot.generateMakeMoveEvent(gameState);
+
+    gameState = new GameState();
+    gameState.setDefaultPlacementWithoutMage();
+    MatthewsBot expectimaxBot1 =
+        new MatthewsBot(new RandomPlacementBot(), new MultiThreadExpectimaxBot(5, true));
+    MakeMoveEvent makeMoveEvent2 = expectimaxBot1.generateMakeMoveEvent(gameState);
+
+    assertEquals(makeMoveEvent1, makeMoveEvent2);
+  }
+
   @Test
   public void multiThreadMinimaxVsMinimaxTest() {
     GameState gameState = new GameState();
@@ -58,8 +125,10 @@ class BotsTest {
     int nodesCount2 = minimaxBot1.treeAnalyzer.getNodesCount().get();
 
     assertTrue(nodesCount1 == nodesCount2);
-    assertTrue(time1 > time2);
     assertEquals(makeMoveEvent1, makeMoveEvent2);
+    // На одном ядре потоки не ускоряют перебор
+    assumeTrue(Runtime.getRuntime().availableProcessors() > 1);
+    assertTrue(time1 > time2);
   }
 
     @Test
@@ -67,7 +136,8 @@ class BotsTest {
         GameState gameState = new GameState();
         System.out.println("DefaultMinimax:");
         gameState.setDefaultPlacementWithoutMage();
-    MatthewsBot minimaxBot = new MatthewsBot(new RandomPlacementBot(), new ExpectimaxBot(5));
+    MatthewsBot minimaxBot =
+        new MatthewsBot(new RandomPlacementBot(), new ExpectimaxBot(5, false, false));
         MakeMoveEvent makeMoveEvent1 = minimaxBot.generateMakeMoveEvent(gameState);
         minimaxBot.treeAnalyzer.printStatistics();
         long time1 = minimaxBot.treeAnalyzer.getMoveTime();
@@ -77,14 +147,18 @@ class BotsTest {
         System.out.println("MultiThreadMinimax:");
         gameState.setDefaultPlacementWithoutMage();
         MatthewsBot minimaxBot1 =
-                new MatthewsBot(new RandomPlacementBot(), new MultiThreadExpectimaxBot(5));
+                new MatthewsBot(
+                        new RandomPlacementBot(), new MultiThreadExpectimaxBot(5, false, false));
         MakeMoveEvent makeMoveEvent2 = minimaxBot1.generateMakeMoveEvent(gameState);
         minimaxBot1.treeAnalyzer.printStatistics();
         long time2 = minimaxBot1.treeAnalyzer.getMoveTime();
         int nodesCount2 = minimaxBot1.treeAnalyzer.getNodesCount().get();
 
-        assertTrue(nodesCount1 == nodesCount2);
-        assertTrue(time1 > time2);
+        // Без таблицы транспозиций дерево не зависит от порядка работы потоков
+        assertEquals(nodesCount1, nodesCount2);
         assertEquals(makeMoveEvent1, makeMoveEvent2);
+        // На одном ядре потоки не ускоряют перебор
+        assumeTrue(Runtime.getRuntime().availableProcessors() > 1);
+        assertTrue(time1 > time2);
     }
 }
@@ -0,0 +1,82 @@
+package io.deeplay.camp.botfarm.bots.matthew_bots;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class TranspositionTableTest {
+
+  @Test
+  void storedEntryIsFound() {
+    TranspositionTable table = new TranspositionTable(16);
+    table.store(42L, 3, TranspositionTable.Bound.LOWER, -12.5, 0x5B);
+
+    TranspositionTable.Entry entry = table.probe(42L);
+    assertNotNull(entry);
+    assertEquals(3, entry.depth());
+    assertEquals(TranspositionTable.Bound.LOWER, entry.bound());
+    assertEquals(-12.5, entry.score());
+    assertEquals(0x5B, entry.move());
+    assertNull(table.probe(43L));
+  }
+
+  @Test
+  void missingMoveIsKept() {
+    TranspositionTable table = new TranspositionTable(16);
+    table.store(7L, 1, TranspositionTable.Bound.EXACT, 0, TranspositionTable.NO_MOVE);
+
+    assertEquals(TranspositionTable.NO_MOVE, table.probe(7L).move());
+  }
+
+  @Test
+  void deeperEntryIsNotReplacedInSameSearch() {
+    TranspositionTable table = new TranspositionTable(1);
+    table.store(1L, 5, TranspositionTable.Bound.EXACT, 1, TranspositionTable.NO_MOVE);
+    table.store(2L, 2, TranspositionTable.Bound.EXACT, 2, TranspositionTable.NO_MOVE);
+    table.store(3L, 1, TranspositionTable.Bound.EXACT, 3, TranspositionTable.NO_MOVE);
+
+    assertNotNull(table.probe(1L));
+    assertNull(table.probe(2L));
+    assertEquals(3, table.probe(3L).score());
+  }
+
+  @Test
+  void shallowerBoundDoesNotReplaceSamePosition() {
+    TranspositionTable table = new TranspositionTable(1);
+    table.store(1L, 5, TranspositionTable.Bound.LOWER, 1, TranspositionTable.NO_MOVE);
+    table.store(1L, 2, TranspositionTable.Bound.UPPER, 2, TranspositionTable.NO_MOVE);
+
+    assertEquals(5, table.probe(1L).depth());
+    assertEquals(TranspositionTable.Bound.LOWER, table.probe(1L).bound());
+  }
+
+  @Test
+  void exactScoreReplacesBoundOfSamePosition() {
+    TranspositionTable table = new TranspositionTable(1);
+    table.store(1L, 5, TranspositionTable.Bound.LOWER, 1, TranspositionTable.NO_MOVE);
+    table.store(1L, 2, TranspositionTable.Bound.EXACT, 2, TranspositionTable.NO_MOVE);
+
+    assertEquals(TranspositionTable.Bound.EXACT, table.probe(1L).bound());
+    assertEquals(2, table.probe(1L).score());
+  }
+
+  @Test
+  void entriesOfOldSearchAreReplaced() {
+    TranspositionTable table = new TranspositionTable(1);
+    table.store(1L, 5, TranspositionTable.Bound.EXACT, 1, TranspositionTable.NO_MOVE);
+    table.newSearch();
+    table.store(2L, 1, TranspositionTable.Bound.EXACT, 2, TranspositionTable.NO_MOVE);
+
+    assertNull(table.probe(1L));
+    assertEquals(2, table.probe(2L).score());
+  }
+
+  @Test
+  void clearRemovesEntries() {
+    TranspositionTable table = new TranspositionTable(16);
+    table.store(42L, 3, TranspositionTable.Bound.EXACT, 1, TranspositionTable.NO_MOVE);
+    table.clear();
+
+    assertNull(table.probe(42L));
+  }
+}
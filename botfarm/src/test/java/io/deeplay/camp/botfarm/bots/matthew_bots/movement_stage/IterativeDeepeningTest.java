@@ -0,0 +1,110 @@
+package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.botfarm.bots.matthew_bots.MatthewsBot;
+import io.deeplay.camp.botfarm.bots.matthew_bots.placement_stage.RandomPlacementBot;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.mechanics.GameState;
+import org.junit.jupiter.api.Test;
+
+class IterativeDeepeningTest {
+  private static final long TIME_LIMIT = 300;
+
+  /** Глубина, до которой PVS и альфа-бета перебирают без потерь от отсечений. */
+  private static final int COMPARED_DEPTH = 5;
+
+  @Test
+  void alphaBetaMoveFitsTimeLimit() {
+    assertMoveFitsTimeLimit(new AlphaBetaMinimaxBot(0));
+  }
+
+  @Test
+  void pvsMoveFitsTimeLimit() {
+    assertMoveFitsTimeLimit(new PvsMinimaxBot(0));
+  }
+
+  @Test
+  void expectimaxMoveFitsTimeLimit() {
+    assertMoveFitsTimeLimit(new ExpectimaxBot(0));
+  }
+
+  @Test
+  void multiThreadExpectimaxMoveFitsTimeLimit() {
+    assertMoveFitsTimeLimit(new MultiThreadExpectimaxBot(0));
+  }
+
+  @Test
+  void minimaxMoveFitsTimeLimit() {
+    assertMoveFitsTimeLimit(new MinimaxBot(0));
+  }
+
+  @Test
+  void multiThreadMinimaxMoveFitsTimeLimit() {
+    assertMoveFitsTimeLimit(new MultiThreadMinimaxBot(0));
+  }
+
+  @Test
+  void monteCarloMinimaxMoveFitsTimeLimit() {
+    assertMoveFitsTimeLimit(new MonteCarloMinimaxBot(0));
+  }
+
+  @Test
+  void withoutTimeLimitSearchesToMaxDepth() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacementWithoutMage();
+    AlphaBetaMinimaxBot bot = new AlphaBetaMinimaxBot(3);
+
+    assertNotNull(bot.generateMakeMoveEvent(gameState));
+    assertEquals(3, bot.getCompletedDepth());
+  }
+
+  @Test
+  void pvsAspirationResearchFindsAlphaBetaMove() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacementWithoutMage();
+    // Узкое окно стремления: оценка следующей итерации выходит за него, корень перебирается заново.
+    // Бюджет с запасом, углубление останавливается на maxDepth
+    PvsMinimaxBot pvsBot = new PvsMinimaxBot(COMPARED_DEPTH, 1e-3);
+    pvsBot.setMoveTimeLimit(60_000);
+    AlphaBetaMinimaxBot alphaBetaBot = new AlphaBetaMinimaxBot(COMPARED_DEPTH);
+
+    MakeMoveEvent pvsMove = pvsBot.generateMakeMoveEvent(gameState);
+
+    assertEquals(COMPARED_DEPTH, pvsBot.getCompletedDepth());
+    assertTrue(pvsBot.getTreeAnalyzer().getAspirationResearches().get() > 0);
+    assertEquals(alphaBetaBot.generateMakeMoveEvent(gameState), pvsMove);
+    assertEquals(alphaBetaBot.previousRootScore, pvsBot.previousRootScore, 1e-9);
+  }
+
+  @Test
+  void timeLimitedSearchStopsAtMaxDepth() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacementWithoutMage();
+    AlphaBetaMinimaxBot bot = new AlphaBetaMinimaxBot(2);
+    bot.setMoveTimeLimit(60_000);
+
+    assertNotNull(bot.generateMakeMoveEvent(gameState));
+    assertEquals(2, bot.getCompletedDepth());
+  }
+
+  @Test
+  void matthewsBotPassesTimeLimitToMovementBot() {
+    AlphaBetaMinimaxBot movementBot = new AlphaBetaMinimaxBot(0);
+    new MatthewsBot(new RandomPlacementBot(), movementBot, TIME_LIMIT);
+
+    assertEquals(TIME_LIMIT, movementBot.getMoveTimeLimit());
+  }
+
+  private void assertMoveFitsTimeLimit(MovementBot bot) {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacementWithoutMage();
+    bot.setMoveTimeLimit(TIME_LIMIT);
+
+    MakeMoveEvent move = bot.generateMakeMoveEvent(gameState);
+
+    assertNotNull(move);
+    assertTrue(gameState.getPossibleMoves().contains(move));
+    assertTrue(bot.getCompletedDepth() >= 1);
+  }
+}
@@ -0,0 +1,62 @@
+package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.botfarm.bots.matthew_bots.TranspositionTable;
+import io.deeplay.camp.game.mechanics.GameState;
+import io.deeplay.camp.game.mechanics.PackedGameState;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class MoveOrdererTest {
+  private static final double GENERAL_BONUS = 2;
+
+  @Test
+  void movesAreOrderedByStaticScore() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacementWithoutMage();
+    MoveOrderer moveOrderer = new MoveOrderer(GENERAL_BONUS);
+    int[] moves = new int[PackedGameState.MAX_MOVES];
+    int count = gameState.generateMoves(moves);
+    int[] generated = Arrays.copyOf(moves, count);
+
+    moveOrderer.order(moves, count, gameState, TranspositionTable.NO_MOVE, 0);
+
+    int[] ordered = Arrays.copyOf(moves, count);
+    Arrays.sort(generated);
+    Arrays.sort(ordered);
+    assertArrayEquals(generated, ordered);
+    for (int i = 1; i < count; i++) {
+      assertTrue(
+          moveOrderer.staticScore(moves[i - 1], gameState)
+              >= moveOrderer.staticScore(moves[i], gameState));
+    }
+  }
+
+  @Test
+  void hashMoveGoesFirstThenKillers() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacementWithoutMage();
+    MoveOrderer moveOrderer = new MoveOrderer(GENERAL_BONUS);
+    int[] moves = new int[PackedGameState.MAX_MOVES];
+    int count = gameState.generateMoves(moves);
+    int hashMove = moves[count - 1];
+    int killerMove = moves[count - 2];
+    moveOrderer.recordCutoff(killerMove, 1, 3);
+
+    moveOrderer.order(moves, count, gameState, hashMove, 3);
+    assertEquals(hashMove, moves[0]);
+    assertEquals(killerMove, moves[1]);
+
+    // Killer-ходы действуют только на своем уровне и сбрасываются новым поиском
+    moveOrderer.newSearch();
+    moveOrderer.order(moves, count, gameState, TranspositionTable.NO_MOVE, 3);
+    assertEquals(
+        moveOrderer.staticScore(moves[0], gameState),
+        Arrays.stream(moves, 0, count)
+            .mapToDouble(move -> moveOrderer.staticScore(move, gameState))
+            .max()
+            .orElseThrow(),
+        0.5);
+  }
+}
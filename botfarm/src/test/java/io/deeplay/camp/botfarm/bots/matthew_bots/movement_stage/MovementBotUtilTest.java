@@ -1,91 +1,149 @@
-package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
-
-import io.deeplay.camp.game.entities.Archer;
-import io.deeplay.camp.game.entities.Healer;
-import io.deeplay.camp.game.entities.Knight;
-import io.deeplay.camp.game.entities.Position;
-import io.deeplay.camp.game.events.MakeMoveEvent;
-import io.deeplay.camp.game.mechanics.GameState;
-import io.deeplay.camp.game.mechanics.PlayerType;
-import org.junit.jupiter.api.Test;
-
-import java.util.ArrayList;
-import java.util.List;
-
-import static org.junit.jupiter.api.Assertions.*;
-
-class MovementBotUtilTest {
-
-
-    @Test
-    void collectPossibleStatesFromComplexMoves() {
-        GameState gameState = new GameState();
-        gameState.setDefaultPlacementWithoutMage();
-
-        long startTime = System.currentTimeMillis();
-        List<List<MakeMoveEvent>> complexMoves = gameState.getCopy().getPossibleComplexMoves();
-        long endTime = System.currentTimeMillis();
-        long durationGetPossibleComplexMoves = (endTime - startTime);
-
-        startTime = System.currentTimeMillis();
-        List<State> possibleStates = MovementBotUtil.collectPossibleStatesFromComplexMoves(gameState.getCopy(), complexMoves);
-        endTime = System.currentTimeMillis();
-        long durationCollectPossibleStatesComplex = (endTime - startTime);
-
-        List<State> possibleStates1 = MovementBotUtil.collectPossibleStatesFromComplexMoves(gameState.getCopy(), complexMoves);
-        assertEquals(possibleStates1.size(), possibleStates.size());
-        System.out.println("Количество состояний, к которым могут привести комплексные ходы: " + possibleStates.size());
-        System.out.println("Время поиска всех комбинаций ходов: " + durationGetPossibleComplexMoves + " ms");
-        System.out.println("Время поиска возможных состояний: " + durationCollectPossibleStatesComplex + " ms");
-    }
-    @Test
-    void removeSimilarMovesTest() {
-        List<MakeMoveEvent> similarMoves = new ArrayList<>();
-        similarMoves.add(
-                new MakeMoveEvent(
-                        new Position(0, 0), new Position(1, 1), new Knight(PlayerType.FIRST_PLAYER)));
-        similarMoves.add(
-                new MakeMoveEvent(
-                        new Position(0, 1), new Position(1, 1), new Knight(PlayerType.FIRST_PLAYER)));
-        MovementBotUtil.removeUnnecessaryMoves(similarMoves);
-        assertEquals(1, similarMoves.size());
-    }
-
-    @Test
-    void removeNotSimilarMovesTest() {
-        List<MakeMoveEvent> similarMoves = new ArrayList<>();
-        similarMoves.add(
-                new MakeMoveEvent(
-                        new Position(0, 0), new Position(2, 1), new Knight(PlayerType.FIRST_PLAYER)));
-        similarMoves.add(
-                new MakeMoveEvent(
-                        new Position(0, 1), new Position(1, 1), new Knight(PlayerType.FIRST_PLAYER)));
-        MovementBotUtil.removeUnnecessaryMoves(similarMoves);
-        assertEquals(2, similarMoves.size());
-    }
-
-    @Test
-    void removeUnnecessaryMovesTest() {
-        List<MakeMoveEvent> similarMoves = new ArrayList<>();
-        similarMoves.add(
-                new MakeMoveEvent(
-                        new Position(0, 0), new Position(2, 1), new Knight(PlayerType.FIRST_PLAYER)));
-        similarMoves.add(
-                new MakeMoveEvent(
-                        new Position(0, 1), new Position(2, 1), new Knight(PlayerType.FIRST_PLAYER)));
-        similarMoves.add(
-                new MakeMoveEvent(
-                        new Position(0, 0), new Position(2, 1), new Archer(PlayerType.FIRST_PLAYER)));
-        similarMoves.add(
-                new MakeMoveEvent(
-                        new Position(0, 1), new Position(2, 1), new Archer(PlayerType.FIRST_PLAYER)));
-        similarMoves.add(
-                new MakeMoveEvent(
-                        new Position(0, 0), new Position(2, 1), new Healer(PlayerType.FIRST_PLAYER)));
-        similarMoves.add(
-                new MakeMoveEvent(
-                        new Position(0, 1), new Position(2, 1), new Healer(PlayerType.FIRST_PLAYER)));
-        MovementBotUtil.removeUnnecessaryMoves(similarMoves);
-        assertEquals(3, similarMoves.size());
-    }
+package io.deeplay.camp.botfarm.bots.matthew_bots.movement_stage;
+
+import io.deeplay.camp.botfarm.bots.matthew_bots.TranspositionTable;
+import io.deeplay.camp.game.entities.Archer;
+import io.deeplay.camp.game.entities.Healer;
+import io.deeplay.camp.game.entities.Knight;
+import io.deeplay.camp.game.entities.Position;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.mechanics.BoardSymmetry;
+import io.deeplay.camp.game.mechanics.GameState;
+import io.deeplay.camp.game.mechanics.PackedGameState;
+import io.deeplay.camp.game.mechanics.PlayerType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovementBotUtilTest {
+
+
+    @Test
+    void collectPossibleStatesFromComplexMoves() {
+        GameState gameState = new GameState();
+        gameState.setDefaultPlacementWithoutMage();
+
+        long startTime = System.currentTimeMillis();
+        List<List<MakeMoveEvent>> complexMoves = gameState.getCopy().getPossibleComplexMoves();
+        long endTime = System.currentTimeMillis();
+        long durationGetPossibleComplexMoves = (endTime - startTime);
+
+        startTime = System.currentTimeMillis();
+        List<State> possibleStates = MovementBotUtil.collectPossibleStatesFromComplexMoves(gameState.getCopy(), complexMoves);
+        endTime = System.currentTimeMillis();
+        long durationCollectPossibleStatesComplex = (endTime - startTime);
+
+        List<State> possibleStates1 = MovementBotUtil.collectPossibleStatesFromComplexMoves(gameState.getCopy(), complexMoves);
+        assertEquals(possibleStates1.size(), possibleStates.size());
+        System.out.println("Количество состояний, к которым могут привести комплексные ходы: " + possibleStates.size());
+        System.out.println("Время поиска всех комбинаций ходов: " + durationGetPossibleComplexMoves + " ms");
+        System.out.println("Время поиска возможных состояний: " + durationCollectPossibleStatesComplex + " ms");
+    }
+    @Test
+    void mirroredStateSharesTableEntry() {
+        GameState gameState = new GameState();
+        gameState.setDefaultPlacementWithoutMage();
+        GameState mirrored = gameState.getCopy();
+        mirrored.setBoard(BoardSymmetry.Transform.MIRROR.apply(gameState.getBoard()));
+
+        assertEquals(
+                MovementBotUtil.transpositionKey(gameState, PlayerType.FIRST_PLAYER, true),
+                MovementBotUtil.transpositionKey(mirrored, PlayerType.FIRST_PLAYER, true));
+        int move = PackedGameState.encodeMove(0, 9);
+        assertEquals(
+                MovementBotUtil.tableMove(BoardSymmetry.canonicalKeyTransform(gameState), move),
+                MovementBotUtil.tableMove(
+                        BoardSymmetry.canonicalKeyTransform(mirrored),
+                        BoardSymmetry.Transform.MIRROR.move(move)));
+        assertEquals(
+                TranspositionTable.NO_MOVE,
+                MovementBotUtil.tableMove(
+                        BoardSymmetry.Transform.MIRROR, TranspositionTable.NO_MOVE));
+    }
+
+    @Test
+    void moveToFrontKeepsOrderOfOtherMoves() {
+        GameState gameState = new GameState();
+        gameState.setDefaultPlacementWithoutMage();
+        int[] moves = new int[PackedGameState.MAX_MOVES];
+        int count = gameState.generateMoves(moves);
+        int[] expected = new int[count];
+        expected[0] = moves[count - 1];
+        System.arraycopy(moves, 0, expected, 1, count - 1);
+
+        MovementBotUtil.moveToFront(moves, count, moves[count - 1]);
+        assertArrayEquals(expected, Arrays.copyOf(moves, count));
+        MovementBotUtil.moveToFront(moves, count, TranspositionTable.NO_MOVE);
+        assertArrayEquals(expected, Arrays.copyOf(moves, count));
+    }
+
+    @Test
+    void packedMovesAreFilteredLikeEvents() {
+        GameState gameState = new GameState();
+        gameState.setDefaultPlacement();
+        List<MakeMoveEvent> events = gameState.getPossibleMoves();
+        MovementBotUtil.removeUnnecessaryMoves(events);
+        int[] moves = new int[PackedGameState.MAX_MOVES];
+        int count = MovementBotUtil.removeUnnecessaryMoves(
+                gameState, moves, gameState.generateMoves(moves));
+
+        assertEquals(events.size(), count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(PackedGameState.encodeMove(events.get(i)), moves[i]);
+        }
+    }
+
+    @Test
+    void removeSimilarMovesTest() {
+        List<MakeMoveEvent> similarMoves = new ArrayList<>();
+        similarMoves.add(
+                new MakeMoveEvent(
+                        new Position(0, 0), new Position(1, 1), new Knight(PlayerType.FIRST_PLAYER)));
+        similarMoves.add(
+                new MakeMoveEvent(
+                        new Position(0, 1), new Position(1, 1), new Knight(PlayerType.FIRST_PLAYER)));
+        MovementBotUtil.removeUnnecessaryMoves(similarMoves);
+        assertEquals(1, similarMoves.size());
+    }
+
+    @Test
+    void removeNotSimilarMovesTest() {
+        List<MakeMoveEvent> similarMoves = new ArrayList<>();
+        similarMoves.add(
+                new MakeMoveEvent(
+                        new Position(0, 0), new Position(2, 1), new Knight(PlayerType.FIRST_PLAYER)));
+        similarMoves.add(
+                new MakeMoveEvent(
+                        new Position(0, 1), new Position(1, 1), new Knight(PlayerType.FIRST_PLAYER)));
+        MovementBotUtil.removeUnnecessaryMoves(similarMoves);
+        assertEquals(2, similarMoves.size());
+    }
+
+    @Test
+    void removeUnnecessaryMovesTest() {
+        List<MakeMoveEvent> similarMoves = new ArrayList<>();
+        similarMoves.add(
+                new MakeMoveEvent(
+                        new Position(0, 0), new Position(2, 1), new Knight(PlayerType.FIRST_PLAYER)));
+        similarMoves.add(
+                new MakeMoveEvent(
+                        new Position(0, 1), new Position(2, 1), new Knight(PlayerType.FIRST_PLAYER)));
+        similarMoves.add(
+                new MakeMoveEvent(
+                        new Position(0, 0), new Position(2, 1), new Archer(PlayerType.FIRST_PLAYER)));
+        similarMoves.add(
+                new MakeMoveEvent(
+                        new Position(0, 1), new Position(2, 1), new Archer(PlayerType.FIRST_PLAYER)));
+        similarMoves.add(
+                new MakeMoveEvent(
+                        new Position(0, 0), new Position(2, 1), new Healer(PlayerType.FIRST_PLAYER)));
+        similarMoves.add(
+                new MakeMoveEvent(
+                        new Position(0, 1), new Position(2, 1), new Healer(PlayerType.FIRST_PLAYER)));
+        MovementBotUtil.removeUnnecessaryMoves(similarMoves);
+        assertEquals(3, similarMoves.size());
+    }
 }
\ No newline at end of file
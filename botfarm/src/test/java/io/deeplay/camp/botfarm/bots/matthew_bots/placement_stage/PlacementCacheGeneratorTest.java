@@ -17,6 +17,7 @@ class PlacementCacheGeneratorTest {
         gameState.makePlacement(new PlaceUnitEvent(0, 1, new Knight(PlayerType.FIRST_PLAYER), PlayerType.FIRST_PLAYER, true, false));
         gameState.makePlacement(new PlaceUnitEvent(1, 1, new Knight(PlayerType.FIRST_PLAYER), PlayerType.FIRST_PLAYER, true, false));
         placementCacheGenerator.generatePossiblePlacements(gameState);
-        assertEquals(256, placementCacheGenerator.possiblePlacements.size());
+        // 256 расстановок, 32 из них симметричны, от остальных остается одна из двух зеркальных
+        assertEquals((256 + 32) / 2, placementCacheGenerator.possiblePlacements.size());
     }
 }
\ No newline at end of file
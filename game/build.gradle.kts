@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 
@@ -15,4 +16,11 @@ dependencies {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// Бенчмарки: ./gradlew :game:jmh
+jmh {
+    warmupIterations.set(2)
+    iterations.set(3)
+    fork.set(1)
+}
@@ -0,0 +1,59 @@
+package io.deeplay.camp.game.entities;
+
+import io.deeplay.camp.game.mechanics.GameState;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Копирований доски в секунду. {@link #reflectiveCopy()} повторяет прежнее копирование через
+ * рефлексию и служит точкой отсчета для {@link #getCopy()} и {@link #copyInto()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BoardCopyBenchmark {
+  private Board board;
+  private Board target;
+
+  @Setup
+  public void setUp() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    board = gameState.getBoard();
+    target = board.getCopy();
+  }
+
+  @Benchmark
+  public Board reflectiveCopy() throws ReflectiveOperationException {
+    Board copy = new Board();
+    for (int i = 0; i < Board.ROWS; i++) {
+      for (int j = 0; j < Board.COLUMNS; j++) {
+        Unit originalUnit = board.getUnit(j, i);
+        if (originalUnit != null) {
+          Constructor<? extends Unit> constructor =
+              originalUnit.getClass().getConstructor(originalUnit.getClass());
+          copy.setUnit(j, i, constructor.newInstance(originalUnit));
+        }
+      }
+    }
+    return copy;
+  }
+
+  @Benchmark
+  public Board getCopy() {
+    return board.getCopy();
+  }
+
+  @Benchmark
+  public Board copyInto() {
+    board.copyInto(target);
+    return target;
+  }
+}
@@ -0,0 +1,64 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.exceptions.GameException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Случайных партий в секунду на одном потоке. {@link #gameState()} повторяет доигрывание через
+ * {@link GameState}, как в PlacementCacheGenerator до пакетного симулятора, и служит точкой отсчета
+ * для {@link #batch()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RolloutBenchmark {
+  private static final int GAMES = 1000;
+
+  private GameState initial;
+  private SplittableRandom random;
+
+  @Setup
+  public void setUp() {
+    initial = new GameState();
+    initial.setDefaultPlacement();
+    random = new SplittableRandom(1);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(GAMES)
+  public int gameState() throws GameException {
+    int firstWins = 0;
+    for (int game = 0; game < GAMES; game++) {
+      GameState gameState = initial.getCopy();
+      while (gameState.getGameStage() != GameStage.ENDED) {
+        List<MakeMoveEvent> moves = gameState.getPossibleMoves();
+        if (moves.isEmpty()) {
+          gameState.changeCurrentPlayer();
+        } else {
+          gameState.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+      }
+      if (gameState.getWinner() == PlayerType.FIRST_PLAYER) {
+        firstWins++;
+      }
+    }
+    return firstWins;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(GAMES)
+  public BatchSimulator.Result batch() {
+    return new BatchSimulator(initial, GAMES, random).run(BatchSimulator.RANDOM);
+  }
+}
@@ -6,7 +6,9 @@ import io.deeplay.camp.game.events.MakeMoveEvent;
 import io.deeplay.camp.game.events.PlaceUnitEvent;
 import io.deeplay.camp.game.events.StartGameEvent;
 import io.deeplay.camp.game.exceptions.GameException;
+import io.deeplay.camp.game.mechanics.Dice;
 import io.deeplay.camp.game.mechanics.GameState;
+import io.deeplay.camp.game.mechanics.SeededDice;
 import java.util.List;
 import lombok.Getter;
 import org.slf4j.Logger;
@@ -23,6 +25,16 @@ public class Game implements GameListener {
     gameState = new GameState();
   }
 
+  /**
+   * Конструктор партии с заданным кубиком. С {@link SeededDice} партия воспроизводится по seed.
+   *
+   * @param dice кубик для атак.
+   */
+  public Game(Dice dice) {
+    this();
+    gameState.setDice(dice);
+  }
+
   @Override
   public void startGame(StartGameEvent startGameEvent) {}
 
@@ -1,21 +1,34 @@
 package io.deeplay.camp.game.entities;
 
 import io.deeplay.camp.game.mechanics.PlayerType;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 @NoArgsConstructor
 @Getter
 public class Army {
+  private static final int UNKNOWN_GENERAL = -2;
+  private static final int NO_GENERAL = -1;
+
   public PlayerType owner;
   public UnitType generalType;
   public boolean isAliveGeneral = false;
   public boolean isBuffed = false;
   Unit[] units;
 
+  // Учет армии ведется по ходу игры, чтобы не обходить юнитов на каждом ходу:
+  // бит i маски - жив ли units[i], индекс генерала ищется один раз после заполнения армии.
+  private int aliveMask;
+
+  @Getter(AccessLevel.NONE)
+  private int generalIndex = UNKNOWN_GENERAL;
+
+  @Getter(AccessLevel.NONE)
+  private final int[] indexByCell = emptyIndexByCell();
+
   public Army(PlayerType owner) {
     this.owner = owner;
     units = new Unit[6];
@@ -29,26 +42,74 @@ public class Army {
     units = new Unit[6];
   }
 
+  private static int[] emptyIndexByCell() {
+    int[] indexByCell = new int[Board.ROWS * Board.COLUMNS];
+    Arrays.fill(indexByCell, -1);
+    return indexByCell;
+  }
+
   public void fillArmy(Board board) {
     int index = 0;
-    if (this.owner == PlayerType.FIRST_PLAYER) {
+    Arrays.fill(indexByCell, -1);
+    int startRow = this.owner == PlayerType.FIRST_PLAYER ? 0 : Board.ROWS / 2;
+    if (this.owner == PlayerType.FIRST_PLAYER || this.owner == PlayerType.SECOND_PLAYER) {
       for (int i = 0; i < board.getUnits().length; i++) {
-        for (int j = 0; j < board.getUnits()[i].length / 2; j++) {
+        for (int j = startRow; j < startRow + board.getUnits()[i].length / 2; j++) {
           if (board.getUnit(i, j) != null) {
+            indexByCell[j * Board.COLUMNS + i] = index;
             units[index++] = board.getUnit(i, j);
           }
         }
       }
     }
-    if (this.owner == PlayerType.SECOND_PLAYER) {
-      for (int i = 0; i < board.getUnits().length; i++) {
-        for (int j = board.getUnits()[i].length / 2; j < board.getUnits()[i].length; j++) {
-          if (board.getUnit(i, j) != null) {
-            units[index++] = board.getUnit(i, j);
-          }
-        }
+    generalIndex = UNKNOWN_GENERAL;
+    refreshAlive();
+  }
+
+  /** Пересчитывает маску живых юнитов целиком, например после отмены хода или бафа. */
+  public void refreshAlive() {
+    aliveMask = 0;
+    for (int i = 0; i < units.length; i++) {
+      if (units[i] != null && units[i].isAlive()) {
+        aliveMask |= 1 << i;
+      }
+    }
+  }
+
+  /**
+   * Обновляет маску после изменения хп юнита в клетке. Клетки чужой армии игнорируются.
+   *
+   * @param x колонка.
+   * @param y ряд.
+   */
+  public void refreshAlive(int x, int y) {
+    int index = indexByCell[y * Board.COLUMNS + x];
+    if (index < 0) {
+      return;
+    }
+    if (units[index].isAlive()) {
+      aliveMask |= 1 << index;
+    } else {
+      aliveMask &= ~(1 << index);
+    }
+  }
+
+  public int getAliveCount() {
+    return Integer.bitCount(aliveMask);
+  }
+
+  public boolean hasAliveUnits() {
+    return aliveMask != 0;
+  }
+
+  // Армия еще не заполнена с доски: состояние собрано вручную или пришло из JSON
+  public boolean isEmpty() {
+    for (Unit unit : units) {
+      if (unit != null) {
+        return false;
       }
     }
+    return true;
   }
 
   // Обновление возможности ходить для юнитов данной армии
@@ -60,40 +121,55 @@ public class Army {
   }
 
   public boolean isAliveGeneral() {
-    isAliveGeneral = false;
-    for (Unit unit : units) {
-      if (unit == null) {
-        continue;
-      }
-      if (unit.isGeneral() && unit.isAlive()) {
-        generalType = unit.getUnitType();
-        isAliveGeneral = true;
-        break;
-      }
-    }
+    isAliveGeneral = isGeneralAlive();
     if (isAliveGeneral) {
+      generalType = units[generalIndex].getUnitType();
       if (!isBuffed) {
         for (Unit unit : units) {
-          unit.applyBuff(unit, generalType);
+          if (unit != null) {
+            unit.applyBuff(unit, generalType);
+          }
         }
         isBuffed = true;
+        refreshAlive();
       }
     } else if (isBuffed) {
       for (Unit unit : units) {
-        unit.removeBuff(unit, generalType);
+        if (unit != null) {
+          unit.removeBuff(unit, generalType);
+        }
       }
       isBuffed = false;
+      refreshAlive();
     }
     return isAliveGeneral;
   }
 
+  // Проверка, снимет или наложит баф следующий вызов isAliveGeneral
+  public boolean isBuffChangePending() {
+    return isGeneralAlive() != isBuffed;
+  }
+
   public boolean hasGeneral() {
-    for (Unit unit : units) {
-      if (unit != null && unit.isGeneral()) {
-        return true;
+    return generalIndex() >= 0;
+  }
+
+  private boolean isGeneralAlive() {
+    int index = generalIndex();
+    return index >= 0 && units[index].isAlive();
+  }
+
+  private int generalIndex() {
+    if (generalIndex == UNKNOWN_GENERAL) {
+      generalIndex = NO_GENERAL;
+      for (int i = 0; i < units.length; i++) {
+        if (units[i] != null && units[i].isGeneral()) {
+          generalIndex = i;
+          break;
+        }
       }
     }
-    return false;
+    return generalIndex;
   }
 
   @Override
@@ -101,11 +177,18 @@ public class Army {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     Army army = (Army) o;
-    return isAliveGeneral == army.isAliveGeneral && isBuffed == army.isBuffed && owner == army.owner && generalType == army.generalType && Objects.deepEquals(units, army.units);
+    return isAliveGeneral == army.isAliveGeneral
+        && isBuffed == army.isBuffed
+        && owner == army.owner
+        && generalType == army.generalType
+        && Arrays.equals(units, army.units);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(owner, generalType, isAliveGeneral, isBuffed, Arrays.hashCode(units));
+    int result = owner == null ? -1 : owner.index();
+    result = 31 * result + (generalType == null ? -1 : generalType.index());
+    result = 31 * result + (isAliveGeneral ? 1 : 0) + (isBuffed ? 2 : 0);
+    return 31 * result + Arrays.hashCode(units);
   }
 }
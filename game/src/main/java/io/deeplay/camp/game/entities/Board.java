@@ -1,24 +1,20 @@
 package io.deeplay.camp.game.entities;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
+import io.deeplay.camp.game.mechanics.EngineTrace;
 import io.deeplay.camp.game.mechanics.PlayerType;
+import io.deeplay.camp.game.mechanics.Zobrist;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 @Getter
 @AllArgsConstructor
 public class Board {
   public static final int ROWS = 4;
   public static final int COLUMNS = 3;
-  private static final Logger logger = LoggerFactory.getLogger(Board.class);
 
   private Unit[][] units;
 
@@ -32,20 +28,34 @@ public class Board {
 
   private Board(Board board) {
     units = new Unit[COLUMNS][ROWS];
-    for (int i = 0; i < ROWS; i++) {
-      for (int j = 0; j < COLUMNS; j++) {
-        Unit originalUnit = board.getUnit(j, i);
+    for (int i = 0; i < COLUMNS; i++) {
+      for (int j = 0; j < ROWS; j++) {
+        Unit originalUnit = board.units[i][j];
         if (originalUnit != null) {
-          try {
-            Constructor<? extends Unit> constructor =
-                originalUnit.getClass().getConstructor(originalUnit.getClass());
-            units[j][i] = (Unit) ((Constructor<?>) constructor).newInstance(originalUnit);
-          } catch (NoSuchMethodException
-              | InstantiationException
-              | IllegalAccessException
-              | InvocationTargetException e) {
-            logger.error("Failed to create a copy of unit", e);
-          }
+          units[i][j] = originalUnit.getCopy();
+        }
+      }
+    }
+  }
+
+  /**
+   * Метод копирует доску в другую доску, переиспользуя её юниты того же типа. Новые юниты создаются
+   * только там, где на целевой доске пусто или стоит юнит другого типа, поэтому армии целевого
+   * состояния нужно заново заполнить, если расстановка могла поменяться.
+   *
+   * @param target доска, в которую копируется текущая.
+   */
+  public void copyInto(Board target) {
+    for (int i = 0; i < COLUMNS; i++) {
+      for (int j = 0; j < ROWS; j++) {
+        Unit originalUnit = units[i][j];
+        Unit targetUnit = target.units[i][j];
+        if (originalUnit == null) {
+          target.units[i][j] = null;
+        } else if (targetUnit != null && targetUnit.getUnitType() == originalUnit.getUnitType()) {
+          targetUnit.copyFrom(originalUnit);
+        } else {
+          target.units[i][j] = originalUnit.getCopy();
         }
       }
     }
@@ -63,7 +73,9 @@ public class Board {
     for (int i = startRow; i < endRow; i++) {
       for (int j = 0; j < Board.COLUMNS; j++) {
         if (isEmptyCell(j, i)) {
-          logger.atInfo().log("Empty cell (X-{},Y-{})", j, i);
+          if (EngineTrace.ENABLED) {
+            EngineTrace.trace("Empty cell (X-{},Y-{})", j, i);
+          }
           return false;
         }
       }
@@ -83,7 +95,9 @@ public class Board {
     for (int i = startRow; i < endRow; i++) {
       for (int j = 0; j < Board.COLUMNS; j++) {
         if (!getUnit(i, j).isMoved()) {
-          logger.atInfo().log("Empty cell (X-{},Y-{})", j, i);
+          if (EngineTrace.ENABLED) {
+            EngineTrace.trace("Empty cell (X-{},Y-{})", j, i);
+          }
           return false;
         }
       }
@@ -104,13 +118,17 @@ public class Board {
     for (int i = startRow; i < endRow; i++) {
       for (int j = 0; j < Board.COLUMNS; j++) {
         if (isEmptyCell(j, i)) {
-          logger.atInfo().log("Empty cell (X-{},Y-{})", j, i);
+          if (EngineTrace.ENABLED) {
+            EngineTrace.trace("Empty cell (X-{},Y-{})", j, i);
+          }
           continue;
         }
         if (getUnit(j, i).isAlive()) {
           unitPositions.add(new Position(j, i));
         } else {
-          logger.atInfo().log("Dead unit (X-{},Y-{})", j, i);
+          if (EngineTrace.ENABLED) {
+            EngineTrace.trace("Dead unit (X-{},Y-{})", j, i);
+          }
         }
       }
     }
@@ -123,9 +141,13 @@ public class Board {
       for (int j = 0; j < Board.COLUMNS; j++) {
         if (isEmptyCell(j, i)) {
           unitPositions.add(new Position(j, i));
-          logger.atInfo().log("Empty cell (X-{},Y-{})", j, i);
+          if (EngineTrace.ENABLED) {
+            EngineTrace.trace("Empty cell (X-{},Y-{})", j, i);
+          }
         } else if (getUnit(j, i).isAlive()) {
-          logger.atInfo().log("Cell (X-{},Y-{}) Already have unit", j, i);
+          if (EngineTrace.ENABLED) {
+            EngineTrace.trace("Cell (X-{},Y-{}) Already have unit", j, i);
+          }
         }
       }
     }
@@ -145,6 +167,19 @@ public class Board {
     return count;
   }
 
+  // Маска клеток с живыми юнитами, бит клетки - y * COLUMNS + x
+  public int getAliveMask() {
+    int mask = 0;
+    for (int i = 0; i < COLUMNS; i++) {
+      for (int j = 0; j < ROWS; j++) {
+        if (units[i][j] != null && units[i][j].isAlive()) {
+          mask |= 1 << (j * COLUMNS + i);
+        }
+      }
+    }
+    return mask;
+  }
+
   public boolean isEmptyCell(int x, int y) {
     return units[x][y] == null;
   }
@@ -163,18 +198,39 @@ public class Board {
     return emptyCellsAmount == 1;
   }
 
+  /**
+   * Метод возвращает Zobrist-ключ расстановки юнитов, без данных партии (см. {@link
+   * io.deeplay.camp.game.mechanics.Zobrist}). Удобен как примитивный ключ доски в хеш-таблицах.
+   *
+   * @return ключ доски.
+   */
+  public long key() {
+    long key = 0;
+    for (int i = 0; i < COLUMNS; i++) {
+      for (int j = 0; j < ROWS; j++) {
+        key ^= Zobrist.unitKey(i, j, units[i][j]);
+      }
+    }
+    return key;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     Board board = (Board) o;
-    return Objects.deepEquals(units, board.units);
+    for (int i = 0; i < COLUMNS; i++) {
+      for (int j = 0; j < ROWS; j++) {
+        if (!Objects.equals(units[i][j], board.units[i][j])) {
+          return false;
+        }
+      }
+    }
+    return true;
   }
 
   @Override
   public int hashCode() {
-    return Arrays.deepHashCode(units);
+    return Long.hashCode(key());
   }
-
-
 }
@@ -3,31 +3,18 @@ package io.deeplay.camp.game.entities;
 import lombok.Getter;
 
 public interface GeneralBuff {
+  // Баф армии хранится в юните как общий для армии модификатор характеристик
   default void applyBuff(Unit unit, UnitType typeBuff) {
-    switch (typeBuff) {
-      case KNIGHT -> unit.setArmor(unit.getArmor() + Buffs.ARMOR.getValue());
-      case MAGE -> unit.setDamage(unit.getDamage() + Buffs.DAMAGE.getValue());
-      case ARCHER -> unit.setAccuracy(unit.getAccuracy() + Buffs.ACCURACY.getValue());
-      case HEALER -> {
-        unit.setMaxHp(unit.getMaxHp() + Buffs.MAXHP.getValue());
-        unit.setCurrentHp(unit.getMaxHp() + Buffs.MAXHP.getValue());
-      }
-      default -> unit.setCurrentHp(unit.currentHp);
+    unit.addModifier(StatModifier.buff(typeBuff));
+    if (typeBuff == UnitType.HEALER) {
+      unit.setCurrentHp(unit.getMaxHp());
     }
   }
 
   default void removeBuff(Unit unit, UnitType typeBuff) {
-    switch (typeBuff) {
-      case KNIGHT -> unit.setArmor(unit.getArmor() - Buffs.ARMOR.getValue());
-      case MAGE -> unit.setDamage(unit.getDamage() - Buffs.DAMAGE.getValue());
-      case ARCHER -> unit.setAccuracy(unit.getAccuracy() - Buffs.ACCURACY.getValue());
-      case HEALER -> {
-        unit.setMaxHp(unit.getMaxHp() - Buffs.MAXHP.getValue());
-        if (unit.getCurrentHp() > unit.getMaxHp()) {
-          unit.setCurrentHp(unit.getMaxHp());
-        }
-      }
-      default -> unit.setCurrentHp(unit.currentHp);
+    unit.removeModifier(StatModifier.buff(typeBuff));
+    if (unit.getCurrentHp() > unit.getMaxHp()) {
+      unit.setCurrentHp(unit.getMaxHp());
     }
   }
 
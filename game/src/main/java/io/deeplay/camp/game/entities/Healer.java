@@ -1,15 +1,17 @@
 package io.deeplay.camp.game.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.deeplay.camp.game.mechanics.Dice;
 import io.deeplay.camp.game.mechanics.PlayerType;
-import lombok.NoArgsConstructor;
 
-@NoArgsConstructor
 public class Healer extends Unit {
+  public Healer() {
+    super(UnitType.HEALER);
+  }
+
   public Healer(PlayerType playerType) {
-    super(UnitType.HEALER, 11, 11, 4, 16, 12, false);
+    this();
     this.playerType = playerType;
-    setAttack(AttackType.LONG_ATTACK);
   }
 
   public Healer(Healer healer) {
@@ -18,11 +20,21 @@ public class Healer extends Unit {
 
   @Override
   public void playMove(Unit targetUnit) {
-    targetUnit.setCurrentHp(targetUnit.getCurrentHp() + damage);
+    targetUnit.setCurrentHp(targetUnit.getCurrentHp() + getDamage());
     hitTarget = true;
     isMoved = true;
   }
 
+  @Override
+  public void playMove(Unit targetUnit, Dice dice) {
+    playMove(targetUnit);
+  }
+
+  @Override
+  public void playMove(Unit targetUnit, boolean hit) {
+    playMove(targetUnit);
+  }
+
   @JsonIgnore
   @Override
   public Unit getCopy() {
@@ -1,3 +1,22 @@
 package io.deeplay.camp.game.entities;
 
-public record Position(int x, int y) {}
+public record Position(int x, int y) {
+  /** Позиции всех клеток доски по индексу {@code y * Board.COLUMNS + x}. */
+  private static final Position[] CELLS = new Position[Board.ROWS * Board.COLUMNS];
+
+  static {
+    for (int cell = 0; cell < CELLS.length; cell++) {
+      CELLS[cell] = new Position(cell % Board.COLUMNS, cell / Board.COLUMNS);
+    }
+  }
+
+  /**
+   * Метод возвращает общий экземпляр позиции клетки без создания объекта.
+   *
+   * @param cell индекс клетки {@code y * Board.COLUMNS + x}.
+   * @return позиция клетки.
+   */
+  public static Position ofCell(int cell) {
+    return CELLS[cell];
+  }
+}
@@ -0,0 +1,75 @@
+package io.deeplay.camp.game.entities;
+
+/**
+ * Неизменяемая надбавка к базовым характеристикам юнита: баф генерала или явно заданные значения.
+ * Баф генерала - общий для всей армии экземпляр из таблицы {@link #buff(UnitType)}, поэтому юниты
+ * без изменений характеристик ссылаются на {@link #NONE} и копируются без выделения памяти.
+ *
+ * @param maxHp надбавка к максимальному хп.
+ * @param damage надбавка к урону.
+ * @param accuracy надбавка к точности.
+ * @param armor надбавка к броне.
+ */
+public record StatModifier(int maxHp, int damage, int accuracy, int armor) {
+  /** Без надбавок. */
+  public static final StatModifier NONE = new StatModifier(0, 0, 0, 0);
+
+  private static final StatModifier[] BUFFS = new StatModifier[UnitType.COUNT];
+
+  static {
+    BUFFS[UnitType.KNIGHT.index()] =
+        new StatModifier(0, 0, 0, GeneralBuff.Buffs.ARMOR.getValue());
+    BUFFS[UnitType.MAGE.index()] =
+        new StatModifier(0, GeneralBuff.Buffs.DAMAGE.getValue(), 0, 0);
+    BUFFS[UnitType.ARCHER.index()] =
+        new StatModifier(0, 0, GeneralBuff.Buffs.ACCURACY.getValue(), 0);
+    BUFFS[UnitType.HEALER.index()] =
+        new StatModifier(GeneralBuff.Buffs.MAXHP.getValue(), 0, 0, 0);
+  }
+
+  /**
+   * Метод возвращает баф армии с генералом данного типа.
+   *
+   * @param generalType тип генерала.
+   * @return общий для армии экземпляр.
+   */
+  public static StatModifier buff(UnitType generalType) {
+    return BUFFS[generalType.index()];
+  }
+
+  public StatModifier plus(StatModifier other) {
+    if (equals(NONE)) {
+      return other;
+    }
+    StatModifier sum =
+        new StatModifier(
+            maxHp + other.maxHp, damage + other.damage, accuracy + other.accuracy, armor + other.armor);
+    return sum.equals(NONE) ? NONE : sum;
+  }
+
+  public StatModifier minus(StatModifier other) {
+    if (equals(other)) {
+      return NONE;
+    }
+    StatModifier difference =
+        new StatModifier(
+            maxHp - other.maxHp, damage - other.damage, accuracy - other.accuracy, armor - other.armor);
+    return difference.equals(NONE) ? NONE : difference;
+  }
+
+  public StatModifier withMaxHp(int maxHp) {
+    return new StatModifier(maxHp, damage, accuracy, armor);
+  }
+
+  public StatModifier withDamage(int damage) {
+    return new StatModifier(maxHp, damage, accuracy, armor);
+  }
+
+  public StatModifier withAccuracy(int accuracy) {
+    return new StatModifier(maxHp, damage, accuracy, armor);
+  }
+
+  public StatModifier withArmor(int armor) {
+    return new StatModifier(maxHp, damage, accuracy, armor);
+  }
+}
@@ -1,16 +1,20 @@
 package io.deeplay.camp.game.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import io.deeplay.camp.game.mechanics.Dice;
 import io.deeplay.camp.game.mechanics.PlayerType;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.util.Objects;
-
-@NoArgsConstructor
+// unitType и attackType определяются классом юнита, при чтении JSON они пропускаются
+@JsonIgnoreProperties(
+    value = {"unitType", "attackType"},
+    allowGetters = true)
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "unitType")
 @JsonSubTypes({
   @JsonSubTypes.Type(value = Knight.class, name = "KNIGHT"),
@@ -18,62 +22,102 @@ import java.util.Objects;
   @JsonSubTypes.Type(value = Healer.class, name = "HEALER"),
   @JsonSubTypes.Type(value = Archer.class, name = "ARCHER"),
 })
+// Характеристики пишутся раньше хп: при чтении setCurrentHp ограничивает хп максимумом с бафом
+@JsonPropertyOrder({"maxHp", "damage", "accuracy", "armor", "currentHp"})
 public abstract class Unit implements GeneralBuff {
+  // Общие для типа характеристики и надбавка к ним
+  @JsonIgnore private UnitStats stats;
+  @JsonIgnore private StatModifier modifier = StatModifier.NONE;
   // Геттеры
-  @Getter protected int maxHp;
   @Getter protected int currentHp;
-  @Getter protected int damage;
-  @Getter protected int accuracy;
-  @Getter protected int armor;
   protected boolean isGeneral;
-  @Getter protected UnitType unitType;
   @Setter @Getter protected PlayerType playerType;
-  @Getter protected AttackType attackType;
   // Поле для проверки, походил ли данный юнит в этом ходу или нет
   @Getter protected boolean isMoved = false;
   @Getter boolean hitTarget = false;
 
-  public Unit(
-      UnitType unitType,
-      int maxHp,
-      int currentHp,
-      int damage,
-      int accuracy,
-      int armor,
-      boolean isGeneral) {
-    this.unitType = unitType;
-    this.maxHp = maxHp;
-    this.currentHp = currentHp;
-    this.damage = damage;
-    this.accuracy = accuracy;
-    this.armor = armor;
-    this.isGeneral = isGeneral;
+  protected Unit(UnitType unitType) {
+    this.stats = UnitStats.of(unitType);
+    this.currentHp = stats.maxHp();
   }
 
   public Unit(Unit unit) {
-    this.maxHp = unit.getMaxHp();
-    this.currentHp = unit.getCurrentHp();
-    this.damage = unit.getDamage();
-    this.accuracy = unit.getAccuracy();
-    this.armor = unit.getArmor();
+    this.stats = unit.stats;
+    this.modifier = unit.modifier;
+    this.currentHp = unit.currentHp;
     this.isGeneral = unit.isGeneral;
-    this.unitType = unit.getUnitType();
-    this.playerType = unit.getPlayerType();
+    this.playerType = unit.playerType;
     this.isMoved = unit.isMoved;
     this.hitTarget = unit.hitTarget;
-    this.attackType = unit.getAttackType();
   }
 
   @JsonIgnore
   public abstract Unit getCopy();
 
-  public void setAttack(AttackType attackType) {
-    this.attackType = attackType;
+  // Копирование всех полей другого юнита того же типа в текущий без создания нового объекта
+  public void copyFrom(Unit unit) {
+    this.stats = unit.stats;
+    this.modifier = unit.modifier;
+    this.currentHp = unit.currentHp;
+    this.isGeneral = unit.isGeneral;
+    this.playerType = unit.playerType;
+    this.isMoved = unit.isMoved;
+    this.hitTarget = unit.hitTarget;
+  }
+
+  @JsonProperty("unitType")
+  public UnitType getUnitType() {
+    return stats.unitType();
+  }
+
+  @JsonProperty("attackType")
+  public AttackType getAttackType() {
+    return stats.attackType();
+  }
+
+  @JsonProperty("maxHp")
+  public int getMaxHp() {
+    return stats.maxHp() + modifier.maxHp();
+  }
+
+  @JsonProperty("damage")
+  public int getDamage() {
+    return stats.damage() + modifier.damage();
+  }
+
+  @JsonProperty("accuracy")
+  public int getAccuracy() {
+    return stats.accuracy() + modifier.accuracy();
+  }
+
+  @JsonProperty("armor")
+  public int getArmor() {
+    return stats.armor() + modifier.armor();
+  }
+
+  @JsonIgnore
+  public UnitStats getStats() {
+    return stats;
+  }
+
+  @JsonIgnore
+  public StatModifier getModifier() {
+    return modifier;
+  }
+
+  // Наложение и снятие бафа армии
+  void addModifier(StatModifier buff) {
+    modifier = modifier.plus(buff);
+  }
+
+  void removeModifier(StatModifier buff) {
+    modifier = modifier.minus(buff);
   }
 
   // Сеттеры
+  @JsonProperty("maxHp")
   protected void setMaxHp(int health) {
-    this.maxHp = health;
+    modifier = modifier.withMaxHp(health - stats.maxHp());
   }
 
   public void setCurrentHp(int health) {
@@ -81,21 +125,24 @@ public abstract class Unit implements GeneralBuff {
     if (this.currentHp < 0) {
       this.currentHp = 0;
     }
-    if (this.currentHp > maxHp) {
-      this.currentHp = maxHp;
+    if (this.currentHp > getMaxHp()) {
+      this.currentHp = getMaxHp();
     }
   }
 
+  @JsonProperty("damage")
   protected void setDamage(int damage) {
-    this.damage = damage;
+    modifier = modifier.withDamage(damage - stats.damage());
   }
 
+  @JsonProperty("accuracy")
   public void setAccuracy(int accuracy) {
-    this.accuracy = accuracy;
+    modifier = modifier.withAccuracy(accuracy - stats.accuracy());
   }
 
+  @JsonProperty("armor")
   public void setArmor(int armor) {
-    this.armor = armor;
+    modifier = modifier.withArmor(armor - stats.armor());
   }
 
   public void setMoved(boolean isMoved) {
@@ -119,8 +166,24 @@ public abstract class Unit implements GeneralBuff {
     this.isGeneral = isGeneral;
   }
 
-  // Методы для реализации в дочерних классах
-  public abstract void playMove(Unit targetUnit);
+  // Ход с броском кубика по умолчанию
+  public void playMove(Unit targetUnit) {
+    playMove(targetUnit, Dice.THREAD_LOCAL);
+  }
+
+  // Ход с броском заданного кубика
+  public void playMove(Unit targetUnit, Dice dice) {
+    playMove(targetUnit, dice.roll() + getAccuracy() > targetUnit.getArmor());
+  }
+
+  // Ход с заранее известным исходом броска: попадание или промах
+  public void playMove(Unit targetUnit, boolean hit) {
+    if (hit) {
+      targetUnit.setCurrentHp(targetUnit.getCurrentHp() - getDamage());
+    }
+    hitTarget = hit;
+    isMoved = true;
+  }
 
   public static Unit createUnitByUnitType(UnitType unitType, PlayerType playerType) {
     return switch (unitType) {
@@ -136,21 +199,21 @@ public abstract class Unit implements GeneralBuff {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     Unit unit = (Unit) o;
-    return maxHp == unit.maxHp &&
-            currentHp == unit.currentHp &&
-            damage == unit.damage &&
-            accuracy == unit.accuracy &&
-            armor == unit.armor &&
-            isGeneral == unit.isGeneral
-            && isMoved == unit.isMoved
-            && hitTarget == unit.hitTarget
-            && unitType == unit.unitType
-            && playerType == unit.playerType
-            && attackType == unit.attackType;
+    return currentHp == unit.currentHp
+        && isGeneral == unit.isGeneral
+        && isMoved == unit.isMoved
+        && hitTarget == unit.hitTarget
+        && stats.equals(unit.stats)
+        && playerType == unit.playerType
+        && modifier.equals(unit.modifier);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(maxHp, currentHp, damage, accuracy, armor, isGeneral, unitType, playerType, attackType, isMoved, hitTarget);
+    int result = stats.unitType().index();
+    result = 31 * result + currentHp;
+    result = 31 * result + (playerType == null ? -1 : playerType.index());
+    result = 31 * result + (isGeneral ? 1 : 0) + (isMoved ? 2 : 0) + (hitTarget ? 4 : 0);
+    return 31 * result + (modifier.equals(StatModifier.NONE) ? 0 : modifier.hashCode());
   }
 }
@@ -0,0 +1,38 @@
+package io.deeplay.camp.game.entities;
+
+/**
+ * Неизменяемые базовые характеристики типа юнита. Один экземпляр на тип разделяется всеми юнитами
+ * этого типа, в самом юните хранится только изменяемое состояние (хп, флаги, модификатор).
+ *
+ * @param unitType тип юнита.
+ * @param attackType тип атаки.
+ * @param maxHp максимальное хп.
+ * @param damage урон.
+ * @param accuracy точность.
+ * @param armor броня.
+ */
+public record UnitStats(
+    UnitType unitType, AttackType attackType, int maxHp, int damage, int accuracy, int armor) {
+  private static final UnitStats[] STATS = new UnitStats[UnitType.COUNT];
+
+  static {
+    STATS[UnitType.KNIGHT.index()] =
+        new UnitStats(UnitType.KNIGHT, AttackType.CLOSE_ATTACK, 15, 5, 5, 15);
+    STATS[UnitType.ARCHER.index()] =
+        new UnitStats(UnitType.ARCHER, AttackType.LONG_ATTACK, 10, 5, 7, 12);
+    STATS[UnitType.MAGE.index()] =
+        new UnitStats(UnitType.MAGE, AttackType.MASS_ATTACK, 10, 2, 2, 10);
+    STATS[UnitType.HEALER.index()] =
+        new UnitStats(UnitType.HEALER, AttackType.LONG_ATTACK, 11, 4, 16, 12);
+  }
+
+  /**
+   * Метод возвращает характеристики типа юнита.
+   *
+   * @param unitType тип юнита.
+   * @return общий для всех юнитов типа экземпляр.
+   */
+  public static UnitStats of(UnitType unitType) {
+    return STATS[unitType.index()];
+  }
+}
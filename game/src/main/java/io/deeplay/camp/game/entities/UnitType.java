@@ -1,10 +1,47 @@
 package io.deeplay.camp.game.entities;
 
 public enum UnitType {
-  KNIGHT,
-  ARCHER,
-  MAGE,
-  HEALER;
+  KNIGHT(0),
+  ARCHER(1),
+  MAGE(2),
+  HEALER(3);
+
+  /** Количество типов юнитов. */
+  public static final int COUNT = 4;
+
+  private static final UnitType[] BY_INDEX = new UnitType[COUNT];
+
+  static {
+    for (UnitType unitType : values()) {
+      BY_INDEX[unitType.index] = unitType;
+    }
+  }
+
+  /** Номер типа в таблицах, от 0 до {@link #COUNT}. */
+  private final int index;
+
+  UnitType(int index) {
+    this.index = index;
+  }
+
+  /**
+   * Метод возвращает номер типа в таблицах. Номер задан явно и не зависит от порядка констант.
+   *
+   * @return номер от 0 до {@link #COUNT}.
+   */
+  public int index() {
+    return index;
+  }
+
+  /**
+   * Метод возвращает тип по номеру.
+   *
+   * @param index номер из {@link #index()}.
+   * @return тип юнита.
+   */
+  public static UnitType byIndex(int index) {
+    return BY_INDEX[index];
+  }
 
   public static UnitType getRandom() {
     return values()[(int) (Math.random() * values().length)];
@@ -0,0 +1,445 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.Army;
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitType;
+import java.util.random.RandomGenerator;
+
+/**
+ * Пакетный симулятор партий для массовых случайных доигрываний.
+ *
+ * <p>N партий хранятся в виде структуры массивов: хп, типы юнитов и генералы лежат в общих массивах
+ * по индексу {@code game * CELLS + cell}, живые и походившие юниты - в битовых масках по партии.
+ * Шаг {@link #step(Policy)} делает по одному действию (ход или передачу хода) в каждой
+ * незаконченной партии, без создания объектов. Правила и порядок ходов повторяют {@link
+ * PackedGameState}, ходы кодируются так же ({@link PackedGameState#encodeMove(int, int)}).
+ *
+ * <p>Симулятор не потокобезопасен: для нескольких потоков создается по симулятору на поток со
+ * своим генератором случайных чисел.
+ */
+public final class BatchSimulator {
+  /** Партия еще идет. */
+  public static final int RUNNING = 0;
+
+  /** Победил первый игрок. */
+  public static final int FIRST_WIN = 1;
+
+  /** Победил второй игрок. */
+  public static final int SECOND_WIN = 2;
+
+  /** Ничья. */
+  public static final int DRAW = 3;
+
+  /** Политика, выбирающая случайный ход; передает ход только когда ходов нет, как RandomBot. */
+  public static final Policy RANDOM =
+      (simulator, game, moves, count, random) -> random.nextInt(count);
+
+  private static final int CELLS = PackedGameState.CELLS;
+  private static final int ARMY_SIZE = PackedGameState.ARMY_SIZE;
+  private static final int[] ARMY_MASK = {(1 << ARMY_SIZE) - 1, ((1 << ARMY_SIZE) - 1) << ARMY_SIZE};
+  private static final PlayerType[] PLAYERS = {PlayerType.FIRST_PLAYER, PlayerType.SECOND_PLAYER};
+  private static final byte NONE = -1;
+
+  /** Клетки армий в порядке {@link Army#fillArmy(Board)} (по колонкам). */
+  private static final int[][] ARMY_CELLS = new int[2][ARMY_SIZE];
+
+  private static final int KNIGHT = UnitType.KNIGHT.index();
+  private static final int MAGE = UnitType.MAGE.index();
+  private static final int HEALER = UnitType.HEALER.index();
+
+  static {
+    for (int player = 0; player < 2; player++) {
+      int index = 0;
+      for (int x = 0; x < Board.COLUMNS; x++) {
+        for (int y = player * Board.ROWS / 2; y < (player + 1) * Board.ROWS / 2; y++) {
+          ARMY_CELLS[player][index++] = PackedGameState.cell(x, y);
+        }
+      }
+    }
+  }
+
+  private final int games;
+  private final RandomGenerator random;
+
+  // По клеткам: game * CELLS + cell
+  private final byte[] types;
+  private final int[] hp;
+
+  // По армиям: game * 2 + player
+  private final byte[] generalCell;
+  private final byte[] buffType;
+
+  // По партиям
+  private final int[] aliveMask;
+  private final int[] movedMask;
+  private final byte[] currentPlayer;
+  private final int[] countRound;
+  private final byte[] outcome;
+
+  private final int[] moves = new int[PackedGameState.MAX_MOVES];
+  private int running;
+
+  /**
+   * Конструктор, копирующий стартовое состояние во все партии.
+   *
+   * @param gameState стартовое состояние этапа игры, не изменяется.
+   * @param games количество партий.
+   * @param random источник случайности для бросков кубика и политики.
+   */
+  public BatchSimulator(GameState gameState, int games, RandomGenerator random) {
+    this.games = games;
+    this.random = random;
+    types = new byte[games * CELLS];
+    hp = new int[games * CELLS];
+    generalCell = new byte[games * 2];
+    buffType = new byte[games * 2];
+    aliveMask = new int[games];
+    movedMask = new int[games];
+    currentPlayer = new byte[games];
+    countRound = new int[games];
+    outcome = new byte[games];
+    load(gameState);
+    for (int game = 1; game < games; game++) {
+      System.arraycopy(types, 0, types, game * CELLS, CELLS);
+      System.arraycopy(hp, 0, hp, game * CELLS, CELLS);
+      System.arraycopy(generalCell, 0, generalCell, game * 2, 2);
+      System.arraycopy(buffType, 0, buffType, game * 2, 2);
+      aliveMask[game] = aliveMask[0];
+      movedMask[game] = movedMask[0];
+      currentPlayer[game] = currentPlayer[0];
+      countRound[game] = countRound[0];
+      outcome[game] = outcome[0];
+    }
+    running = outcome[0] == RUNNING ? games : 0;
+  }
+
+  private void load(GameState gameState) {
+    Board board = gameState.getBoard();
+    for (int cell = 0; cell < CELLS; cell++) {
+      Unit unit = board.getUnit(PackedGameState.x(cell), PackedGameState.y(cell));
+      types[cell] = unit == null ? NONE : (byte) unit.getUnitType().index();
+      hp[cell] = unit == null ? 0 : unit.getCurrentHp();
+      if (unit != null && unit.isAlive()) {
+        aliveMask[0] |= 1 << cell;
+      }
+      if (unit != null && unit.isMoved()) {
+        movedMask[0] |= 1 << cell;
+      }
+    }
+    loadArmy(gameState.getArmyFirst(), board, 0);
+    loadArmy(gameState.getArmySecond(), board, 1);
+    currentPlayer[0] = (byte) (gameState.getCurrentPlayer() == PlayerType.SECOND_PLAYER ? 1 : 0);
+    countRound[0] = gameState.getCountRound();
+    if (gameState.getGameStage() == GameStage.ENDED) {
+      outcome[0] = (byte) outcomeOf(gameState.getWinner());
+    }
+  }
+
+  private void loadArmy(Army army, Board board, int player) {
+    generalCell[player] = NONE;
+    // Генерал ищется в порядке армии, как в Army.isAliveGeneral
+    for (int cell : ARMY_CELLS[player]) {
+      Unit unit = board.getUnit(PackedGameState.x(cell), PackedGameState.y(cell));
+      if (unit != null && unit.isGeneral()) {
+        generalCell[player] = (byte) cell;
+        break;
+      }
+    }
+    buffType[player] =
+        army.isBuffed() && army.getGeneralType() != null
+            ? (byte) army.getGeneralType().index()
+            : NONE;
+  }
+
+  private static int outcomeOf(PlayerType winner) {
+    if (winner == PlayerType.FIRST_PLAYER) {
+      return FIRST_WIN;
+    }
+    return winner == PlayerType.SECOND_PLAYER ? SECOND_WIN : DRAW;
+  }
+
+  /**
+   * Метод делает по одному действию в каждой незаконченной партии.
+   *
+   * @param policy политика выбора хода.
+   * @return количество незаконченных партий после шага.
+   */
+  public int step(Policy policy) {
+    for (int game = 0; game < games; game++) {
+      if (outcome[game] != RUNNING) {
+        continue;
+      }
+      int count = generateMoves(game, moves);
+      int choice = count == 0 ? -1 : policy.choose(this, game, moves, count, random);
+      if (choice < 0) {
+        changeCurrentPlayer(game);
+      } else {
+        makeMove(game, moves[choice]);
+      }
+      if (outcome[game] != RUNNING) {
+        running--;
+      }
+    }
+    return running;
+  }
+
+  /**
+   * Метод доигрывает все партии до конца.
+   *
+   * @param policy политика выбора хода для обоих игроков.
+   * @return итоги партий.
+   */
+  public Result run(Policy policy) {
+    while (running > 0) {
+      step(policy);
+    }
+    return getResult();
+  }
+
+  /**
+   * Метод возвращает итоги законченных партий.
+   *
+   * @return количество побед и ничьих.
+   */
+  public Result getResult() {
+    int firstWins = 0;
+    int secondWins = 0;
+    int draws = 0;
+    for (int game = 0; game < games; game++) {
+      switch (outcome[game]) {
+        case FIRST_WIN -> firstWins++;
+        case SECOND_WIN -> secondWins++;
+        case DRAW -> draws++;
+        default -> {}
+      }
+    }
+    return new Result(firstWins, secondWins, draws);
+  }
+
+  /**
+   * Метод генерирует ходы текущего игрока партии в порядке {@link
+   * PackedGameState#generateMoves(int[])}.
+   *
+   * @param game партия.
+   * @param moves буфер для ходов, не короче {@link PackedGameState#MAX_MOVES}.
+   * @return количество записанных ходов.
+   */
+  public int generateMoves(int game, int[] moves) {
+    int player = currentPlayer[game];
+    int alive = aliveMask[game];
+    int ready = alive & ARMY_MASK[player] & ~movedMask[game];
+    int enemyStart = player == 0 ? ARMY_SIZE : 0;
+    int ownStart = player == 0 ? 0 : ARMY_SIZE;
+    int base = game * CELLS;
+    int count = 0;
+    for (int from = ownStart; from < ownStart + ARMY_SIZE; from++) {
+      if ((ready & 1 << from) == 0) {
+        continue;
+      }
+      int type = types[base + from];
+      if (type == HEALER) {
+        for (int to = ownStart; to < ownStart + ARMY_SIZE; to++) {
+          if ((alive & 1 << to) != 0 && hp[base + to] != getMaxHp(game, to)) {
+            moves[count++] = PackedGameState.encodeMove(from, to);
+          }
+        }
+        continue;
+      }
+      int targets = alive & ARMY_MASK[1 - player];
+      if (type == KNIGHT) {
+        targets &= KnightReach.reachMask(PLAYERS[player], from, alive);
+      }
+      for (int to = enemyStart; to < enemyStart + ARMY_SIZE; to++) {
+        if ((targets & 1 << to) != 0) {
+          moves[count++] = PackedGameState.encodeMove(from, to);
+          if (type == MAGE) {
+            break;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  private void makeMove(int game, int move) {
+    int from = PackedGameState.moveFrom(move);
+    int to = PackedGameState.moveTo(move);
+    int base = game * CELLS;
+    int type = types[base + from];
+    if (type == HEALER) {
+      hp[base + to] = Math.min(getMaxHp(game, to), hp[base + to] + getDamage(game, from));
+    } else if (type == MAGE) {
+      // Порядок и набор бросков как в PackedGameState#makeRandomMove: по колонкам, включая павших
+      for (int defender : ARMY_CELLS[from < ARMY_SIZE ? 1 : 0]) {
+        if (types[base + defender] != NONE) {
+          attack(game, from, defender);
+        }
+      }
+    } else {
+      attack(game, from, to);
+    }
+    movedMask[game] |= 1 << from;
+    if ((aliveMask[game] & ARMY_MASK[0]) == 0) {
+      outcome[game] = SECOND_WIN;
+    }
+    if ((aliveMask[game] & ARMY_MASK[1]) == 0) {
+      outcome[game] = FIRST_WIN;
+    }
+    updateGeneral(game, 0);
+    updateGeneral(game, 1);
+  }
+
+  private void attack(int game, int from, int to) {
+    if (random.nextInt(Dice.FACES) + getAccuracy(game, from) <= getArmor(game, to)) {
+      return;
+    }
+    int index = game * CELLS + to;
+    hp[index] = Math.max(0, hp[index] - getDamage(game, from));
+    if (hp[index] == 0) {
+      aliveMask[game] &= ~(1 << to);
+    }
+  }
+
+  private void changeCurrentPlayer(int game) {
+    if (currentPlayer[game] == 0) {
+      currentPlayer[game] = 1;
+    } else {
+      currentPlayer[game] = 0;
+      movedMask[game] = 0;
+      countRound[game]--;
+      updateGeneral(game, 0);
+      updateGeneral(game, 1);
+    }
+    if (countRound[game] == 0) {
+      int first = Integer.bitCount(aliveMask[game] & ARMY_MASK[0]);
+      int second = Integer.bitCount(aliveMask[game] & ARMY_MASK[1]);
+      outcome[game] = (byte) (first > second ? FIRST_WIN : first < second ? SECOND_WIN : DRAW);
+    }
+  }
+
+  /** Повторяет {@link Army#isAliveGeneral()}: снимает баф с погибшим генералом или накладывает. */
+  private void updateGeneral(int game, int player) {
+    int army = game * 2 + player;
+    int base = game * CELLS;
+    int general = generalCell[army];
+    boolean aliveGeneral = general != NONE && hp[base + general] > 0;
+    int buff = buffType[army];
+    if (aliveGeneral && buff == NONE) {
+      buffType[army] = types[base + general];
+      if (types[base + general] == HEALER) {
+        for (int cell = player * ARMY_SIZE; cell < (player + 1) * ARMY_SIZE; cell++) {
+          if (types[base + cell] != NONE) {
+            hp[base + cell] = getMaxHp(game, cell);
+            aliveMask[game] |= 1 << cell;
+          }
+        }
+      }
+    } else if (!aliveGeneral && buff != NONE) {
+      buffType[army] = NONE;
+      if (buff == HEALER) {
+        for (int cell = player * ARMY_SIZE; cell < (player + 1) * ARMY_SIZE; cell++) {
+          hp[base + cell] = Math.min(hp[base + cell], getMaxHp(game, cell));
+        }
+      }
+    }
+  }
+
+  /** Тип генерала, чей баф действует на армию клетки, или null. */
+  private UnitType buffOf(int game, int cell) {
+    int buff = buffType[game * 2 + (cell < ARMY_SIZE ? 0 : 1)];
+    return buff == NONE ? null : UnitType.byIndex(buff);
+  }
+
+  public int getGames() {
+    return games;
+  }
+
+  public int getOutcome(int game) {
+    return outcome[game];
+  }
+
+  public PlayerType getCurrentPlayer(int game) {
+    return PLAYERS[currentPlayer[game]];
+  }
+
+  public int getCountRound(int game) {
+    return countRound[game];
+  }
+
+  /**
+   * Метод возвращает тип юнита в клетке партии.
+   *
+   * @param game партия.
+   * @param cell клетка.
+   * @return тип или null для пустой клетки.
+   */
+  public UnitType getUnitType(int game, int cell) {
+    int type = types[game * CELLS + cell];
+    return type == NONE ? null : UnitType.byIndex(type);
+  }
+
+  public int getHp(int game, int cell) {
+    return hp[game * CELLS + cell];
+  }
+
+  public boolean isAlive(int game, int cell) {
+    return (aliveMask[game] & 1 << cell) != 0;
+  }
+
+  public int getMaxHp(int game, int cell) {
+    return CombatTables.maxHp(UnitType.byIndex(types[game * CELLS + cell]), buffOf(game, cell));
+  }
+
+  public int getDamage(int game, int cell) {
+    return CombatTables.damage(UnitType.byIndex(types[game * CELLS + cell]), buffOf(game, cell));
+  }
+
+  public int getAccuracy(int game, int cell) {
+    return CombatTables.accuracy(UnitType.byIndex(types[game * CELLS + cell]), buffOf(game, cell));
+  }
+
+  public int getArmor(int game, int cell) {
+    return CombatTables.armor(UnitType.byIndex(types[game * CELLS + cell]), buffOf(game, cell));
+  }
+
+  /** Политика выбора действия в партии. */
+  @FunctionalInterface
+  public interface Policy {
+    /**
+     * Метод выбирает действие.
+     *
+     * @param simulator симулятор, через него можно читать состояние партии.
+     * @param game партия.
+     * @param moves закодированные ходы текущего игрока.
+     * @param count количество ходов, не меньше 1.
+     * @param random источник случайности симулятора.
+     * @return индекс хода в moves или -1, чтобы передать ход.
+     */
+    int choose(BatchSimulator simulator, int game, int[] moves, int count, RandomGenerator random);
+  }
+
+  /**
+   * Итоги партий.
+   *
+   * @param firstWins победы первого игрока.
+   * @param secondWins победы второго игрока.
+   * @param draws ничьи.
+   */
+  public record Result(int firstWins, int secondWins, int draws) {
+    public int games() {
+      return firstWins + secondWins + draws;
+    }
+
+    /**
+     * Метод возвращает долю побед игрока.
+     *
+     * @param playerType игрок.
+     * @return доля побед от 0 до 1.
+     */
+    public double winRate(PlayerType playerType) {
+      int wins = playerType == PlayerType.FIRST_PLAYER ? firstWins : secondWins;
+      return games() == 0 ? 0 : (double) wins / games();
+    }
+  }
+}
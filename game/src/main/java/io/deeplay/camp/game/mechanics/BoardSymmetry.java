@@ -0,0 +1,183 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.Position;
+import io.deeplay.camp.game.entities.Unit;
+
+/**
+ * Симметрия доски. Правила игры не различают левую и правую стороны, поэтому доска и её
+ * отражение по колонкам ({@code x -> COLUMNS - 1 - x}) равноценны. Каноническая ориентация - та из
+ * двух, что меньше при сравнении клеток по полосам; преобразование к ней возвращается, чтобы
+ * результат (ход, расстановку) можно было отобразить обратно. Оба преобразования обратны сами себе.
+ */
+public final class BoardSymmetry {
+  private BoardSymmetry() {}
+
+  /** Преобразование доски. */
+  public enum Transform {
+    IDENTITY,
+    MIRROR;
+
+    /**
+     * Метод возвращает колонку после преобразования.
+     *
+     * @param x колонка.
+     * @return новая колонка.
+     */
+    public int x(int x) {
+      return this == MIRROR ? Board.COLUMNS - 1 - x : x;
+    }
+
+    /**
+     * Метод возвращает клетку {@code y * Board.COLUMNS + x} после преобразования.
+     *
+     * @param cell клетка.
+     * @return новая клетка.
+     */
+    public int cell(int cell) {
+      return cell - cell % Board.COLUMNS + x(cell % Board.COLUMNS);
+    }
+
+    /**
+     * Метод возвращает ход в кодировке {@link PackedGameState#encodeMove(int, int)} после
+     * преобразования.
+     *
+     * @param move закодированный ход.
+     * @return новый закодированный ход.
+     */
+    public int move(int move) {
+      if (this == IDENTITY) {
+        return move;
+      }
+      return PackedGameState.encodeMove(
+          cell(PackedGameState.moveFrom(move)), cell(PackedGameState.moveTo(move)));
+    }
+
+    public Position apply(Position position) {
+      return this == MIRROR ? new Position(x(position.x()), position.y()) : position;
+    }
+
+    /**
+     * Метод преобразует массив юнитов по колонкам: доску ({@link Board#getUnits()}) или
+     * расстановку. Юниты не копируются.
+     *
+     * @param units массив {@code units[x][y]}.
+     * @return новый массив, либо тот же для {@link #IDENTITY}.
+     */
+    public Unit[][] apply(Unit[][] units) {
+      if (this == IDENTITY) {
+        return units;
+      }
+      Unit[][] result = new Unit[units.length][];
+      for (int x = 0; x < units.length; x++) {
+        result[x] = units[units.length - 1 - x].clone();
+      }
+      return result;
+    }
+
+    /**
+     * Метод возвращает преобразованную копию доски.
+     *
+     * @param board доска, не изменяется.
+     * @return новая доска.
+     */
+    public Board apply(Board board) {
+      Board result = new Board();
+      for (int x = 0; x < Board.COLUMNS; x++) {
+        for (int y = 0; y < Board.ROWS; y++) {
+          Unit unit = board.getUnit(x, y);
+          result.setUnit(x(x), y, unit == null ? null : unit.getCopy());
+        }
+      }
+      return result;
+    }
+
+    public Transform inverse() {
+      return this;
+    }
+  }
+
+  /**
+   * Метод возвращает преобразование доски к канонической ориентации.
+   *
+   * @param board доска.
+   * @return {@link Transform#IDENTITY}, если доска уже каноническая или симметрична.
+   */
+  public static Transform canonicalTransform(Board board) {
+    return canonicalTransform(board.getUnits());
+  }
+
+  /**
+   * Метод возвращает преобразование массива юнитов по колонкам (доски или расстановки) к
+   * канонической ориентации.
+   *
+   * @param units массив {@code units[x][y]}.
+   * @return {@link Transform#IDENTITY}, если массив уже канонический или симметричен.
+   */
+  public static Transform canonicalTransform(Unit[][] units) {
+    int columns = units.length;
+    for (int y = 0; y < units[0].length; y++) {
+      for (int x = 0; x < columns / 2; x++) {
+        int compare = Integer.compare(code(units[x][y]), code(units[columns - 1 - x][y]));
+        if (compare != 0) {
+          return compare > 0 ? Transform.MIRROR : Transform.IDENTITY;
+        }
+      }
+    }
+    return Transform.IDENTITY;
+  }
+
+  /**
+   * Метод возвращает Zobrist-ключ отраженного состояния, не строя его.
+   *
+   * @param gameState игровое состояние.
+   * @return ключ отражения.
+   */
+  public static long mirroredKey(GameState gameState) {
+    long key = Zobrist.matchKey(gameState);
+    Board board = gameState.getBoard();
+    for (int x = 0; x < Board.COLUMNS; x++) {
+      for (int y = 0; y < Board.ROWS; y++) {
+        key ^= Zobrist.unitKey(Transform.MIRROR.x(x), y, board.getUnit(x, y));
+      }
+    }
+    return key;
+  }
+
+  /**
+   * Метод возвращает ключ, одинаковый для состояния и его отражения. Подходит для таблиц
+   * транспозиций и кэшей оценок, где значение не зависит от ориентации.
+   *
+   * @param gameState игровое состояние.
+   * @return меньший из ключей состояния и его отражения.
+   */
+  public static long canonicalKey(GameState gameState) {
+    return Math.min(gameState.getZobristKey(), mirroredKey(gameState));
+  }
+
+  /**
+   * Метод возвращает преобразование состояния к ориентации, ключ которой выбирает {@link
+   * #canonicalKey(GameState)}. Через него переводят ходы, сохраненные вместе с каноническим ключом.
+   *
+   * @param gameState игровое состояние.
+   * @return {@link Transform#MIRROR}, если ключ отражения меньше ключа состояния.
+   */
+  public static Transform canonicalKeyTransform(GameState gameState) {
+    return mirroredKey(gameState) < gameState.getZobristKey()
+        ? Transform.MIRROR
+        : Transform.IDENTITY;
+  }
+
+  /** Код клетки для сравнения: пустая клетка меньше любой занятой. */
+  private static int code(Unit unit) {
+    if (unit == null) {
+      return 0;
+    }
+    int code = unit.getUnitType().index() + 1;
+    code = code << 1 | (unit.isGeneral() ? 1 : 0);
+    code = code << 8 | Math.min(Math.max(unit.getCurrentHp(), 0), 0xFF);
+    code = code << 1 | (unit.isMoved() ? 1 : 0);
+    code = code << 1 | (unit.getPlayerType() == PlayerType.SECOND_PLAYER ? 1 : 0);
+    return code;
+  }
+}
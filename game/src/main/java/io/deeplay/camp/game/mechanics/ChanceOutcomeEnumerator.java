@@ -0,0 +1,143 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.AttackType;
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.StateChance;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitType;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.exceptions.GameException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Перебор случайных исходов хода. Каждая цель атаки бросает кубик отдельно, поэтому массовая атака
+ * мага с n живыми целями дает до 2^n исходов. Исходы, приводящие к одинаковому состоянию (по
+ * Zobrist-ключу), объединяются, мертвые цели не перебираются: попадание по ним ничего не меняет.
+ */
+public final class ChanceOutcomeEnumerator {
+  /** Без ограничения количества исходов. */
+  public static final int ALL_OUTCOMES = Integer.MAX_VALUE;
+
+  private ChanceOutcomeEnumerator() {}
+
+  /**
+   * Метод возвращает вероятность попадания: бросок от 0 до {@link Dice#FACES} - 1 плюс точность
+   * атакующего должен быть больше брони цели.
+   *
+   * @param attacker атакующий юнит.
+   * @param defender цель.
+   * @return вероятность от 0 до 1.
+   */
+  public static double hitChance(Unit attacker, Unit defender) {
+    return CombatTables.hitChance(attacker, defender);
+  }
+
+  /**
+   * Метод возвращает вероятность попадания по точности и броне.
+   *
+   * @param accuracy точность атакующего.
+   * @param armor броня цели.
+   * @return вероятность от 0 до 1.
+   */
+  public static double hitChance(int accuracy, int armor) {
+    return CombatTables.hitChance(accuracy, armor);
+  }
+
+  /**
+   * Метод возвращает точное распределение исходов хода.
+   *
+   * @param gameState состояние до хода, не изменяется.
+   * @param move ход.
+   * @return исходы по убыванию вероятности, сумма вероятностей равна 1.
+   * @throws GameException если ход некорректен.
+   */
+  public static List<StateChance> enumerate(GameState gameState, MakeMoveEvent move)
+      throws GameException {
+    return enumerate(gameState, move, ALL_OUTCOMES);
+  }
+
+  /**
+   * Метод возвращает распределение исходов хода, ограниченное самыми вероятными исходами.
+   * Вероятности оставшихся исходов нормируются, чтобы их сумма была равна 1.
+   *
+   * @param gameState состояние до хода, не изменяется.
+   * @param move ход.
+   * @param maxOutcomes максимальное количество исходов.
+   * @return исходы по убыванию вероятности.
+   * @throws GameException если ход некорректен.
+   */
+  public static List<StateChance> enumerate(
+      GameState gameState, MakeMoveEvent move, int maxOutcomes) throws GameException {
+    Board board = gameState.getBoard();
+    Unit attacker = board.getUnit(move.getFrom().x(), move.getFrom().y());
+    if (attacker == null || attacker.getUnitType() == UnitType.HEALER) {
+      GameState outcome = gameState.getCopy();
+      outcome.makeMove(move, GameState.ALL_HIT);
+      return List.of(new StateChance(outcome, 1));
+    }
+
+    List<Integer> targetCells = new ArrayList<>();
+    List<Double> hitChances = new ArrayList<>();
+    if (attacker.getAttackType() == AttackType.MASS_ATTACK) {
+      int startRow = attacker.getPlayerType() == PlayerType.FIRST_PLAYER ? Board.ROWS / 2 : 0;
+      for (int x = 0; x < Board.COLUMNS; x++) {
+        for (int y = startRow; y < startRow + Board.ROWS / 2; y++) {
+          Unit defender = board.getUnit(x, y);
+          if (defender != null && defender.isAlive()) {
+            targetCells.add(y * Board.COLUMNS + x);
+            hitChances.add(hitChance(attacker, defender));
+          }
+        }
+      }
+    } else {
+      Unit defender = board.getUnit(move.getTo().x(), move.getTo().y());
+      targetCells.add(move.getTo().y() * Board.COLUMNS + move.getTo().x());
+      hitChances.add(defender == null ? 0 : hitChance(attacker, defender));
+    }
+
+    Map<Long, StateChance> outcomes = new LinkedHashMap<>();
+    for (int pattern = 0; pattern < 1 << targetCells.size(); pattern++) {
+      double chance = 1;
+      int hitMask = 0;
+      for (int i = 0; i < targetCells.size(); i++) {
+        if ((pattern & 1 << i) != 0) {
+          chance *= hitChances.get(i);
+          hitMask |= 1 << targetCells.get(i);
+        } else {
+          chance *= 1 - hitChances.get(i);
+        }
+      }
+      if (chance == 0) {
+        continue;
+      }
+      GameState outcome = gameState.getCopy();
+      outcome.makeMove(move, hitMask);
+      StateChance same = outcomes.get(outcome.getZobristKey());
+      outcomes.put(
+          outcome.getZobristKey(),
+          same == null
+              ? new StateChance(outcome, chance)
+              : new StateChance(same.gameState(), same.chance() + chance));
+    }
+
+    List<StateChance> result = new ArrayList<>(outcomes.values());
+    result.sort(Comparator.comparingDouble(StateChance::chance).reversed());
+    if (result.size() <= maxOutcomes) {
+      return result;
+    }
+    List<StateChance> top = result.subList(0, maxOutcomes);
+    double total = 0;
+    for (StateChance stateChance : top) {
+      total += stateChance.chance();
+    }
+    List<StateChance> normalized = new ArrayList<>(maxOutcomes);
+    for (StateChance stateChance : top) {
+      normalized.add(new StateChance(stateChance.gameState(), stateChance.chance() / total));
+    }
+    return normalized;
+  }
+}
@@ -0,0 +1,165 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.StatModifier;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitStats;
+import io.deeplay.camp.game.entities.UnitType;
+
+/**
+ * Заранее посчитанные таблицы боя: характеристики юнитов с учетом бафа генерала, вероятности
+ * попадания, ожидаемый урон и хп после попадания. Все методы - одно чтение из массива.
+ *
+ * <p>Атака попадает, если бросок от 0 до {@link Dice#FACES} - 1 плюс точность атакующего больше
+ * брони цели, поэтому вероятность попадания зависит только от разницы точности и брони. Баф армии
+ * задается типом генерала или null, если баф не действует.
+ */
+public final class CombatTables {
+  private static final int TYPES = UnitType.COUNT;
+
+  /** Наибольшее возможное хп юнита с учетом бафа. */
+  public static final int MAX_HP;
+
+  /** Вероятность попадания по разнице точности и брони от -FACES до FACES. */
+  private static final double[] HIT_CHANCE_BY_MARGIN = new double[2 * Dice.FACES + 1];
+
+  // Характеристики по [тип][баф]
+  private static final int[][] MAX_HP_TABLE = new int[TYPES][TYPES + 1];
+  private static final int[][] DAMAGE = new int[TYPES][TYPES + 1];
+  private static final int[][] ACCURACY = new int[TYPES][TYPES + 1];
+  private static final int[][] ARMOR = new int[TYPES][TYPES + 1];
+
+  // По [атакующий][баф атакующего][цель][баф цели]
+  private static final double[][][][] HIT_CHANCE = new double[TYPES][TYPES + 1][TYPES][TYPES + 1];
+  private static final double[][][][] EXPECTED_DAMAGE =
+      new double[TYPES][TYPES + 1][TYPES][TYPES + 1];
+
+  /** Хп цели после попадания по [атакующий][баф атакующего][хп цели]. */
+  private static final int[][][] HP_AFTER_HIT;
+
+  static {
+    for (int margin = -Dice.FACES; margin <= Dice.FACES; margin++) {
+      int hitFaces = Math.min(Math.max(Dice.FACES - 1 + margin, 0), Dice.FACES);
+      HIT_CHANCE_BY_MARGIN[margin + Dice.FACES] = (double) hitFaces / Dice.FACES;
+    }
+    int maxHp = 0;
+    for (UnitType unitType : UnitType.values()) {
+      UnitStats stats = UnitStats.of(unitType);
+      for (int buff = 0; buff <= TYPES; buff++) {
+        StatModifier modifier =
+            buff == 0 ? StatModifier.NONE : StatModifier.buff(UnitType.byIndex(buff - 1));
+        MAX_HP_TABLE[unitType.index()][buff] = stats.maxHp() + modifier.maxHp();
+        DAMAGE[unitType.index()][buff] = stats.damage() + modifier.damage();
+        ACCURACY[unitType.index()][buff] = stats.accuracy() + modifier.accuracy();
+        ARMOR[unitType.index()][buff] = stats.armor() + modifier.armor();
+        maxHp = Math.max(maxHp, MAX_HP_TABLE[unitType.index()][buff]);
+      }
+    }
+    MAX_HP = maxHp;
+    HP_AFTER_HIT = new int[TYPES][TYPES + 1][MAX_HP + 1];
+    for (int attacker = 0; attacker < TYPES; attacker++) {
+      for (int attackerBuff = 0; attackerBuff <= TYPES; attackerBuff++) {
+        for (int hp = 0; hp <= MAX_HP; hp++) {
+          HP_AFTER_HIT[attacker][attackerBuff][hp] =
+              Math.max(0, hp - DAMAGE[attacker][attackerBuff]);
+        }
+        for (int defender = 0; defender < TYPES; defender++) {
+          for (int defenderBuff = 0; defenderBuff <= TYPES; defenderBuff++) {
+            double chance =
+                hitChance(ACCURACY[attacker][attackerBuff], ARMOR[defender][defenderBuff]);
+            HIT_CHANCE[attacker][attackerBuff][defender][defenderBuff] = chance;
+            EXPECTED_DAMAGE[attacker][attackerBuff][defender][defenderBuff] =
+                chance * DAMAGE[attacker][attackerBuff];
+          }
+        }
+      }
+    }
+  }
+
+  private CombatTables() {}
+
+  /** Индекс бафа в таблицах: 0 - без бафа. */
+  private static int buff(UnitType generalType) {
+    return generalType == null ? 0 : generalType.index() + 1;
+  }
+
+  /**
+   * Метод возвращает вероятность попадания по точности и броне.
+   *
+   * @param accuracy точность атакующего.
+   * @param armor броня цели.
+   * @return вероятность от 0 до 1.
+   */
+  public static double hitChance(int accuracy, int armor) {
+    int margin = Math.min(Math.max(accuracy - armor, -Dice.FACES), Dice.FACES);
+    return HIT_CHANCE_BY_MARGIN[margin + Dice.FACES];
+  }
+
+  /**
+   * Метод возвращает вероятность попадания юнита по юниту с их текущими характеристиками.
+   *
+   * @param attacker атакующий юнит.
+   * @param defender цель.
+   * @return вероятность от 0 до 1.
+   */
+  public static double hitChance(Unit attacker, Unit defender) {
+    return hitChance(attacker.getAccuracy(), defender.getArmor());
+  }
+
+  /**
+   * Метод возвращает вероятность попадания по типам юнитов и бафам их армий.
+   *
+   * @param attacker тип атакующего.
+   * @param attackerBuff тип генерала, чей баф действует на атакующего, или null.
+   * @param defender тип цели.
+   * @param defenderBuff тип генерала, чей баф действует на цель, или null.
+   * @return вероятность от 0 до 1.
+   */
+  public static double hitChance(
+      UnitType attacker, UnitType attackerBuff, UnitType defender, UnitType defenderBuff) {
+    return HIT_CHANCE[attacker.index()][buff(attackerBuff)][defender.index()][
+        buff(defenderBuff)];
+  }
+
+  /**
+   * Метод возвращает ожидаемый урон одной атаки с учетом вероятности промаха.
+   *
+   * @param attacker тип атакующего.
+   * @param attackerBuff тип генерала, чей баф действует на атакующего, или null.
+   * @param defender тип цели.
+   * @param defenderBuff тип генерала, чей баф действует на цель, или null.
+   * @return ожидаемый урон.
+   */
+  public static double expectedDamage(
+      UnitType attacker, UnitType attackerBuff, UnitType defender, UnitType defenderBuff) {
+    return EXPECTED_DAMAGE[attacker.index()][buff(attackerBuff)][defender.index()][
+        buff(defenderBuff)];
+  }
+
+  /**
+   * Метод возвращает хп цели после попадания.
+   *
+   * @param attacker тип атакующего.
+   * @param attackerBuff тип генерала, чей баф действует на атакующего, или null.
+   * @param hp хп цели до попадания, от 0 до {@link #MAX_HP}.
+   * @return хп после попадания, не меньше 0.
+   */
+  public static int hpAfterHit(UnitType attacker, UnitType attackerBuff, int hp) {
+    return HP_AFTER_HIT[attacker.index()][buff(attackerBuff)][hp];
+  }
+
+  public static int maxHp(UnitType unitType, UnitType buff) {
+    return MAX_HP_TABLE[unitType.index()][buff(buff)];
+  }
+
+  public static int damage(UnitType unitType, UnitType buff) {
+    return DAMAGE[unitType.index()][buff(buff)];
+  }
+
+  public static int accuracy(UnitType unitType, UnitType buff) {
+    return ACCURACY[unitType.index()][buff(buff)];
+  }
+
+  public static int armor(UnitType unitType, UnitType buff) {
+    return ARMOR[unitType.index()][buff(buff)];
+  }
+}
@@ -0,0 +1,37 @@
+package io.deeplay.camp.game.mechanics;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Источник бросков кубика для атак юнитов. Бросок - число от 0 до {@link #FACES} - 1, атака попадает,
+ * если бросок плюс точность атакующего больше брони цели.
+ *
+ * <p>По умолчанию используется {@link #THREAD_LOCAL}: у каждого потока свой генератор, поэтому
+ * параллельные симуляции не конкурируют за общее состояние. Для воспроизводимых партий используется
+ * {@link SeededDice}.
+ */
+@FunctionalInterface
+public interface Dice {
+  /** Количество граней кубика. */
+  int FACES = 20;
+
+  /** Кубик на {@link ThreadLocalRandom}, не воспроизводим. */
+  Dice THREAD_LOCAL = () -> ThreadLocalRandom.current().nextInt(FACES);
+
+  /**
+   * Метод бросает кубик.
+   *
+   * @return число от 0 до {@link #FACES} - 1.
+   */
+  int roll();
+
+  /**
+   * Метод возвращает независимый кубик для другого потока или копии игрового состояния. Кубики без
+   * собственного состояния возвращают себя.
+   *
+   * @return кубик, который можно передать другому потоку.
+   */
+  default Dice split() {
+    return this;
+  }
+}
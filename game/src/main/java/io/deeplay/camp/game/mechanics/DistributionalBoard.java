@@ -0,0 +1,296 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.Army;
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitType;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Вероятностная доска для оценки ожидаемого исхода ходов за один проход.
+ *
+ * <p>Хп каждого юнита хранится распределением: {@code hp[cell][h]} - вероятность того, что у юнита
+ * ровно h хп. Ход не ветвится на попадание и промах, а пересчитывает распределения целей по
+ * вероятности попадания из {@link CombatTables}, поэтому последовательность из k ходов стоит O(k),
+ * а не O(2^k) состояний. Ход учитывается с вероятностью того, что атакующий жив.
+ *
+ * <p>Доска - приближение: клетки считаются независимыми, баф генерала учитывается смесью по
+ * вероятности того, что генерал жив, а изменение хп при снятии бафа лекаря не моделируется. Для
+ * одного хода ожидаемые хп совпадают с точным перебором {@link ChanceOutcomeEnumerator}.
+ */
+public final class DistributionalBoard {
+  private static final int CELLS = PackedGameState.CELLS;
+  private static final int ARMY_SIZE = PackedGameState.ARMY_SIZE;
+
+  /** Длина распределения: от 0 до наибольшего возможного хп. */
+  private static final int HP_LENGTH = CombatTables.MAX_HP + 1;
+
+  private final UnitType[] types;
+  private final double[][] hp;
+
+  /** Клетка генерала армии или -1, если армия без бафа. */
+  private final int[] generalCell;
+
+  /** Тип генерала армии, чей баф действовал в начале, или null. */
+  private final UnitType[] buffs;
+  private double[] scratch = new double[HP_LENGTH];
+
+  private DistributionalBoard(
+      UnitType[] types, double[][] hp, int[] generalCell, UnitType[] buffs) {
+    this.types = types;
+    this.hp = hp;
+    this.generalCell = generalCell;
+    this.buffs = buffs;
+  }
+
+  /**
+   * Метод строит вероятностную доску по игровому состоянию: хп каждого юнита известно точно.
+   *
+   * @param gameState игровое состояние, не изменяется.
+   * @return вероятностная доска.
+   */
+  public static DistributionalBoard of(GameState gameState) {
+    Board board = gameState.getBoard();
+    UnitType[] types = new UnitType[CELLS];
+    double[][] hp = new double[CELLS][];
+    for (int cell = 0; cell < CELLS; cell++) {
+      Unit unit = board.getUnit(PackedGameState.x(cell), PackedGameState.y(cell));
+      if (unit != null) {
+        types[cell] = unit.getUnitType();
+        hp[cell] = new double[HP_LENGTH];
+        hp[cell][Math.min(Math.max(unit.getCurrentHp(), 0), HP_LENGTH - 1)] = 1;
+      }
+    }
+    int[] generalCell = {-1, -1};
+    UnitType[] buffs = new UnitType[2];
+    Army[] armies = {gameState.getArmyFirst(), gameState.getArmySecond()};
+    for (int player = 0; player < 2; player++) {
+      if (!armies[player].isBuffed() || armies[player].getGeneralType() == null) {
+        continue;
+      }
+      buffs[player] = armies[player].getGeneralType();
+      for (int cell = player * ARMY_SIZE; cell < (player + 1) * ARMY_SIZE; cell++) {
+        Unit unit = board.getUnit(PackedGameState.x(cell), PackedGameState.y(cell));
+        if (unit != null && unit.isGeneral()) {
+          generalCell[player] = cell;
+        }
+      }
+    }
+    return new DistributionalBoard(types, hp, generalCell, buffs);
+  }
+
+  /**
+   * Метод создает независимую копию доски.
+   *
+   * @return копия.
+   */
+  public DistributionalBoard getCopy() {
+    double[][] hpCopy = new double[CELLS][];
+    for (int cell = 0; cell < CELLS; cell++) {
+      hpCopy[cell] = hp[cell] == null ? null : hp[cell].clone();
+    }
+    return new DistributionalBoard(types, hpCopy, generalCell.clone(), buffs);
+  }
+
+  /**
+   * Метод применяет ход.
+   *
+   * @param move ход.
+   */
+  public void makeMove(MakeMoveEvent move) {
+    makeMove(PackedGameState.encodeMove(move));
+  }
+
+  /**
+   * Метод применяет последовательность ходов, например все ходы игрока за раунд.
+   *
+   * @param moves ходы.
+   */
+  public void makeMoves(List<MakeMoveEvent> moves) {
+    for (MakeMoveEvent move : moves) {
+      makeMove(move);
+    }
+  }
+
+  /**
+   * Метод применяет закодированный ход {@link PackedGameState#encodeMove(int, int)}. Атака по
+   * мертвой цели ничего не меняет, как и в игре, где такой ход невозможен.
+   *
+   * @param move закодированный ход.
+   */
+  public void makeMove(int move) {
+    int from = PackedGameState.moveFrom(move);
+    int to = PackedGameState.moveTo(move);
+    if (types[from] == null) {
+      return;
+    }
+    double moveChance = getAliveProbability(from);
+    if (types[from] == UnitType.HEALER) {
+      heal(from, to, moveChance);
+    } else if (types[from] == UnitType.MAGE) {
+      int enemyStart = from < ARMY_SIZE ? ARMY_SIZE : 0;
+      for (int defender = enemyStart; defender < enemyStart + ARMY_SIZE; defender++) {
+        if (types[defender] != null) {
+          attack(from, defender, moveChance);
+        }
+      }
+    } else {
+      attack(from, to, moveChance);
+    }
+  }
+
+  private void attack(int attacker, int defender, double moveChance) {
+    double[] current = hp[defender];
+    double[] next = clearScratch();
+    double missChance = 1;
+    for (int attackerBuffed = 0; attackerBuffed < 2; attackerBuffed++) {
+      double attackerWeight = buffWeight(attacker, attackerBuffed == 1);
+      UnitType attackerBuff = buff(attacker, attackerBuffed == 1);
+      for (int defenderBuffed = 0; defenderBuffed < 2; defenderBuffed++) {
+        UnitType defenderBuff = buff(defender, defenderBuffed == 1);
+        double chance =
+            moveChance
+                * attackerWeight
+                * buffWeight(defender, defenderBuffed == 1)
+                * CombatTables.hitChance(
+                    types[attacker], attackerBuff, types[defender], defenderBuff);
+        if (chance == 0) {
+          continue;
+        }
+        for (int h = 0; h < HP_LENGTH; h++) {
+          next[CombatTables.hpAfterHit(types[attacker], attackerBuff, h)] += chance * current[h];
+        }
+        missChance -= chance;
+      }
+    }
+    for (int h = 0; h < HP_LENGTH; h++) {
+      next[h] += missChance * current[h];
+    }
+    swap(defender, next);
+  }
+
+  private void heal(int healer, int target, double moveChance) {
+    double[] current = hp[target];
+    double[] next = clearScratch();
+    // Мертвый юнит не лечится
+    next[0] = current[0];
+    double skipChance = 1;
+    for (int buffed = 0; buffed < 2; buffed++) {
+      double chance = moveChance * buffWeight(healer, buffed == 1);
+      if (chance == 0) {
+        continue;
+      }
+      int amount = CombatTables.damage(types[healer], buff(healer, buffed == 1));
+      int maxHp = CombatTables.maxHp(types[target], buff(target, buffed == 1));
+      for (int h = 1; h < HP_LENGTH; h++) {
+        next[Math.min(maxHp, h + amount)] += chance * current[h];
+      }
+      skipChance -= chance;
+    }
+    for (int h = 1; h < HP_LENGTH; h++) {
+      next[h] += skipChance * current[h];
+    }
+    swap(target, next);
+  }
+
+  private double[] clearScratch() {
+    Arrays.fill(scratch, 0);
+    return scratch;
+  }
+
+  private void swap(int cell, double[] next) {
+    scratch = hp[cell];
+    hp[cell] = next;
+  }
+
+  /** Вероятность того, что на армию клетки действует (или не действует) баф генерала. */
+  private double buffWeight(int cell, boolean buffed) {
+    int general = generalCell[cell < ARMY_SIZE ? 0 : 1];
+    double aliveGeneral = general < 0 ? 0 : getAliveProbability(general);
+    return buffed ? aliveGeneral : 1 - aliveGeneral;
+  }
+
+  private UnitType buff(int cell, boolean buffed) {
+    return buffed ? buffs[cell < ARMY_SIZE ? 0 : 1] : null;
+  }
+
+  /**
+   * Метод возвращает тип юнита в клетке.
+   *
+   * @param cell клетка.
+   * @return тип или null для пустой клетки.
+   */
+  public UnitType getUnitType(int cell) {
+    return types[cell];
+  }
+
+  /**
+   * Метод возвращает вероятность того, что юнит в клетке жив.
+   *
+   * @param cell клетка.
+   * @return вероятность, 0 для пустой клетки.
+   */
+  public double getAliveProbability(int cell) {
+    return hp[cell] == null ? 0 : 1 - hp[cell][0];
+  }
+
+  /**
+   * Метод возвращает математическое ожидание хп юнита.
+   *
+   * @param cell клетка.
+   * @return ожидаемое хп, 0 для пустой клетки.
+   */
+  public double getExpectedHp(int cell) {
+    if (hp[cell] == null) {
+      return 0;
+    }
+    double expected = 0;
+    for (int h = 1; h < HP_LENGTH; h++) {
+      expected += h * hp[cell][h];
+    }
+    return expected;
+  }
+
+  /**
+   * Метод возвращает распределение хп юнита.
+   *
+   * @param cell клетка.
+   * @return копия распределения, где элемент h - вероятность ровно h хп, или null для пустой
+   *     клетки.
+   */
+  public double[] getHpDistribution(int cell) {
+    return hp[cell] == null ? null : hp[cell].clone();
+  }
+
+  /**
+   * Метод возвращает ожидаемое количество живых юнитов игрока.
+   *
+   * @param playerType игрок.
+   * @return ожидаемое количество живых юнитов.
+   */
+  public double getExpectedAliveCount(PlayerType playerType) {
+    int start = playerType == PlayerType.FIRST_PLAYER ? 0 : ARMY_SIZE;
+    double count = 0;
+    for (int cell = start; cell < start + ARMY_SIZE; cell++) {
+      count += getAliveProbability(cell);
+    }
+    return count;
+  }
+
+  /**
+   * Метод возвращает ожидаемое суммарное хп армии игрока.
+   *
+   * @param playerType игрок.
+   * @return ожидаемое суммарное хп.
+   */
+  public double getExpectedTotalHp(PlayerType playerType) {
+    int start = playerType == PlayerType.FIRST_PLAYER ? 0 : ARMY_SIZE;
+    double total = 0;
+    for (int cell = start; cell < start + ARMY_SIZE; cell++) {
+      total += getExpectedHp(cell);
+    }
+    return total;
+  }
+}
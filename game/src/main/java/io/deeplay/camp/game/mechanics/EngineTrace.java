@@ -0,0 +1,90 @@
+package io.deeplay.camp.game.mechanics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.MessageFormatter;
+
+/**
+ * Трассировка движка для горячих мест: проверок ходов, расстановки и обхода доски. По умолчанию
+ * выключена: флаг {@link #ENABLED} - static final, поэтому JIT убирает проверку вместе с вызовом, и
+ * симуляции ботов не платят ни за упаковку аргументов, ни за SLF4J. Включается свойством
+ * {@code -Ddeeplay.engine.trace=true}, например для живых партий на сервере.
+ *
+ * <p>Вызов всегда оборачивается в проверку флага:
+ *
+ * <pre>{@code
+ * if (EngineTrace.ENABLED) {
+ *   EngineTrace.trace("Empty cell (X-{},Y-{})", x, y);
+ * }
+ * }</pre>
+ *
+ * <p>Включенная трассировка пишет события в кольцевой буфер последних событий (размер задается
+ * свойством {@code deeplay.engine.trace.size}) и дублирует их в лог на уровне DEBUG.
+ */
+public final class EngineTrace {
+  /** Включена ли трассировка. */
+  public static final boolean ENABLED = Boolean.getBoolean("deeplay.engine.trace");
+
+  private static final int CAPACITY = Math.max(Integer.getInteger("deeplay.engine.trace.size", 1024), 1);
+  private static final AtomicReferenceArray<Event> EVENTS = new AtomicReferenceArray<>(CAPACITY);
+  private static final AtomicLong NEXT = new AtomicLong();
+  private static final Logger logger = LoggerFactory.getLogger(EngineTrace.class);
+
+  private EngineTrace() {}
+
+  /**
+   * Метод записывает событие. Сообщение форматируется сразу, так как аргументы (юниты, доска)
+   * меняются дальше по ходу партии.
+   *
+   * @param format сообщение с плейсхолдерами {@code {}} как в SLF4J.
+   * @param args аргументы сообщения.
+   */
+  public static void trace(String format, Object... args) {
+    String message = MessageFormatter.arrayFormat(format, args).getMessage();
+    long index = NEXT.getAndIncrement();
+    EVENTS.set(
+        (int) (index % CAPACITY),
+        new Event(index, System.nanoTime(), Thread.currentThread().getName(), message));
+    logger.debug(message);
+  }
+
+  /**
+   * Метод возвращает последние события от старых к новым.
+   *
+   * @return не больше размера буфера событий.
+   */
+  public static List<Event> recentEvents() {
+    long end = NEXT.get();
+    long start = Math.max(0, end - CAPACITY);
+    List<Event> events = new ArrayList<>((int) (end - start));
+    for (long index = start; index < end; index++) {
+      Event event = EVENTS.get((int) (index % CAPACITY));
+      // Событие могли перезаписать параллельно, такие пропускаем
+      if (event != null && event.sequence() == index) {
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  /** Метод очищает буфер событий. */
+  public static void clear() {
+    for (int i = 0; i < CAPACITY; i++) {
+      EVENTS.set(i, null);
+    }
+  }
+
+  /**
+   * Событие движка.
+   *
+   * @param sequence порядковый номер события.
+   * @param nanoTime время записи по {@link System#nanoTime()}.
+   * @param threadName поток, записавший событие.
+   * @param message сообщение.
+   */
+  public record Event(long sequence, long nanoTime, String threadName, String message) {}
+}
@@ -1,8 +1,45 @@
 package io.deeplay.camp.game.mechanics;
 
 public enum GameStage {
-  PLACEMENT_STAGE,
-  GENERAL_CHOOSE_STAGE,
-  MOVEMENT_STAGE,
-  ENDED
+  PLACEMENT_STAGE(0),
+  GENERAL_CHOOSE_STAGE(1),
+  MOVEMENT_STAGE(2),
+  ENDED(3);
+
+  /** Количество стадий. */
+  public static final int COUNT = 4;
+
+  private static final GameStage[] BY_INDEX = new GameStage[COUNT];
+
+  static {
+    for (GameStage gameStage : values()) {
+      BY_INDEX[gameStage.index] = gameStage;
+    }
+  }
+
+  /** Номер стадии в таблицах, от 0 до {@link #COUNT}. */
+  private final int index;
+
+  GameStage(int index) {
+    this.index = index;
+  }
+
+  /**
+   * Метод возвращает номер стадии в таблицах. Номер задан явно и не зависит от порядка констант.
+   *
+   * @return номер от 0 до {@link #COUNT}.
+   */
+  public int index() {
+    return index;
+  }
+
+  /**
+   * Метод возвращает стадию по номеру.
+   *
+   * @param index номер из {@link #index()}.
+   * @return стадия.
+   */
+  public static GameStage byIndex(int index) {
+    return BY_INDEX[index];
+  }
 }
@@ -11,6 +11,7 @@ import io.deeplay.camp.game.exceptions.GameException;
 
 import java.util.*;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
@@ -22,11 +23,14 @@ import org.slf4j.LoggerFactory;
 public class GameState {
 
     private static final Logger logger = LoggerFactory.getLogger(GameState.class);
+    /** Маска исхода, при котором атака попадает по всем целям. */
+    public static final int ALL_HIT = -1;
+    /** Буфер ходов для {@link #getPossibleMoves()}, свой у каждого потока. */
+    private static final ThreadLocal<int[]> MOVE_BUFFER =
+            ThreadLocal.withInitial(() -> new int[PackedGameState.MAX_MOVES]);
 
     private Board board;
     private GameStage gameStage;
-    @Setter
-    @Getter
     private PlayerType currentPlayer;
     @JsonIgnore
     private Army armyFirst;
@@ -34,6 +38,24 @@ public class GameState {
     private Army armySecond;
     private int countRound = 10;
     private PlayerType winner;
+    /**
+     * Zobrist-ключ состояния, см. {@link Zobrist}. Считается при первом запросе и дальше обновляется
+     * ходами и сменой игрока.
+     */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long zobristKey;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean zobristKnown;
+    /**
+     * Кубик для атак, которые разыгрываются броском. Копия состояния получает свой кубик через
+     * {@link Dice#split()}, поэтому броски в копиях не сдвигают броски партии.
+     */
+    @JsonIgnore
+    private Dice dice = Dice.THREAD_LOCAL;
 
     public GameState() {
         board = new Board();
@@ -53,14 +75,21 @@ public class GameState {
         this.currentPlayer = gameState.currentPlayer;
         this.countRound = gameState.countRound;
         this.winner = gameState.winner;
+        this.zobristKey = gameState.zobristKey;
+        this.zobristKnown = gameState.zobristKnown;
+        this.dice = gameState.dice.split();
     }
 
     public void changeCurrentPlayer() {
+        long matchKeyBefore = zobristKnown ? Zobrist.matchKey(this) : 0;
         if (currentPlayer == PlayerType.FIRST_PLAYER) {
             currentPlayer = PlayerType.SECOND_PLAYER;
         } else {
             currentPlayer = PlayerType.FIRST_PLAYER;
             if (gameStage == GameStage.MOVEMENT_STAGE) {
+                if (zobristKnown) {
+                    zobristKey ^= movedUnitsKey();
+                }
                 armyFirst.updateArmy();
                 armySecond.updateArmy();
                 countRound--;
@@ -68,13 +97,18 @@ public class GameState {
             if (gameStage == GameStage.PLACEMENT_STAGE) {
                 gameStage = GameStage.MOVEMENT_STAGE;
             }
-            armyFirst.isAliveGeneral();
-            armySecond.isAliveGeneral();
+            updateGeneral(armyFirst, 0);
+            updateGeneral(armySecond, Board.ROWS / 2);
         }
         if (countRound == 0) {
             winner = winnerOrDraw();
             gameStage = GameStage.ENDED;
-            logger.atInfo().log("Result {}, game is {}", winner, gameStage);
+            if (EngineTrace.ENABLED) {
+                EngineTrace.trace("Result {}, game is {}", winner, gameStage);
+            }
+        }
+        if (zobristKnown) {
+            zobristKey ^= matchKeyBefore ^ Zobrist.matchKey(this);
         }
     }
 
@@ -83,11 +117,12 @@ public class GameState {
         if (isValidMove(move)) {
             Unit attacker = board.getUnit(move.getFrom().x(), move.getFrom().y());
             List<Defender> defenders = new ArrayList<>();
+            long keyBefore = zobristKnown ? touchedKey(move, attacker) : 0;
 
             if (attacker.getAttackType() == AttackType.MASS_ATTACK) {
                 if (attacker.getPlayerType() == PlayerType.FIRST_PLAYER) {
                     for (Unit defender : armySecond.getUnits()) {
-                        attacker.playMove(defender);
+                        attacker.playMove(defender, dice);
                         if (attacker.isHitTarget()) {
                             Defender unitDefender = new Defender(defender, true);
                             defenders.add(unitDefender);
@@ -98,7 +133,7 @@ public class GameState {
                     }
                 } else {
                     for (Unit defender : armyFirst.getUnits()) {
-                        attacker.playMove(defender);
+                        attacker.playMove(defender, dice);
                         if (attacker.isHitTarget()) {
                             Defender unitDefender = new Defender(defender, true);
                             defenders.add(unitDefender);
@@ -111,7 +146,7 @@ public class GameState {
                 attackResult.add(new AttackInfo(attacker, defenders));
             } else {
                 Unit defender = board.getUnit(move.getTo().x(), move.getTo().y());
-                attacker.playMove(defender);
+                attacker.playMove(defender, dice);
                 if (attacker.isHitTarget()) {
                     Defender unitDefender = new Defender(defender, true);
                     defenders.add(unitDefender);
@@ -121,20 +156,226 @@ public class GameState {
                 }
                 attackResult.add(new AttackInfo(attacker, defenders));
             }
-            logger.atInfo().log(
-                    "This {}({},{}) attack enemy or heal ({},{})",
-                    move.getAttacker().getUnitType(),
-                    move.getFrom().x(),
-                    move.getFrom().y(),
-                    move.getTo().x(),
-                    move.getTo().y());
-            allUnitsDeadByPlayer();
-            armyFirst.isAliveGeneral();
-            armySecond.isAliveGeneral();
+            if (EngineTrace.ENABLED) {
+                EngineTrace.trace(
+                        "This {}({},{}) attack enemy or heal ({},{})",
+                        move.getAttacker().getUnitType(),
+                        move.getFrom().x(),
+                        move.getFrom().y(),
+                        move.getTo().x(),
+                        move.getTo().y());
+            }
+            finishMove(move, attacker, keyBefore);
         }
         return attackResult;
     }
 
+    /**
+     * Метод делает ход с заранее заданным исходом и возвращает запись для его отмены. Позволяет
+     * перебирать дерево на одном изменяемом состоянии без копирования.
+     *
+     * @param move ход.
+     * @param hit true - атака попадает по всем целям, false - промахивается. Лечение проходит всегда.
+     * @return запись для {@link #undo(UndoRecord)}.
+     * @throws GameException если ход некорректен.
+     */
+    public UndoRecord makeMove(MakeMoveEvent move, boolean hit) throws GameException {
+        return makeMove(move, hit ? ALL_HIT : 0);
+    }
+
+    /**
+     * Метод делает ход с заранее заданным исходом для каждой цели и возвращает запись для его
+     * отмены. Нужен для перебора исходов массовой атаки, где каждая цель бросает кубик отдельно.
+     *
+     * @param move ход.
+     * @param hitMask маска клеток {@code y * Board.COLUMNS + x}, по которым атака попадает. Лечение
+     *     проходит всегда.
+     * @return запись для {@link #undo(UndoRecord)}.
+     * @throws GameException если ход некорректен.
+     */
+    public UndoRecord makeMove(MakeMoveEvent move, int hitMask) throws GameException {
+        UndoRecord undoRecord = new UndoRecord(this);
+        if (isValidMove(move)) {
+            Unit attacker = board.getUnit(move.getFrom().x(), move.getFrom().y());
+            long keyBefore = zobristKnown ? touchedKey(move, attacker) : 0;
+            if (attacker.getAttackType() == AttackType.MASS_ATTACK) {
+                // Обход в порядке армии: колонки, внутри колонки полосы
+                int startRow = attacker.getPlayerType() == PlayerType.FIRST_PLAYER ? Board.ROWS / 2 : 0;
+                for (int x = 0; x < Board.COLUMNS; x++) {
+                    for (int y = startRow; y < startRow + Board.ROWS / 2; y++) {
+                        Unit defender = board.getUnit(x, y);
+                        if (defender != null) {
+                            attacker.playMove(defender, (hitMask & 1 << (y * Board.COLUMNS + x)) != 0);
+                        }
+                    }
+                }
+            } else {
+                int to = move.getTo().y() * Board.COLUMNS + move.getTo().x();
+                attacker.playMove(board.getUnit(move.getTo().x(), move.getTo().y()), (hitMask & 1 << to) != 0);
+            }
+            finishMove(move, attacker, keyBefore);
+        }
+        return undoRecord;
+    }
+
+    /**
+     * Общее завершение хода: проверка конца игры, бафы генералов и обновление Zobrist-ключа.
+     *
+     * @param keyBefore ключ задетых ходом клеток до атаки.
+     */
+    private void finishMove(MakeMoveEvent move, Unit attacker, long keyBefore) {
+        long matchKeyBefore = zobristKnown ? Zobrist.matchKey(this) : 0;
+        if (zobristKnown) {
+            zobristKey ^= keyBefore ^ touchedKey(move, attacker);
+        }
+        if (attacker.getAttackType() == AttackType.MASS_ATTACK) {
+            (attacker.getPlayerType() == PlayerType.FIRST_PLAYER ? armySecond : armyFirst).refreshAlive();
+        } else {
+            armyFirst.refreshAlive(move.getTo().x(), move.getTo().y());
+            armySecond.refreshAlive(move.getTo().x(), move.getTo().y());
+        }
+        allUnitsDeadByPlayer();
+        updateGeneral(armyFirst, 0);
+        updateGeneral(armySecond, Board.ROWS / 2);
+        if (zobristKnown) {
+            zobristKey ^= matchKeyBefore ^ Zobrist.matchKey(this);
+        }
+    }
+
+    /**
+     * Вызывает {@link Army#isAliveGeneral()}. Если баф снимается или накладывается, хп юнитов армии
+     * могут измениться, поэтому ключ её клеток пересчитывается.
+     */
+    private void updateGeneral(Army army, int startRow) {
+        if (!zobristKnown || !army.isBuffChangePending()) {
+            army.isAliveGeneral();
+            return;
+        }
+        long keyBefore = rowsKey(startRow, startRow + Board.ROWS / 2);
+        army.isAliveGeneral();
+        zobristKey ^= keyBefore ^ rowsKey(startRow, startRow + Board.ROWS / 2);
+    }
+
+    /** Ключ клеток, которые меняет ход: атакующий и цель, либо вся армия противника у мага. */
+    private long touchedKey(MakeMoveEvent move, Unit attacker) {
+        int fromX = move.getFrom().x();
+        int fromY = move.getFrom().y();
+        long key = Zobrist.unitKey(fromX, fromY, board.getUnit(fromX, fromY));
+        if (attacker.getAttackType() == AttackType.MASS_ATTACK) {
+            int startRow = attacker.getPlayerType() == PlayerType.FIRST_PLAYER ? Board.ROWS / 2 : 0;
+            return key ^ rowsKey(startRow, startRow + Board.ROWS / 2);
+        }
+        int toX = move.getTo().x();
+        int toY = move.getTo().y();
+        if (toX != fromX || toY != fromY) {
+            key ^= Zobrist.unitKey(toX, toY, board.getUnit(toX, toY));
+        }
+        return key;
+    }
+
+    private long rowsKey(int startRow, int endRow) {
+        long key = 0;
+        for (int x = 0; x < Board.COLUMNS; x++) {
+            for (int y = startRow; y < endRow; y++) {
+                key ^= Zobrist.unitKey(x, y, board.getUnit(x, y));
+            }
+        }
+        return key;
+    }
+
+    private long movedUnitsKey() {
+        long key = 0;
+        for (int x = 0; x < Board.COLUMNS; x++) {
+            for (int y = 0; y < Board.ROWS; y++) {
+                Unit unit = board.getUnit(x, y);
+                if (unit != null && unit.isMoved()) {
+                    key ^= Zobrist.movedKey(x, y);
+                }
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Метод возвращает 64-битный Zobrist-ключ состояния. Ключ обновляется ходами и сменой игрока;
+     * после прямого изменения юнитов на доске нужно вызвать {@link #recomputeZobristKey()}.
+     *
+     * @return ключ состояния.
+     */
+    public long getZobristKey() {
+        if (!zobristKnown) {
+            recomputeZobristKey();
+        }
+        return zobristKey;
+    }
+
+    /**
+     * Метод возвращает примитивный ключ состояния для хеш-таблиц - {@link #getZobristKey()}.
+     *
+     * @return ключ состояния.
+     */
+    public long key() {
+        return getZobristKey();
+    }
+
+    /** Метод пересчитывает Zobrist-ключ с нуля. */
+    public void recomputeZobristKey() {
+        zobristKey = Zobrist.compute(this);
+        zobristKnown = true;
+    }
+
+    /** Восстановление ключа при отмене хода. */
+    void restoreZobristKey(long zobristKey) {
+        this.zobristKey = zobristKey;
+        this.zobristKnown = true;
+    }
+
+    public void setBoard(Board board) {
+        this.board = board;
+        zobristKnown = false;
+    }
+
+    public void setGameStage(GameStage gameStage) {
+        this.gameStage = gameStage;
+        zobristKnown = false;
+    }
+
+    public void setCurrentPlayer(PlayerType currentPlayer) {
+        this.currentPlayer = currentPlayer;
+        zobristKnown = false;
+    }
+
+    public void setCountRound(int countRound) {
+        this.countRound = countRound;
+        zobristKnown = false;
+    }
+
+    public void setWinner(PlayerType winner) {
+        this.winner = winner;
+        zobristKnown = false;
+    }
+
+    /**
+     * Метод передает ход другому игроку и возвращает запись для отмены.
+     *
+     * @return запись для {@link #undo(UndoRecord)}.
+     */
+    public UndoRecord changeCurrentPlayerWithUndo() {
+        UndoRecord undoRecord = new UndoRecord(this);
+        changeCurrentPlayer();
+        return undoRecord;
+    }
+
+    /**
+     * Метод отменяет действие, вернув состояние к моменту создания записи. Записи отменяются в
+     * обратном порядке.
+     *
+     * @param undoRecord запись, полученная от этого состояния.
+     */
+    public void undo(UndoRecord undoRecord) {
+        undoRecord.restore(this);
+    }
+
     public void makeComplexMove(List<MakeMoveEvent> moves) throws GameException {
         for (MakeMoveEvent moveEvent : moves) {
             isValidMove(moveEvent);
@@ -143,14 +384,30 @@ public class GameState {
         changeCurrentPlayer();
     }
 
+    /**
+     * Метод возвращает возможные комплексные ходы - наборы ходов до конца хода игрока. Перестановки
+     * одного набора приводят к одному состоянию, поэтому перебор запоминает пройденные пары
+     * (состояние после ходов, набор ходов) и возвращает каждый набор один раз. Ходы применяются с
+     * промахом, как и раньше. Вероятностное дерево хода целиком строит {@link TurnGraph}.
+     *
+     * @return список комплексных ходов без перестановок.
+     */
     public List<List<MakeMoveEvent>> getPossibleComplexMoves() {
         List<List<MakeMoveEvent>> result = new ArrayList<>();
-        getPossibleComplexMovesRecursive(this.getCopy(), new ArrayList<>(), result);
+        getPossibleComplexMovesRecursive(this.getCopy(), new ArrayList<>(), 0, new HashSet<>(), result);
         return result;
     }
 
     @SneakyThrows
-    private void getPossibleComplexMovesRecursive(GameState gameState, List<MakeMoveEvent> complexMove, List<List<MakeMoveEvent>> result) {
+    private void getPossibleComplexMovesRecursive(
+            GameState gameState,
+            List<MakeMoveEvent> complexMove,
+            long movesKey,
+            Set<Long> visited,
+            List<List<MakeMoveEvent>> result) {
+        if (!visited.add(gameState.getZobristKey() ^ movesKey)) {
+            return;
+        }
         List<MakeMoveEvent> possibleMoves = gameState.getPossibleMoves();
         if (possibleMoves.isEmpty()) {
             List<MakeMoveEvent> resultList = new ArrayList<>();
@@ -161,187 +418,134 @@ public class GameState {
         }
 
         for (MakeMoveEvent moveEvent : possibleMoves) {
-            GameState copy = gameState.getCopy();
-            copy.makeNotAccurateMove(moveEvent);
+            UndoRecord undoRecord = gameState.makeMove(moveEvent, false);
             complexMove.add(moveEvent);
-            getPossibleComplexMovesRecursive(copy, complexMove, result);
-            complexMove.remove(moveEvent);
+            long moveKey = Zobrist.moveKey(
+                    moveEvent.getFrom().y() * Board.COLUMNS + moveEvent.getFrom().x(),
+                    moveEvent.getTo().y() * Board.COLUMNS + moveEvent.getTo().x());
+            getPossibleComplexMovesRecursive(gameState, complexMove, movesKey ^ moveKey, visited, result);
+            complexMove.removeLast();
+            gameState.undo(undoRecord);
         }
-
-
     }
 
     public void makeAccurateMove(MakeMoveEvent move) throws GameException {
-        if (move.getAttacker().getUnitType() == UnitType.KNIGHT
-                || move.getAttacker().getUnitType() == UnitType.ARCHER) {
-
-            int originAccuracy =
-                    this.getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).getAccuracy();
-
-            getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).setAccuracy(1000);
-            makeMove(move);
-            getCurrentBoard()
-                    .getUnit(move.getFrom().x(), move.getFrom().y())
-                    .setAccuracy(originAccuracy);
-        }
-        if (move.getAttacker().getUnitType() == UnitType.MAGE) {
-            int originAcc =
-                    this.getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).getAccuracy();
-            getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).setAccuracy(1000);
-            makeMove(move);
-            getCurrentBoard()
-                    .getUnit(move.getFrom().x(), move.getFrom().y())
-                    .setAccuracy(originAcc);
-
+        if (move.getAttacker().getUnitType() != UnitType.HEALER) {
+            makeMove(move, true);
         }
     }
 
-  public void makeNotAccurateMove(MakeMoveEvent move) throws GameException {
-    if (move.getAttacker().getUnitType() == UnitType.KNIGHT
-            || move.getAttacker().getUnitType() == UnitType.ARCHER) {
-
-      int originAcc =
-              this.getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).getAccuracy();
-
-      getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).setAccuracy(-1000);
-      makeMove(move);
-      getCurrentBoard()
-              .getUnit(move.getFrom().x(), move.getFrom().y())
-              .setAccuracy(originAcc);
-    }
-    if (move.getAttacker().getUnitType() == UnitType.MAGE) {
-
-        int originAcc =
-                this.getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).getAccuracy();
-        getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).setAccuracy(-1000);
-        makeMove(move);
-        getCurrentBoard()
-                .getUnit(move.getFrom().x(), move.getFrom().y())
-                .setAccuracy(originAcc);
+    public void makeNotAccurateMove(MakeMoveEvent move) throws GameException {
+        if (move.getAttacker().getUnitType() != UnitType.HEALER) {
+            makeMove(move, false);
+        }
     }
-  }
 
+    /**
+     * Метод возвращает вероятность успеха хода: лечение успешно всегда, атака - с вероятностью
+     * попадания из {@link CombatTables}.
+     *
+     * @param move ход.
+     * @return вероятность от 0 до 1.
+     */
     public double getPositiveMoveChance(MakeMoveEvent move) {
-        int attackerAccuracy = move.getAttacker().getAccuracy();
-        int defenderArmor = getCurrentBoard().getUnit(move.getTo().x(), move.getTo().y()).getArmor();
-        if (move.getAttacker().getUnitType() == UnitType.KNIGHT
-                || move.getAttacker().getUnitType() == UnitType.ARCHER) {
-
-            return ((double) (21 - (defenderArmor - attackerAccuracy)) / 20);
-        }
         if (move.getAttacker().getUnitType() == UnitType.HEALER) {
             return 1;
         }
-        if (move.getAttacker().getUnitType() == UnitType.MAGE) {
-            return ((double) (21 - (defenderArmor - attackerAccuracy)) / 20);
-        }
-        return 0;
+        return CombatTables.hitChance(
+                move.getAttacker(), getCurrentBoard().getUnit(move.getTo().x(), move.getTo().y()));
     }
 
 
     public boolean isValidMove(MakeMoveEvent move) throws GameException {
-        boolean result = false;
+        Position from = move.getFrom();
+        Position to = move.getTo();
+        MoveVerdict verdict = checkMove(move);
+        if (verdict.isValid()) {
+            return true;
+        }
+        if (EngineTrace.ENABLED) {
+            switch (verdict) {
+                case DEAD_ATTACKER -> EngineTrace.trace(
+                        "This units {}({},{}) already dead, he wont move",
+                        move.getAttacker().getUnitType(),
+                        from.x(),
+                        from.y());
+                case OUT_OF_BOARD -> EngineTrace.trace(
+                        "These coordinates({},{}) or ({},{}) are outside board border",
+                        from.x(),
+                        from.y(),
+                        to.x(),
+                        to.y());
+                case WRONG_SIDE -> EngineTrace.trace(
+                        "Enemy units({},{}) cannot be called to move", from.x(), from.y());
+                case ALREADY_MOVED -> EngineTrace.trace(
+                        "This units {}({},{}) already moved this round",
+                        move.getAttacker().getUnitType(),
+                        from.x(),
+                        from.y());
+                case OUT_OF_RADIUS -> EngineTrace.trace(
+                        "This Knight({},{}) try attack ({},{}), who outside his radius",
+                        from.x(),
+                        from.y(),
+                        to.x(),
+                        to.y());
+                default -> EngineTrace.trace(
+                        "This {} try attack ally, empty cell or dead unit", move.getAttacker().getUnitType());
+            }
+        }
+        throw new GameException(ErrorCode.MOVE_IS_NOT_CORRECT);
+    }
+
+    /**
+     * Метод проверяет ход без выбрасывания исключений и логирования. Используется при генерации
+     * ходов; {@link #isValidMove(MakeMoveEvent)} - обертка над ним для сервера.
+     *
+     * @param move ход.
+     * @return результат проверки.
+     */
+    public MoveVerdict checkMove(MakeMoveEvent move) {
+        return checkMove(move, board.getAliveMask());
+    }
+
+    /**
+     * Проверка хода с заранее посчитанной маской живых юнитов доски для досягаемости рыцаря.
+     */
+    private MoveVerdict checkMove(MakeMoveEvent move, int aliveMask) {
         Position from = move.getFrom();
         Position to = move.getTo();
         Unit attacker = move.getAttacker();
 
         if (!attacker.isAlive()) {
-            logger.atInfo().log(
-                    "This units {}({},{}) already dead, he wont move",
-                    move.getAttacker().getUnitType(),
-                    from.x(),
-                    from.y());
-            throw new GameException(ErrorCode.MOVE_IS_NOT_CORRECT);
+            return MoveVerdict.DEAD_ATTACKER;
         }
-
         if (outOfBorder(from.x(), from.y()) || outOfBorder(to.x(), to.y())) {
-            logger.atInfo().log(
-                    "These coordinates({},{}) or ({},{}) are outside board border",
-                    from.x(),
-                    from.x(),
-                    to.x(),
-                    to.y());
-            throw new GameException(ErrorCode.MOVE_IS_NOT_CORRECT);
+            return MoveVerdict.OUT_OF_BOARD;
         }
-
         if (attacker.getPlayerType() != currentPlayer) {
-            logger.atInfo().log("Enemy units({},{}) cannot be called to move", from.x(), from.y());
-            throw new GameException(ErrorCode.MOVE_IS_NOT_CORRECT);
+            return MoveVerdict.WRONG_SIDE;
         }
-
         if (attacker.isMoved()) {
-            logger.atInfo().log(
-                    "This units {}({},{}) already moved this round",
-                    move.getAttacker().getUnitType(),
-                    from.x(),
-                    from.y());
-            throw new GameException(ErrorCode.MOVE_IS_NOT_CORRECT);
-        }
-
-        boolean fullUnitInRow = fullUnitMeleeRow(from, to, attacker);
-        boolean oneUnitInRow = oneUnitMeleeRow(from, to, attacker);
-        boolean nullUnitInRow = nullUnitMeleeRow(from, attacker);
-        boolean nullUnitInNextRow = nullUnitNextMeleeRow(from, attacker);
-        boolean attackEnemyUnit =
-                getCurrentBoard().getUnit(to.x(), to.y()).getPlayerType() != attacker.getPlayerType();
-        boolean isAliveDefender = getCurrentBoard().getUnit(to.x(), to.y()).isAlive();
-
-        if (attacker.getUnitType() == UnitType.KNIGHT) {
-            if (attackEnemyUnit && isAliveDefender) {
-                int radius = 1;
-                if (oneUnitInRow || nullUnitInRow) {
-                    radius = 2;
-                }
-                if (nullUnitInNextRow) {
-                    radius = 3;
-                }
-                if (Math.abs(from.y() - to.y()) <= radius && Math.abs(from.x() - to.x()) <= radius) {
-                    if (fullUnitInRow || oneUnitInRow || nullUnitInRow || nullUnitInNextRow) {
-                        result = true;
-                    }
-                } else {
-                    logger.atInfo().log(
-                            "This Knight({},{}) try attack ({},{}), who outside his radius",
-                            from.x(),
-                            from.y(),
-                            to.x(),
-                            to.y());
-                    throw new GameException(ErrorCode.MOVE_IS_NOT_CORRECT);
-                }
-            } else {
-                logger.atInfo().log(
-                        "This {} try attack ally or dead unit", move.getAttacker().getUnitType());
-                throw new GameException(ErrorCode.MOVE_IS_NOT_CORRECT);
-            }
+            return MoveVerdict.ALREADY_MOVED;
         }
-        if (attacker.getUnitType() == UnitType.ARCHER) {
-            if (attackEnemyUnit && isAliveDefender) {
-                result = true;
-            } else {
-                logger.atInfo().log(
-                        "This {} try attack ally or dead unit", move.getAttacker().getUnitType());
-                throw new GameException(ErrorCode.MOVE_IS_NOT_CORRECT);
-            }
+        Unit defender = board.getUnit(to.x(), to.y());
+        if (defender == null) {
+            return MoveVerdict.EMPTY_TARGET;
         }
-        if (attacker.getUnitType() == UnitType.MAGE) {
-            if (attackEnemyUnit && isAliveDefender) {
-                result = true;
-            } else {
-                logger.atInfo().log(
-                        "This {} try attack ally or dead unit", move.getAttacker().getUnitType());
-                throw new GameException(ErrorCode.MOVE_IS_NOT_CORRECT);
-            }
+        boolean attackEnemyUnit = defender.getPlayerType() != attacker.getPlayerType();
+        if (!defender.isAlive() || attackEnemyUnit == (attacker.getUnitType() == UnitType.HEALER)) {
+            return MoveVerdict.WRONG_TARGET;
         }
-        if (attacker.getUnitType() == UnitType.HEALER) {
-            if (!attackEnemyUnit && isAliveDefender) {
-                result = true;
-            } else {
-                logger.atInfo().log(
-                        "This {} try heal enemy or dead unit", move.getAttacker().getUnitType());
-                throw new GameException(ErrorCode.MOVE_IS_NOT_CORRECT);
-            }
+        if (attacker.getUnitType() != UnitType.KNIGHT) {
+            return MoveVerdict.OK;
         }
-        return result;
+        int reach =
+                KnightReach.reachMask(
+                        attacker.getPlayerType(), from.y() * Board.COLUMNS + from.x(), aliveMask);
+        if ((reach & 1 << (to.y() * Board.COLUMNS + to.x())) == 0) {
+            return MoveVerdict.OUT_OF_RADIUS;
+        }
+        return MoveVerdict.OK;
     }
 
     public void makePlacement(PlaceUnitEvent placement) throws GameException {
@@ -350,6 +554,7 @@ public class GameState {
         }
         if (isValidPlacement(placement)) {
             board.setUnit(placement.getColumns(), placement.getRows(), placement.getUnit());
+            zobristKnown = false;
         }
         if (getCurrentPlayer() == PlayerType.FIRST_PLAYER) {
             armyFirst.fillArmy(board);
@@ -362,37 +567,53 @@ public class GameState {
         int x = placement.getColumns();
         int y = placement.getRows();
 
-        logger.atInfo().log(
-                "Checking placement for unit {} at ({}, {}) {}",
-                placement.getUnit(),
-                x,
-                y,
-                placement.getUnit().getPlayerType());
+        if (EngineTrace.ENABLED) {
+            EngineTrace.trace(
+                    "Checking placement for unit {} at ({}, {}) {}",
+                    placement.getUnit(),
+                    x,
+                    y,
+                    placement.getUnit().getPlayerType());
+        }
         if (placement.getUnit().getPlayerType() != getCurrentPlayer()) {
-            logger.error("Not your turn");
+            if (EngineTrace.ENABLED) {
+                EngineTrace.trace("Not your turn");
+            }
             throw new GameException(ErrorCode.NOT_YOUR_TURN);
         }
         if (x > Board.COLUMNS || x < 0) {
-            logger.atError().log("Placement coordinates ({}, {}) are out of board bounds.", x, y);
+            if (EngineTrace.ENABLED) {
+                EngineTrace.trace("Placement coordinates ({}, {}) are out of board bounds.", x, y);
+            }
             throw new GameException(ErrorCode.PLACEMENT_INCORRECT);
         }
         if (y > Board.ROWS || y < 0) {
-            logger.atError().log("Placement coordinates ({}, {}) are out of board bounds.", x, y);
+            if (EngineTrace.ENABLED) {
+                EngineTrace.trace("Placement coordinates ({}, {}) are out of board bounds.", x, y);
+            }
             throw new GameException(ErrorCode.PLACEMENT_INCORRECT);
         }
         // Проверка на сторону юнита
         if (placement.getUnit().getPlayerType() == PlayerType.FIRST_PLAYER) {
             if (y < (Board.ROWS / 2)) {
-                logger.atInfo().log("Placement valid for First Player at ({}, {}).", x, y);
+                if (EngineTrace.ENABLED) {
+                    EngineTrace.trace("Placement valid for First Player at ({}, {}).", x, y);
+                }
             } else {
-                logger.atError().log("Placement invalid for First Player at ({}, {}).", x, y);
+                if (EngineTrace.ENABLED) {
+                    EngineTrace.trace("Placement invalid for First Player at ({}, {}).", x, y);
+                }
                 throw new GameException(ErrorCode.PLACEMENT_INCORRECT);
             }
         } else {
             if (y > ((Board.ROWS / 2) - 1) && y < Board.ROWS) {
-                logger.atInfo().log("Placement valid for Second Player at ({}, {}).", x, y);
+                if (EngineTrace.ENABLED) {
+                    EngineTrace.trace("Placement valid for Second Player at ({}, {}).", x, y);
+                }
             } else {
-                logger.atError().log("Placement invalid for Second Player at ({}, {}).", x, y);
+                if (EngineTrace.ENABLED) {
+                    EngineTrace.trace("Placement invalid for Second Player at ({}, {}).", x, y);
+                }
                 throw new GameException(ErrorCode.PLACEMENT_INCORRECT);
             }
         }
@@ -401,24 +622,34 @@ public class GameState {
 
         // Проверка стартующая когда расстановка по мнению игрока окончена
         if (!placement.isInProcess()) {
-            logger.atInfo().log("Placement process finished. Checking board and general presence.");
+            if (EngineTrace.ENABLED) {
+                EngineTrace.trace("Placement process finished. Checking board and general presence.");
+            }
             // Проверка на то что на доске есть генерал
             if (getCurrentPlayer() == PlayerType.FIRST_PLAYER) {
                 if (!board.isFullFirstPlayerPart()) {
-                    logger.atError().log("First player board is not full.");
+                    if (EngineTrace.ENABLED) {
+                        EngineTrace.trace("First player board is not full.");
+                    }
                     throw new GameException(ErrorCode.BOARD_IS_NOT_FULL);
                 }
                 if (!checkCurrentPlayerGeneral(board, PlayerType.FIRST_PLAYER)) {
-                    logger.atError().log("First player general is missing.");
+                    if (EngineTrace.ENABLED) {
+                        EngineTrace.trace("First player general is missing.");
+                    }
                     throw new GameException(ErrorCode.GENERAL_IS_MISSING);
                 }
             } else {
                 if (!board.isFullSecondPlayerPart()) {
-                    logger.atError().log("Second player's board is not full.");
+                    if (EngineTrace.ENABLED) {
+                        EngineTrace.trace("Second player's board is not full.");
+                    }
                     throw new GameException(ErrorCode.BOARD_IS_NOT_FULL);
                 }
                 if (!checkCurrentPlayerGeneral(board, PlayerType.SECOND_PLAYER)) {
-                    logger.atError().log("Second player general is missing.");
+                    if (EngineTrace.ENABLED) {
+                        EngineTrace.trace("Second player general is missing.");
+                    }
                     throw new GameException(ErrorCode.GENERAL_IS_MISSING);
                 }
             }
@@ -458,11 +689,15 @@ public class GameState {
      */
     public boolean isValidChangePlayer(ChangePlayerEvent changePlayerEvent) {
         if (getCurrentPlayer() == changePlayerEvent.getRequester()) {
-            logger.atInfo().log("{} has completed his turn", changePlayerEvent.getRequester().name());
+            if (EngineTrace.ENABLED) {
+                EngineTrace.trace("{} has completed his turn", changePlayerEvent.getRequester().name());
+            }
             return true;
         } else {
-            logger.atInfo().log(
-                    "{} passes the move out of his turn", changePlayerEvent.getRequester().name());
+            if (EngineTrace.ENABLED) {
+                EngineTrace.trace(
+                        "{} passes the move out of his turn", changePlayerEvent.getRequester().name());
+            }
             return false;
         }
     }
@@ -513,49 +748,17 @@ public class GameState {
         }
     }
 
-    private boolean fullUnitMeleeRow(Position from, Position to, Unit attacker) {
-        return (attacker.getPlayerType() == PlayerType.FIRST_PLAYER
-                && getCurrentBoard().countUnitsRow(from.y() + 1) > 1
-                && to.y() == from.y() + 1)
-                || (attacker.getPlayerType() == PlayerType.SECOND_PLAYER
-                && getCurrentBoard().countUnitsRow(from.y() - 1) > 1
-                && to.y() == from.y() - 1);
-    }
-
-    private boolean oneUnitMeleeRow(Position from, Position to, Unit attacker) {
-        return (attacker.getPlayerType() == PlayerType.FIRST_PLAYER
-                && getCurrentBoard().countUnitsRow(from.y() + 1) == 1
-                && to.y() == from.y() + 1)
-                || (attacker.getPlayerType() == PlayerType.SECOND_PLAYER
-                && getCurrentBoard().countUnitsRow(from.y() - 1) == 1
-                && to.y() == from.y() - 1);
-    }
-
-    private boolean nullUnitMeleeRow(Position from, Unit attacker) {
-        return (attacker.getPlayerType() == PlayerType.FIRST_PLAYER
-                && getCurrentBoard().countUnitsRow(from.y() + 1) == 0)
-                || (attacker.getPlayerType() == PlayerType.SECOND_PLAYER
-                && getCurrentBoard().countUnitsRow(from.y() - 1) == 0);
-    }
-
-    private boolean nullUnitNextMeleeRow(Position from, Unit attacker) {
-        return (attacker.getPlayerType() == PlayerType.FIRST_PLAYER
-                && getCurrentBoard().countUnitsRow(from.y() + 2) == 0)
-                || (attacker.getPlayerType() == PlayerType.SECOND_PLAYER
-                && getCurrentBoard().countUnitsRow(from.y() - 2) == 0);
-    }
-
     private boolean outOfBorder(int x, int y) {
         return x < 0 || x > Board.COLUMNS - 1 || y < 0 || y > Board.ROWS - 1;
     }
 
     private void allUnitsDeadByPlayer() {
-        if (getCurrentBoard().enumerateUnits(0, Board.ROWS / 2).isEmpty()) {
+        if (aliveCount(armyFirst, 0) == 0) {
             winner = PlayerType.SECOND_PLAYER;
             gameStage = GameStage.ENDED;
             logger.atInfo().log("Result {}, is {}", winner, gameStage);
         }
-        if (getCurrentBoard().enumerateUnits(Board.ROWS / 2, Board.ROWS).isEmpty()) {
+        if (aliveCount(armySecond, Board.ROWS / 2) == 0) {
             winner = PlayerType.FIRST_PLAYER;
             gameStage = GameStage.ENDED;
             logger.atInfo().log("Result {}, is {}", winner, gameStage);
@@ -563,17 +766,28 @@ public class GameState {
     }
 
     private PlayerType winnerOrDraw() {
-        if (board.enumerateUnits(0, Board.ROWS / 2).size()
-                > board.enumerateUnits(Board.ROWS / 2, Board.ROWS).size()) {
+        int aliveFirst = aliveCount(armyFirst, 0);
+        int aliveSecond = aliveCount(armySecond, Board.ROWS / 2);
+        if (aliveFirst > aliveSecond) {
             return PlayerType.FIRST_PLAYER;
-        } else if (board.enumerateUnits(0, Board.ROWS / 2).size()
-                < board.enumerateUnits(Board.ROWS / 2, Board.ROWS).size()) {
+        } else if (aliveFirst < aliveSecond) {
             return PlayerType.SECOND_PLAYER;
         } else {
             return PlayerType.DRAW;
         }
     }
 
+    /**
+     * Количество живых юнитов армии по её учету. Если армия не заполнена (доска собрана вручную или
+     * пришла из JSON), юниты считаются по доске.
+     */
+    private int aliveCount(Army army, int startRow) {
+        if (army.isEmpty()) {
+            return board.enumerateUnits(startRow, startRow + Board.ROWS / 2).size();
+        }
+        return army.getAliveCount();
+    }
+
     public void giveUp(GiveUpEvent giveUpEvent) {
         if (giveUpEvent.getPlayerType() == PlayerType.FIRST_PLAYER) {
             winner = PlayerType.SECOND_PLAYER;
@@ -584,6 +798,7 @@ public class GameState {
             gameStage = GameStage.ENDED;
             logger.atInfo().log("Победитель - {}, Состояние игры {}", winner, gameStage);
         }
+        zobristKnown = false;
     }
 
     public void exitGame(GiveUpEvent giveUpEvent) {
@@ -594,12 +809,14 @@ public class GameState {
             gameStage = GameStage.ENDED;
             logger.atInfo().log("Второй игрок покинул свою игру");
         }
+        zobristKnown = false;
     }
 
     public void draw(List<Boolean> value) {
         if (value.get(0) && value.get(1)) {
             gameStage = GameStage.ENDED;
             winner = PlayerType.DRAW;
+            zobristKnown = false;
         }
     }
 
@@ -609,6 +826,7 @@ public class GameState {
         armySecond = null;
         currentPlayer = null;
         gameStage = null;
+        zobristKnown = false;
     }
 
     public GameState getCopy() {
@@ -659,124 +877,100 @@ public class GameState {
     }
 
     public List<MakeMoveEvent> getPossibleMoves() {
-        Board board = getCurrentBoard();
-        List<MakeMoveEvent> possibleMoves = new ArrayList<>();
-        List<Position> unitsPositionsCurrentPlayer;
-        List<Position> unitsPositionsOpponentPlayer;
-        PlayerType currentPlayer = getCurrentPlayer();
-        PlayerType opponentPlayer =
-                currentPlayer == PlayerType.FIRST_PLAYER
-                        ? PlayerType.SECOND_PLAYER
-                        : PlayerType.FIRST_PLAYER;
-
-        unitsPositionsCurrentPlayer = collectPositionsOfPlayer(currentPlayer, board);
-        unitsPositionsOpponentPlayer = collectPositionsOfPlayer(opponentPlayer, board);
-
-        for (Position from : unitsPositionsCurrentPlayer) {
-            Unit unit = board.getUnit(from.x(), from.y());
-            if (unit.getUnitType() == UnitType.HEALER) {
-                addValidMoves(possibleMoves, unitsPositionsCurrentPlayer, from, unit);
-            } else {
-                addValidMoves(possibleMoves, unitsPositionsOpponentPlayer, from, unit);
+        int[] moves = MOVE_BUFFER.get();
+        int count = generateMoves(moves);
+        List<MakeMoveEvent> possibleMoves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            possibleMoves.add(toMakeMoveEvent(moves[i]));
+        }
+        return possibleMoves;
+    }
+
+    /**
+     * Метод генерирует возможные ходы текущего игрока без создания объектов. Ходы записываются в
+     * буфер в кодировке {@link PackedGameState#encodeMove(int, int)} и в том же порядке, что и в
+     * {@link #getPossibleMoves()}, поэтому поиск может переиспользовать один буфер на уровень
+     * дерева и превращать в ивент только выбранный ход.
+     *
+     * @param moves буфер для ходов, не короче {@link PackedGameState#MAX_MOVES}.
+     * @return количество записанных ходов.
+     */
+    public int generateMoves(int[] moves) {
+        int aliveMask = board.getAliveMask();
+        int ownStart = currentPlayer == PlayerType.FIRST_PLAYER ? 0 : PackedGameState.ARMY_SIZE;
+        int enemyStart = PackedGameState.ARMY_SIZE - ownStart;
+        int count = 0;
+        for (int from = ownStart; from < ownStart + PackedGameState.ARMY_SIZE; from++) {
+            if ((aliveMask & 1 << from) == 0) {
+                continue;
+            }
+            Unit unit = board.getUnit(PackedGameState.x(from), PackedGameState.y(from));
+            if (unit.isMoved() || unit.getPlayerType() != currentPlayer) {
+                continue;
+            }
+            UnitType unitType = unit.getUnitType();
+            boolean healer = unitType == UnitType.HEALER;
+            // Для рыцаря цели вне досягаемости отсекаются одной маской
+            int targets = unitType == UnitType.KNIGHT
+                    ? KnightReach.reachMask(currentPlayer, from, aliveMask) & aliveMask
+                    : aliveMask;
+            int targetStart = healer ? ownStart : enemyStart;
+            for (int to = targetStart; to < targetStart + PackedGameState.ARMY_SIZE; to++) {
+                if ((targets & 1 << to) == 0) {
+                    continue;
+                }
+                Unit defender = board.getUnit(PackedGameState.x(to), PackedGameState.y(to));
+                if ((defender.getPlayerType() == currentPlayer) != healer
+                        || (healer && defender.getCurrentHp() == defender.getMaxHp())) {
+                    continue;
+                }
+                moves[count++] = PackedGameState.encodeMove(from, to);
+                if (unitType == UnitType.MAGE) {
+                    break;
+                }
             }
         }
+        return count;
+    }
 
-        return possibleMoves;
+    /**
+     * Метод превращает закодированный ход в ивент. Позиции берутся из общей таблицы, поэтому
+     * создается только сам ивент.
+     *
+     * @param move ход из {@link #generateMoves(int[])}.
+     * @return ивент хода с атакующим юнитом с доски.
+     */
+    public MakeMoveEvent toMakeMoveEvent(int move) {
+        return PackedGameState.toMakeMoveEvent(move, board);
     }
 
     public List<StateChance> getPossibleState(MakeMoveEvent move) throws GameException {
         List<StateChance> possibleIssue = new ArrayList<>();
-        int AccAttacker = move.getAttacker().getAccuracy();
-        int ArmDefender = getCurrentBoard().getUnit(move.getTo().x(), move.getTo().y()).getArmor();
 
         if (move.getAttacker().getUnitType() == UnitType.KNIGHT
                 || move.getAttacker().getUnitType() == UnitType.ARCHER) {
 
             GameState goodVar = this.getCopy();
             GameState badVar = this.getCopy();
-            double goodChance = ((double) (21 - (ArmDefender - AccAttacker)) / 20);
+            double goodChance = getPositiveMoveChance(move);
             double badChance = 1 - goodChance;
 
-            int originAcc =
-                    this.getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).getAccuracy();
-
-            goodVar.getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).setAccuracy(50);
-            goodVar.makeMove(move);
-            goodVar
-                    .getCurrentBoard()
-                    .getUnit(move.getFrom().x(), move.getFrom().y())
-                    .setAccuracy(originAcc);
+            goodVar.makeMove(move, true);
             possibleIssue.add(new StateChance(goodVar, goodChance));
-            badVar.getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).setAccuracy(-50);
-            badVar.makeMove(move);
-            badVar
-                    .getCurrentBoard()
-                    .getUnit(move.getFrom().x(), move.getFrom().y())
-                    .setAccuracy(originAcc);
+            badVar.makeMove(move, false);
             possibleIssue.add(new StateChance(badVar, badChance));
         }
         if (move.getAttacker().getUnitType() == UnitType.HEALER) {
-            int originAcc =
-                    this.getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).getAccuracy();
             GameState goodVar = this.getCopy();
-            goodVar.getCurrentBoard().getUnit(move.getFrom().x(), move.getFrom().y()).setAccuracy(50);
-            goodVar.makeMove(move);
-            goodVar
-                    .getCurrentBoard()
-                    .getUnit(move.getFrom().x(), move.getFrom().y())
-                    .setAccuracy(originAcc);
+            goodVar.makeMove(move, true);
             possibleIssue.add(new StateChance(goodVar, 1));
         }
         if (move.getAttacker().getUnitType() == UnitType.MAGE) {
-
-            GameState goodVar = this.getCopy();
-            GameState badVar = this.getCopy();
-            double goodChance = ((double) (21 - (ArmDefender - AccAttacker)) / 20);
-            double badChance = 1 - goodChance;
-            int originArm = this.getCurrentBoard().getUnit(move.getTo().x(), move.getTo().y()).getArmor();
-            goodVar.getCurrentBoard().getUnit(move.getTo().x(), move.getTo().y()).setArmor(-50);
-            goodVar.makeMove(move);
-            goodVar.getCurrentBoard().getUnit(move.getTo().x(), move.getTo().y()).setArmor(originArm);
-            possibleIssue.add(new StateChance(goodVar, goodChance));
-            badVar.getCurrentBoard().getUnit(move.getTo().x(), move.getTo().y()).setArmor(50);
-            badVar.makeMove(move);
-            badVar.getCurrentBoard().getUnit(move.getTo().x(), move.getTo().y()).setArmor(originArm);
-            possibleIssue.add(new StateChance(badVar, badChance));
+            possibleIssue.addAll(ChanceOutcomeEnumerator.enumerate(this, move));
         }
         return possibleIssue;
     }
 
-    private void addValidMoves(
-            List<MakeMoveEvent> possibleMoves, List<Position> targetPositions, Position from, Unit unit) {
-        for (Position to : targetPositions) {
-            if (!unit.isMoved()) {
-                MakeMoveEvent move = new MakeMoveEvent(from, to, unit);
-                if (canActMove(move)) {
-                    if (move.getAttacker().getUnitType() == UnitType.HEALER) {
-                        if (board.getUnit(to.x(), to.y()).getCurrentHp()
-                                != board.getUnit(to.x(), to.y()).getMaxHp()) {
-                            possibleMoves.add(move);
-                        }
-                    } else if (move.getAttacker().getUnitType() == UnitType.MAGE) {
-                        possibleMoves.add(move);
-                        break;
-                    } else {
-                        possibleMoves.add(move);
-                    }
-                }
-            }
-        }
-    }
-
-    private boolean canActMove(MakeMoveEvent move) {
-        try {
-            isValidMove(move);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
     public List<Position> collectPositionsOfPlayer(PlayerType playerType, Board board) {
         List<Position> unitPositions = new ArrayList<>();
         if (playerType == PlayerType.FIRST_PLAYER) {
@@ -890,8 +1084,12 @@ public class GameState {
                 && winner == gameState.winner;
     }
 
+    /**
+     * Хеш - Zobrist-ключ, посчитанный заново по доске и данным партии. Закешированный ключ не
+     * используется: он устаревает, если юниты меняют напрямую через доску.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(board, gameStage, currentPlayer, armyFirst, armySecond, countRound, winner);
+        return Long.hashCode(Zobrist.compute(this));
     }
 }
@@ -0,0 +1,269 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.Army;
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitType;
+
+/**
+ * Неизменяемый снимок игрового состояния со структурным разделением.
+ *
+ * <p>Снимок хранит доску по полосам, юниты - неизменяемые записи {@link UnitView}. Следующий
+ * снимок строится методом {@link #next(GameState)}: неизменившиеся юниты и полосы берутся из
+ * предыдущего снимка, поэтому ход создает только несколько новых объектов. Снимок можно без
+ * блокировок и копий передавать рассылке, ботам и логированию, пока партия меняет свой {@link
+ * GameState}.
+ */
+public final class GameStateSnapshot {
+  private final UnitView[][] rows;
+  private final ArmyView armyFirst;
+  private final ArmyView armySecond;
+  private final GameStage gameStage;
+  private final PlayerType currentPlayer;
+  private final PlayerType winner;
+  private final int countRound;
+  private final long zobristKey;
+
+  private GameStateSnapshot(GameStateSnapshot previous, GameState gameState) {
+    Board board = gameState.getBoard();
+    rows = new UnitView[Board.ROWS][];
+    for (int y = 0; y < Board.ROWS; y++) {
+      rows[y] = nextRow(previous == null ? null : previous.rows[y], board, y);
+    }
+    armyFirst = ArmyView.of(previous == null ? null : previous.armyFirst, gameState.getArmyFirst());
+    armySecond =
+        ArmyView.of(previous == null ? null : previous.armySecond, gameState.getArmySecond());
+    gameStage = gameState.getGameStage();
+    currentPlayer = gameState.getCurrentPlayer();
+    winner = gameState.getWinner();
+    countRound = gameState.getCountRound();
+    zobristKey = gameState.getZobristKey();
+  }
+
+  /**
+   * Метод делает первый снимок состояния.
+   *
+   * @param gameState состояние, не изменяется.
+   * @return снимок.
+   */
+  public static GameStateSnapshot of(GameState gameState) {
+    return new GameStateSnapshot(null, gameState);
+  }
+
+  /**
+   * Метод делает снимок состояния после изменений, переиспользуя неизменившиеся полосы и юниты
+   * текущего снимка. Если состояние не изменилось, возвращается этот же снимок.
+   *
+   * @param gameState состояние, не изменяется.
+   * @return новый снимок.
+   */
+  public GameStateSnapshot next(GameState gameState) {
+    GameStateSnapshot next = new GameStateSnapshot(this, gameState);
+    return next.sameAs(this) ? this : next;
+  }
+
+  private static UnitView[] nextRow(UnitView[] previous, Board board, int y) {
+    UnitView[] row = null;
+    for (int x = 0; x < Board.COLUMNS; x++) {
+      Unit unit = board.getUnit(x, y);
+      UnitView old = previous == null ? null : previous[x];
+      boolean unchanged = old == null ? unit == null : old.matches(unit);
+      UnitView view = unchanged ? old : UnitView.of(unit);
+      if (row == null && (previous == null || !unchanged)) {
+        row = previous == null ? new UnitView[Board.COLUMNS] : previous.clone();
+      }
+      if (row != null) {
+        row[x] = view;
+      }
+    }
+    return row == null ? previous : row;
+  }
+
+  private boolean sameAs(GameStateSnapshot other) {
+    for (int y = 0; y < Board.ROWS; y++) {
+      if (rows[y] != other.rows[y]) {
+        return false;
+      }
+    }
+    // ArmyView.of возвращает прежний экземпляр для равного состояния, поэтому сравнение по
+    // значению совпадает со сравнением ссылок
+    return armyFirst.equals(other.armyFirst)
+        && armySecond.equals(other.armySecond)
+        && gameStage == other.gameStage
+        && currentPlayer == other.currentPlayer
+        && winner == other.winner
+        && countRound == other.countRound
+        && zobristKey == other.zobristKey;
+  }
+
+  /**
+   * Метод возвращает юнита в клетке.
+   *
+   * @param x колонка.
+   * @param y полоса.
+   * @return юнит или null, если клетка пуста.
+   */
+  public UnitView getUnit(int x, int y) {
+    return rows[y][x];
+  }
+
+  /** Полоса доски, для проверки разделения между снимками. */
+  UnitView[] row(int y) {
+    return rows[y];
+  }
+
+  public ArmyView getArmyFirst() {
+    return armyFirst;
+  }
+
+  public ArmyView getArmySecond() {
+    return armySecond;
+  }
+
+  public GameStage getGameStage() {
+    return gameStage;
+  }
+
+  public PlayerType getCurrentPlayer() {
+    return currentPlayer;
+  }
+
+  public PlayerType getWinner() {
+    return winner;
+  }
+
+  public int getCountRound() {
+    return countRound;
+  }
+
+  public long getZobristKey() {
+    return zobristKey;
+  }
+
+  /**
+   * Метод создает изменяемое состояние по снимку, например для поиска бота.
+   *
+   * @return новое игровое состояние.
+   */
+  public GameState toGameState() {
+    GameState gameState = new GameState();
+    Board board = gameState.getBoard();
+    for (int y = 0; y < Board.ROWS; y++) {
+      for (int x = 0; x < Board.COLUMNS; x++) {
+        UnitView view = rows[y][x];
+        if (view != null) {
+          ArmyView army = view.playerType() == PlayerType.FIRST_PLAYER ? armyFirst : armySecond;
+          board.setUnit(x, y, view.toUnit(army.isBuffed() ? army.generalType() : null));
+        }
+      }
+    }
+    gameState.getArmyFirst().fillArmy(board);
+    gameState.getArmySecond().fillArmy(board);
+    armyFirst.restore(gameState.getArmyFirst());
+    armySecond.restore(gameState.getArmySecond());
+    gameState.setGameStage(gameStage);
+    gameState.setCurrentPlayer(currentPlayer);
+    gameState.setWinner(winner);
+    gameState.setCountRound(countRound);
+    return gameState;
+  }
+
+  /**
+   * Неизменяемый юнит снимка. Характеристики хранятся с учетом бафа генерала.
+   *
+   * @param unitType тип юнита.
+   * @param playerType владелец.
+   * @param currentHp текущее хп.
+   * @param maxHp максимальное хп.
+   * @param damage урон.
+   * @param accuracy точность.
+   * @param armor броня.
+   * @param general является ли генералом.
+   * @param moved ходил ли в этом раунде.
+   * @param hitTarget попал ли последней атакой.
+   */
+  public record UnitView(
+      UnitType unitType,
+      PlayerType playerType,
+      int currentHp,
+      int maxHp,
+      int damage,
+      int accuracy,
+      int armor,
+      boolean general,
+      boolean moved,
+      boolean hitTarget) {
+
+    static UnitView of(Unit unit) {
+      if (unit == null) {
+        return null;
+      }
+      return new UnitView(
+          unit.getUnitType(),
+          unit.getPlayerType(),
+          unit.getCurrentHp(),
+          unit.getMaxHp(),
+          unit.getDamage(),
+          unit.getAccuracy(),
+          unit.getArmor(),
+          unit.isGeneral(),
+          unit.isMoved(),
+          unit.isHitTarget());
+    }
+
+    public boolean isAlive() {
+      return currentHp > 0;
+    }
+
+    private boolean matches(Unit unit) {
+      return unit != null
+          && unitType == unit.getUnitType()
+          && playerType == unit.getPlayerType()
+          && currentHp == unit.getCurrentHp()
+          && maxHp == unit.getMaxHp()
+          && damage == unit.getDamage()
+          && accuracy == unit.getAccuracy()
+          && armor == unit.getArmor()
+          && general == unit.isGeneral()
+          && moved == unit.isMoved()
+          && hitTarget == unit.isHitTarget();
+    }
+
+    private Unit toUnit(UnitType buff) {
+      Unit unit = Unit.createUnitByUnitType(unitType, playerType);
+      unit.setGeneral(general);
+      if (buff != null) {
+        unit.applyBuff(unit, buff);
+      }
+      unit.setCurrentHp(currentHp);
+      unit.setMoved(moved);
+      unit.setHitTarget(hitTarget);
+      return unit;
+    }
+  }
+
+  /**
+   * Неизменяемое состояние армии.
+   *
+   * @param generalType тип генерала.
+   * @param aliveGeneral жив ли генерал.
+   * @param isBuffed наложен ли баф генерала.
+   */
+  public record ArmyView(UnitType generalType, boolean aliveGeneral, boolean isBuffed) {
+    private static ArmyView of(ArmyView previous, Army army) {
+      if (previous != null
+          && previous.generalType == army.getGeneralType()
+          && previous.aliveGeneral == army.isAliveGeneral
+          && previous.isBuffed == army.isBuffed()) {
+        return previous;
+      }
+      return new ArmyView(army.getGeneralType(), army.isAliveGeneral, army.isBuffed());
+    }
+
+    private void restore(Army army) {
+      army.generalType = generalType;
+      army.isAliveGeneral = aliveGeneral;
+      army.isBuffed = isBuffed;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.Board;
+
+/**
+ * Предрассчитанная таблица досягаемости рыцаря. Радиус атаки рыцаря зависит только от того, сколько
+ * живых юнитов стоит в двух полосах перед ним, поэтому для каждой клетки и каждой маски этих полос
+ * заранее считается маска клеток, которые рыцарь может атаковать.
+ *
+ * <p>Клетка кодируется как {@code y * Board.COLUMNS + x}, маски доски - битами клеток.
+ */
+public final class KnightReach {
+  private static final int CELLS = Board.ROWS * Board.COLUMNS;
+  private static final int ROW_MASK = (1 << Board.COLUMNS) - 1;
+
+  /** [игрок][клетка][живые юниты двух полос перед рыцарем] -> маска достижимых клеток. */
+  private static final int[][][] REACH = new int[2][CELLS][1 << (2 * Board.COLUMNS)];
+
+  static {
+    for (int player = 0; player < 2; player++) {
+      int direction = player == 0 ? 1 : -1;
+      for (int from = 0; from < CELLS; from++) {
+        int x = from % Board.COLUMNS;
+        int y = from / Board.COLUMNS;
+        int nextRow = y + direction;
+        int afterNextRow = y + 2 * direction;
+        if (afterNextRow < 0 || afterNextRow >= Board.ROWS) {
+          continue;
+        }
+        for (int rows = 0; rows < REACH[player][from].length; rows++) {
+          int unitsInRow = Integer.bitCount(rows & ROW_MASK);
+          int unitsInNextRow = Integer.bitCount(rows >>> Board.COLUMNS);
+          int mask = 0;
+          for (int to = 0; to < CELLS; to++) {
+            int toX = to % Board.COLUMNS;
+            int toY = to / Board.COLUMNS;
+            boolean fullUnitInRow = unitsInRow > 1 && toY == nextRow;
+            boolean oneUnitInRow = unitsInRow == 1 && toY == nextRow;
+            boolean nullUnitInRow = unitsInRow == 0;
+            boolean nullUnitInNextRow = unitsInNextRow == 0;
+            int radius = 1;
+            if (oneUnitInRow || nullUnitInRow) {
+              radius = 2;
+            }
+            if (nullUnitInNextRow) {
+              radius = 3;
+            }
+            if (Math.abs(y - toY) <= radius
+                && Math.abs(x - toX) <= radius
+                && (fullUnitInRow || oneUnitInRow || nullUnitInRow || nullUnitInNextRow)) {
+              mask |= 1 << to;
+            }
+          }
+          REACH[player][from][rows] = mask;
+        }
+      }
+    }
+  }
+
+  private KnightReach() {}
+
+  /**
+   * Метод возвращает маску клеток, которые может атаковать рыцарь. Принадлежность и живость целей
+   * не проверяются: результат нужно пересечь с маской живых врагов.
+   *
+   * @param playerType владелец рыцаря.
+   * @param from клетка рыцаря.
+   * @param aliveMask маска клеток доски с живыми юнитами.
+   * @return маска достижимых клеток.
+   */
+  public static int reachMask(PlayerType playerType, int from, int aliveMask) {
+    int player = playerType == PlayerType.FIRST_PLAYER ? 0 : 1;
+    int y = from / Board.COLUMNS;
+    int direction = player == 0 ? 1 : -1;
+    int afterNextRow = y + 2 * direction;
+    if (afterNextRow < 0 || afterNextRow >= Board.ROWS) {
+      return 0;
+    }
+    int rows = rowBits(aliveMask, y + direction) | rowBits(aliveMask, afterNextRow) << Board.COLUMNS;
+    return REACH[player][from][rows];
+  }
+
+  private static int rowBits(int aliveMask, int row) {
+    return aliveMask >>> (row * Board.COLUMNS) & ROW_MASK;
+  }
+}
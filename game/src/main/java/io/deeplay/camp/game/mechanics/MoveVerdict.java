@@ -0,0 +1,25 @@
+package io.deeplay.camp.game.mechanics;
+
+/** Результат проверки хода без выбрасывания исключений. */
+public enum MoveVerdict {
+  // Ход корректен
+  OK,
+  // Атакующий юнит мертв
+  DEAD_ATTACKER,
+  // Координаты за пределами доски
+  OUT_OF_BOARD,
+  // Юнит принадлежит не текущему игроку
+  WRONG_SIDE,
+  // Юнит уже ходил в этом раунде
+  ALREADY_MOVED,
+  // В клетке цели нет юнита
+  EMPTY_TARGET,
+  // Атака союзника, лечение врага или действие на мертвого юнита
+  WRONG_TARGET,
+  // Цель вне досягаемости рыцаря
+  OUT_OF_RADIUS;
+
+  public boolean isValid() {
+    return this == OK;
+  }
+}
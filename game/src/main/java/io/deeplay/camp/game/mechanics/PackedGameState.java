@@ -0,0 +1,574 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.Army;
+import io.deeplay.camp.game.entities.AttackType;
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.Position;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitStats;
+import io.deeplay.camp.game.entities.UnitType;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Упакованное представление игрового состояния для поиска ботов.
+ *
+ * <p>Каждая клетка доски кодируется одним int (хп, тип юнита, флаги), за ними идут несколько int с
+ * данными партии и армий. Характеристики юнитов не хранятся: они берутся из {@link CombatTables}
+ * по типу юнита и бафу генерала его армии. Поэтому копирование состояния - это одно копирование
+ * массива без рефлексии и без создания юнитов. Правила ходов повторяют {@link GameState}: генерация ходов совпадает с
+ * {@link GameState#getPossibleMoves()}, а применение хода с заданным исходом - с {@link
+ * GameState#makeMove(MakeMoveEvent)}.
+ *
+ * <p>Сторона юнита определяется полосой доски: полосы 0-1 принадлежат первому игроку, 2-3 -
+ * второму.
+ */
+public final class PackedGameState {
+  /** Количество клеток доски. */
+  public static final int CELLS = Board.ROWS * Board.COLUMNS;
+
+  /** Количество клеток одной стороны. */
+  public static final int ARMY_SIZE = CELLS / 2;
+
+  /** Максимальное количество ходов в одном состоянии. */
+  public static final int MAX_MOVES = ARMY_SIZE * ARMY_SIZE;
+
+  private static final int HP_MASK = 0xFF;
+  private static final int TYPE_SHIFT = 8;
+  private static final int TYPE_MASK = 0b11;
+  private static final int PRESENT = 1 << 10;
+  private static final int GENERAL = 1 << 11;
+  private static final int MOVED = 1 << 12;
+  private static final int HIT_TARGET = 1 << 13;
+
+  private static final int CURRENT_PLAYER = CELLS;
+  private static final int GAME_STAGE = CELLS + 1;
+  private static final int WINNER = CELLS + 2;
+  private static final int COUNT_ROUND = CELLS + 3;
+  private static final int ARMY_FIRST = CELLS + 4;
+  private static final int ARMY_SECOND = CELLS + 5;
+  private static final int LENGTH = CELLS + 6;
+
+  private static final int ALIVE_GENERAL = 1;
+  private static final int BUFFED = 1 << 1;
+  private static final int GENERAL_TYPE_SHIFT = 2;
+
+  private static final AttackType[] ATTACK_TYPES = new AttackType[UnitType.COUNT];
+
+  /** Клетки армий в порядке {@link Army#fillArmy(Board)} (по колонкам). */
+  private static final int[][] ARMY_CELLS = new int[2][ARMY_SIZE];
+
+  static {
+    for (UnitType unitType : UnitType.values()) {
+      ATTACK_TYPES[unitType.index()] = UnitStats.of(unitType).attackType();
+    }
+    for (int player = 0; player < 2; player++) {
+      int index = 0;
+      int startRow = player == 0 ? 0 : Board.ROWS / 2;
+      for (int col = 0; col < Board.COLUMNS; col++) {
+        for (int row = startRow; row < startRow + Board.ROWS / 2; row++) {
+          ARMY_CELLS[player][index++] = cell(col, row);
+        }
+      }
+    }
+  }
+
+  private final int[] data;
+
+  private PackedGameState(int[] data) {
+    this.data = data;
+  }
+
+  /**
+   * Метод упаковывает игровое состояние.
+   *
+   * @param gameState игровое состояние.
+   * @return упакованное состояние.
+   */
+  public static PackedGameState fromGameState(GameState gameState) {
+    int[] data = new int[LENGTH];
+    Board board = gameState.getBoard();
+    for (int row = 0; row < Board.ROWS; row++) {
+      for (int col = 0; col < Board.COLUMNS; col++) {
+        Unit unit = board.getUnit(col, row);
+        if (unit == null) {
+          continue;
+        }
+        int value = PRESENT | unit.getCurrentHp() | unit.getUnitType().index() << TYPE_SHIFT;
+        if (unit.isGeneral()) {
+          value |= GENERAL;
+        }
+        if (unit.isMoved()) {
+          value |= MOVED;
+        }
+        if (unit.isHitTarget()) {
+          value |= HIT_TARGET;
+        }
+        data[cell(col, row)] = value;
+      }
+    }
+    data[CURRENT_PLAYER] = gameState.getCurrentPlayer().index();
+    data[GAME_STAGE] = gameState.getGameStage().index();
+    data[WINNER] = gameState.getWinner() == null ? 0 : gameState.getWinner().index() + 1;
+    data[COUNT_ROUND] = gameState.getCountRound();
+    data[ARMY_FIRST] = packArmy(gameState.getArmyFirst());
+    data[ARMY_SECOND] = packArmy(gameState.getArmySecond());
+    return new PackedGameState(data);
+  }
+
+  private static int packArmy(Army army) {
+    int value = army.getGeneralType() == null ? 0 : army.getGeneralType().index() + 1;
+    value <<= GENERAL_TYPE_SHIFT;
+    if (army.isAliveGeneral) {
+      value |= ALIVE_GENERAL;
+    }
+    if (army.isBuffed()) {
+      value |= BUFFED;
+    }
+    return value;
+  }
+
+  /**
+   * Метод распаковывает состояние в обычное игровое состояние.
+   *
+   * @return новое игровое состояние.
+   */
+  public GameState toGameState() {
+    GameState gameState = new GameState();
+    Board board = gameState.getBoard();
+    for (int cell = 0; cell < CELLS; cell++) {
+      if (isEmpty(cell)) {
+        continue;
+      }
+      int value = data[cell];
+      Unit unit = Unit.createUnitByUnitType(getUnitType(cell), owner(cell));
+      unit.setGeneral((value & GENERAL) != 0);
+      UnitType buff = buffOf(owner(cell));
+      if (buff != null) {
+        unit.applyBuff(unit, buff);
+      }
+      unit.setCurrentHp(value & HP_MASK);
+      unit.setMoved((value & MOVED) != 0);
+      unit.setHitTarget((value & HIT_TARGET) != 0);
+      board.setUnit(x(cell), y(cell), unit);
+    }
+    gameState.getArmyFirst().fillArmy(board);
+    gameState.getArmySecond().fillArmy(board);
+    unpackArmy(gameState.getArmyFirst(), data[ARMY_FIRST]);
+    unpackArmy(gameState.getArmySecond(), data[ARMY_SECOND]);
+    gameState.setCurrentPlayer(getCurrentPlayer());
+    gameState.setGameStage(getGameStage());
+    gameState.setWinner(getWinner());
+    gameState.setCountRound(getCountRound());
+    return gameState;
+  }
+
+  private static void unpackArmy(Army army, int value) {
+    int generalType = value >>> GENERAL_TYPE_SHIFT;
+    army.generalType = generalType == 0 ? null : UnitType.byIndex(generalType - 1);
+    army.isAliveGeneral = (value & ALIVE_GENERAL) != 0;
+    army.isBuffed = (value & BUFFED) != 0;
+  }
+
+  /**
+   * Метод создает копию состояния.
+   *
+   * @return копия.
+   */
+  public PackedGameState getCopy() {
+    return new PackedGameState(data.clone());
+  }
+
+  /**
+   * Метод копирует другое состояние в текущее без выделения памяти.
+   *
+   * @param other копируемое состояние.
+   */
+  public void copyFrom(PackedGameState other) {
+    System.arraycopy(other.data, 0, data, 0, LENGTH);
+  }
+
+  /**
+   * Метод генерирует возможные ходы текущего игрока в том же порядке, что и {@link
+   * GameState#getPossibleMoves()}.
+   *
+   * @param moves буфер для ходов, не короче {@link #MAX_MOVES}.
+   * @return количество записанных ходов.
+   */
+  public int generateMoves(int[] moves) {
+    int player = data[CURRENT_PLAYER];
+    int startCell = player == 0 ? 0 : ARMY_SIZE;
+    int enemyStartCell = player == 0 ? ARMY_SIZE : 0;
+    int aliveMask = aliveMask();
+    int count = 0;
+    for (int from = startCell; from < startCell + ARMY_SIZE; from++) {
+      if (!isAlive(from) || isMoved(from)) {
+        continue;
+      }
+      UnitType unitType = getUnitType(from);
+      if (unitType == UnitType.HEALER) {
+        for (int to = startCell; to < startCell + ARMY_SIZE; to++) {
+          if (isAlive(to) && getHp(to) != getMaxHp(to)) {
+            moves[count++] = encodeMove(from, to);
+          }
+        }
+        continue;
+      }
+      int targets =
+          unitType == UnitType.KNIGHT ? KnightReach.reachMask(owner(from), from, aliveMask) : -1;
+      targets &= aliveMask;
+      for (int to = enemyStartCell; to < enemyStartCell + ARMY_SIZE; to++) {
+        if ((targets & 1 << to) == 0) {
+          continue;
+        }
+        moves[count++] = encodeMove(from, to);
+        if (unitType == UnitType.MAGE) {
+          break;
+        }
+      }
+    }
+    return count;
+  }
+
+  private int aliveMask() {
+    int mask = 0;
+    for (int cell = 0; cell < CELLS; cell++) {
+      if (isAlive(cell)) {
+        mask |= 1 << cell;
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Метод применяет ход с заданным исходом бросков. Ход должен быть получен из {@link
+   * #generateMoves(int[])}.
+   *
+   * @param move закодированный ход.
+   * @param hitMask маска клеток, по которым атака попала. Для массовой атаки учитываются все
+   *     клетки армии противника, для остальных - только клетка цели. Лечение попадает всегда.
+   */
+  public void makeMove(int move, int hitMask) {
+    int from = moveFrom(move);
+    int to = moveTo(move);
+    UnitType attackerType = getUnitType(from);
+    boolean hitTarget;
+    if (attackerType == UnitType.HEALER) {
+      setHp(to, Math.min(getMaxHp(to), getHp(to) + getDamage(from)));
+      hitTarget = true;
+    } else if (ATTACK_TYPES[attackerType.index()] == AttackType.MASS_ATTACK) {
+      hitTarget = false;
+      for (int defender : ARMY_CELLS[owner(from) == PlayerType.FIRST_PLAYER ? 1 : 0]) {
+        if (isEmpty(defender)) {
+          continue;
+        }
+        hitTarget = (hitMask & 1 << defender) != 0;
+        if (hitTarget) {
+          setHp(defender, Math.max(0, getHp(defender) - getDamage(from)));
+        }
+      }
+    } else {
+      hitTarget = (hitMask & 1 << to) != 0;
+      if (hitTarget) {
+        setHp(to, Math.max(0, getHp(to) - getDamage(from)));
+      }
+    }
+    data[from] |= MOVED;
+    data[from] = hitTarget ? data[from] | HIT_TARGET : data[from] & ~HIT_TARGET;
+    checkAllUnitsDead();
+    updateGeneral(0);
+    updateGeneral(1);
+  }
+
+  /**
+   * Метод применяет ход, бросая кубики так же, как это делают юниты.
+   *
+   * @param move закодированный ход.
+   * @param random источник случайности.
+   * @return маска клеток, по которым атака попала.
+   */
+  public int makeRandomMove(int move, RandomGenerator random) {
+    int from = moveFrom(move);
+    int to = moveTo(move);
+    int hitMask = 0;
+    if (getUnitType(from) == UnitType.HEALER) {
+      hitMask = 1 << to;
+    } else if (ATTACK_TYPES[getUnitType(from).index()] == AttackType.MASS_ATTACK) {
+      for (int defender : ARMY_CELLS[owner(from) == PlayerType.FIRST_PLAYER ? 1 : 0]) {
+        if (!isEmpty(defender) && isHit(from, defender, random)) {
+          hitMask |= 1 << defender;
+        }
+      }
+    } else if (isHit(from, to, random)) {
+      hitMask = 1 << to;
+    }
+    makeMove(move, hitMask);
+    return hitMask;
+  }
+
+  private boolean isHit(int attacker, int defender, RandomGenerator random) {
+    return random.nextInt(Dice.FACES) + getAccuracy(attacker) > getArmor(defender);
+  }
+
+  /**
+   * Метод передает ход другому игроку по правилам {@link GameState#changeCurrentPlayer()}.
+   */
+  public void changeCurrentPlayer() {
+    if (data[CURRENT_PLAYER] == PlayerType.FIRST_PLAYER.index()) {
+      data[CURRENT_PLAYER] = PlayerType.SECOND_PLAYER.index();
+    } else {
+      data[CURRENT_PLAYER] = PlayerType.FIRST_PLAYER.index();
+      if (data[GAME_STAGE] == GameStage.MOVEMENT_STAGE.index()) {
+        for (int cell = 0; cell < CELLS; cell++) {
+          data[cell] &= ~(MOVED | HIT_TARGET);
+        }
+        data[COUNT_ROUND]--;
+      }
+      if (data[GAME_STAGE] == GameStage.PLACEMENT_STAGE.index()) {
+        data[GAME_STAGE] = GameStage.MOVEMENT_STAGE.index();
+      }
+      updateGeneral(0);
+      updateGeneral(1);
+    }
+    if (data[COUNT_ROUND] == 0) {
+      int first = countAlive(0);
+      int second = countAlive(1);
+      PlayerType winner =
+          first > second
+              ? PlayerType.FIRST_PLAYER
+              : first < second ? PlayerType.SECOND_PLAYER : PlayerType.DRAW;
+      data[WINNER] = winner.index() + 1;
+      data[GAME_STAGE] = GameStage.ENDED.index();
+    }
+  }
+
+  /**
+   * Метод сбрасывает флаги попадания последней атакой. Флаг не влияет на правила и не входит в
+   * Zobrist-ключ, поэтому после сброса равные состояния совпадают с равными по ключу.
+   */
+  void clearHitTargets() {
+    for (int cell = 0; cell < CELLS; cell++) {
+      data[cell] &= ~HIT_TARGET;
+    }
+  }
+
+  private void checkAllUnitsDead() {
+    if (countAlive(0) == 0) {
+      data[WINNER] = PlayerType.SECOND_PLAYER.index() + 1;
+      data[GAME_STAGE] = GameStage.ENDED.index();
+    }
+    if (countAlive(1) == 0) {
+      data[WINNER] = PlayerType.FIRST_PLAYER.index() + 1;
+      data[GAME_STAGE] = GameStage.ENDED.index();
+    }
+  }
+
+  private int countAlive(int player) {
+    int count = 0;
+    for (int cell : ARMY_CELLS[player]) {
+      if (isAlive(cell)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Метод повторяет {@link Army#isAliveGeneral()}: ищет живого генерала и снимает/вешает баф. */
+  private void updateGeneral(int player) {
+    int armyIndex = player == 0 ? ARMY_FIRST : ARMY_SECOND;
+    int army = data[armyIndex];
+    boolean aliveGeneral = false;
+    for (int cell : ARMY_CELLS[player]) {
+      if (isEmpty(cell)) {
+        continue;
+      }
+      if ((data[cell] & GENERAL) != 0 && isAlive(cell)) {
+        int generalType = getUnitType(cell).index() + 1;
+        army = (army & ((1 << GENERAL_TYPE_SHIFT) - 1)) | (generalType << GENERAL_TYPE_SHIFT);
+        aliveGeneral = true;
+        break;
+      }
+    }
+    army = aliveGeneral ? army | ALIVE_GENERAL : army & ~ALIVE_GENERAL;
+    UnitType generalType = generalTypeOf(army);
+    if (aliveGeneral) {
+      if ((army & BUFFED) == 0) {
+        data[armyIndex] = army | BUFFED;
+        if (generalType == UnitType.HEALER) {
+          for (int cell : ARMY_CELLS[player]) {
+            if (!isEmpty(cell)) {
+              setHp(cell, getMaxHp(cell));
+            }
+          }
+        }
+        return;
+      }
+    } else if ((army & BUFFED) != 0) {
+      army &= ~BUFFED;
+      data[armyIndex] = army;
+      if (generalType == UnitType.HEALER) {
+        for (int cell : ARMY_CELLS[player]) {
+          if (!isEmpty(cell)) {
+            setHp(cell, Math.min(getHp(cell), getMaxHp(cell)));
+          }
+        }
+      }
+      return;
+    }
+    data[armyIndex] = army;
+  }
+
+  private static UnitType generalTypeOf(int army) {
+    int generalType = army >>> GENERAL_TYPE_SHIFT;
+    return generalType == 0 ? null : UnitType.byIndex(generalType - 1);
+  }
+
+  /** Тип бафа, действующего на армию игрока, или null. */
+  private UnitType buffOf(PlayerType playerType) {
+    int army = data[playerType == PlayerType.FIRST_PLAYER ? ARMY_FIRST : ARMY_SECOND];
+    return (army & BUFFED) == 0 ? null : generalTypeOf(army);
+  }
+
+  private void setHp(int cell, int hp) {
+    data[cell] = (data[cell] & ~HP_MASK) | hp;
+  }
+
+  /**
+   * Метод кодирует ход.
+   *
+   * @param from клетка атакующего.
+   * @param to клетка цели.
+   * @return закодированный ход.
+   */
+  public static int encodeMove(int from, int to) {
+    return from << 4 | to;
+  }
+
+  /**
+   * Метод кодирует ивент хода.
+   *
+   * @param move ивент хода.
+   * @return закодированный ход.
+   */
+  public static int encodeMove(MakeMoveEvent move) {
+    return encodeMove(
+        cell(move.getFrom().x(), move.getFrom().y()), cell(move.getTo().x(), move.getTo().y()));
+  }
+
+  public static int moveFrom(int move) {
+    return move >>> 4;
+  }
+
+  public static int moveTo(int move) {
+    return move & 0xF;
+  }
+
+  /**
+   * Метод восстанавливает ивент хода по закодированному ходу.
+   *
+   * @param move закодированный ход.
+   * @param board доска, с которой берется атакующий юнит.
+   * @return ивент хода.
+   */
+  public static MakeMoveEvent toMakeMoveEvent(int move, Board board) {
+    int from = moveFrom(move);
+    int to = moveTo(move);
+    return new MakeMoveEvent(
+        Position.ofCell(from), Position.ofCell(to), board.getUnit(x(from), y(from)));
+  }
+
+  public static int cell(int x, int y) {
+    return y * Board.COLUMNS + x;
+  }
+
+  public static int x(int cell) {
+    return cell % Board.COLUMNS;
+  }
+
+  public static int y(int cell) {
+    return cell / Board.COLUMNS;
+  }
+
+  /**
+   * Метод возвращает владельца клетки.
+   *
+   * @param cell клетка.
+   * @return игрок, которому принадлежит полоса клетки.
+   */
+  public static PlayerType owner(int cell) {
+    return cell < ARMY_SIZE ? PlayerType.FIRST_PLAYER : PlayerType.SECOND_PLAYER;
+  }
+
+  public boolean isEmpty(int cell) {
+    return (data[cell] & PRESENT) == 0;
+  }
+
+  public boolean isAlive(int cell) {
+    return (data[cell] & HP_MASK) > 0;
+  }
+
+  public int getHp(int cell) {
+    return data[cell] & HP_MASK;
+  }
+
+  public UnitType getUnitType(int cell) {
+    return UnitType.byIndex(data[cell] >>> TYPE_SHIFT & TYPE_MASK);
+  }
+
+  public boolean isGeneral(int cell) {
+    return (data[cell] & GENERAL) != 0;
+  }
+
+  public boolean isMoved(int cell) {
+    return (data[cell] & MOVED) != 0;
+  }
+
+  public boolean isHitTarget(int cell) {
+    return (data[cell] & HIT_TARGET) != 0;
+  }
+
+  public int getMaxHp(int cell) {
+    return CombatTables.maxHp(getUnitType(cell), buffOf(owner(cell)));
+  }
+
+  public int getDamage(int cell) {
+    return CombatTables.damage(getUnitType(cell), buffOf(owner(cell)));
+  }
+
+  public int getAccuracy(int cell) {
+    return CombatTables.accuracy(getUnitType(cell), buffOf(owner(cell)));
+  }
+
+  public int getArmor(int cell) {
+    return CombatTables.armor(getUnitType(cell), buffOf(owner(cell)));
+  }
+
+  public PlayerType getCurrentPlayer() {
+    return PlayerType.byIndex(data[CURRENT_PLAYER]);
+  }
+
+  public GameStage getGameStage() {
+    return GameStage.byIndex(data[GAME_STAGE]);
+  }
+
+  public PlayerType getWinner() {
+    return data[WINNER] == 0 ? null : PlayerType.byIndex(data[WINNER] - 1);
+  }
+
+  public int getCountRound() {
+    return data[COUNT_ROUND];
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return Arrays.equals(data, ((PackedGameState) o).data);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(data);
+  }
+}
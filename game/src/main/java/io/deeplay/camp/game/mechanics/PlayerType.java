@@ -1,9 +1,46 @@
 package io.deeplay.camp.game.mechanics;
 
 public enum PlayerType {
-  FIRST_PLAYER,
-  SECOND_PLAYER,
-  DRAW;
+  FIRST_PLAYER(0),
+  SECOND_PLAYER(1),
+  DRAW(2);
+
+  /** Количество значений. */
+  public static final int COUNT = 3;
+
+  private static final PlayerType[] BY_INDEX = new PlayerType[COUNT];
+
+  static {
+    for (PlayerType playerType : values()) {
+      BY_INDEX[playerType.index] = playerType;
+    }
+  }
+
+  /** Номер значения в таблицах, от 0 до {@link #COUNT}. */
+  private final int index;
+
+  PlayerType(int index) {
+    this.index = index;
+  }
+
+  /**
+   * Метод возвращает номер значения в таблицах. Номер задан явно и не зависит от порядка констант.
+   *
+   * @return номер от 0 до {@link #COUNT}.
+   */
+  public int index() {
+    return index;
+  }
+
+  /**
+   * Метод возвращает значение по номеру.
+   *
+   * @param index номер из {@link #index()}.
+   * @return игрок.
+   */
+  public static PlayerType byIndex(int index) {
+    return BY_INDEX[index];
+  }
 
   public PlayerType switchPlayer() {
     if (this == FIRST_PLAYER) {
@@ -0,0 +1,47 @@
+package io.deeplay.camp.game.mechanics;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Воспроизводимый кубик на {@link SplittableRandom}: одинаковый seed дает одинаковую
+ * последовательность бросков. Экземпляр не потокобезопасен, для параллельных симуляций и копий
+ * игрового состояния выдается свой кубик через {@link #split()}.
+ *
+ * <p>Seed нового кубика считается по seed исходного и номеру вызова {@link #split()}, а не берется
+ * из его бросков. Поэтому копии, которые делают боты во время перебора, не сдвигают броски партии.
+ */
+public final class SeededDice implements Dice {
+  /** Шаг последовательности seed-ов выданных кубиков, как в {@link SplittableRandom}. */
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private final SplittableRandom random;
+
+  /** Основа seed-ов кубиков, выданных через {@link #split()}. */
+  private final long splitSeed;
+
+  /** Количество выданных кубиков, общее для потоков, копирующих одно состояние. */
+  private final AtomicLong splits = new AtomicLong();
+
+  public SeededDice(long seed) {
+    random = new SplittableRandom(seed);
+    splitSeed = mix64(seed ^ GOLDEN_GAMMA);
+  }
+
+  @Override
+  public int roll() {
+    return random.nextInt(FACES);
+  }
+
+  @Override
+  public Dice split() {
+    return new SeededDice(mix64(splitSeed + splits.incrementAndGet() * GOLDEN_GAMMA));
+  }
+
+  /** Финализатор MurmurHash3, перемешивает биты seed-а. */
+  private static long mix64(long z) {
+    z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+    z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return z ^ (z >>> 33);
+  }
+}
@@ -0,0 +1,223 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.StateChance;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.exceptions.GameException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Граф хода игрока целиком. Вершина - состояние внутри хода, ребро - ход юнита с вероятностными
+ * исходами (см. {@link ChanceOutcomeEnumerator}). Вершины запоминаются по Zobrist-ключу, поэтому
+ * разные порядки ходов, приводящие к одному состоянию, сходятся в одну вершину и граф получается
+ * ациклическим без повторов. Листья - различные состояния в конце хода.
+ */
+public final class TurnGraph {
+  private final Map<Long, Node> nodes = new LinkedHashMap<>();
+  private final int maxOutcomes;
+  private final Node root;
+
+  private TurnGraph(GameState gameState, int maxOutcomes) throws GameException {
+    this.maxOutcomes = maxOutcomes;
+    this.root = expand(gameState.getCopy());
+  }
+
+  /**
+   * Метод строит граф хода текущего игрока со всеми исходами атак.
+   *
+   * @param gameState состояние в начале хода, не изменяется.
+   * @return граф хода.
+   * @throws GameException если ход не удалось применить.
+   */
+  public static TurnGraph build(GameState gameState) throws GameException {
+    return new TurnGraph(gameState, ChanceOutcomeEnumerator.ALL_OUTCOMES);
+  }
+
+  /**
+   * Метод строит граф хода текущего игрока, оставляя у каждого хода не больше maxOutcomes самых
+   * вероятных исходов.
+   *
+   * @param gameState состояние в начале хода, не изменяется.
+   * @param maxOutcomes максимальное количество исходов одного хода.
+   * @return граф хода.
+   * @throws GameException если ход не удалось применить.
+   */
+  public static TurnGraph build(GameState gameState, int maxOutcomes) throws GameException {
+    return new TurnGraph(gameState, maxOutcomes);
+  }
+
+  private Node expand(GameState gameState) throws GameException {
+    long key = gameState.getZobristKey();
+    Node node = nodes.get(key);
+    if (node != null) {
+      return node;
+    }
+    node = new Node(gameState, key);
+    nodes.put(key, node);
+    if (gameState.getGameStage() == GameStage.ENDED) {
+      return node;
+    }
+    for (MakeMoveEvent move : gameState.getPossibleMoves()) {
+      List<Outcome> outcomes = new ArrayList<>();
+      for (StateChance stateChance :
+          ChanceOutcomeEnumerator.enumerate(gameState, move, maxOutcomes)) {
+        outcomes.add(new Outcome(expand(stateChance.gameState()), stateChance.chance()));
+      }
+      node.edges.add(new Edge(move, Collections.unmodifiableList(outcomes)));
+    }
+    return node;
+  }
+
+  public Node getRoot() {
+    return root;
+  }
+
+  /**
+   * Метод возвращает все вершины графа.
+   *
+   * @return вершины в порядке обхода.
+   */
+  public Collection<Node> getNodes() {
+    return Collections.unmodifiableCollection(nodes.values());
+  }
+
+  /**
+   * Метод возвращает различные состояния в конце хода.
+   *
+   * @return листья графа.
+   */
+  public List<Node> getLeaves() {
+    List<Node> leaves = new ArrayList<>();
+    for (Node node : nodes.values()) {
+      if (node.isLeaf()) {
+        leaves.add(node);
+      }
+    }
+    return leaves;
+  }
+
+  /**
+   * Метод возвращает распределение состояний после заранее выбранной последовательности ходов.
+   * Ходы, ставшие невозможными после предыдущих исходов (например, цель погибла), пропускаются.
+   *
+   * @param complexMove последовательность ходов.
+   * @return различные состояния с вероятностями.
+   */
+  public List<StateChance> getOutcomes(List<MakeMoveEvent> complexMove) {
+    Map<Node, Double> current = new LinkedHashMap<>();
+    current.put(root, 1.0);
+    for (MakeMoveEvent move : complexMove) {
+      Map<Node, Double> next = new LinkedHashMap<>();
+      for (Map.Entry<Node, Double> entry : current.entrySet()) {
+        Edge edge = entry.getKey().findEdge(move);
+        if (edge == null) {
+          next.merge(entry.getKey(), entry.getValue(), Double::sum);
+          continue;
+        }
+        for (Outcome outcome : edge.outcomes()) {
+          next.merge(outcome.node(), entry.getValue() * outcome.chance(), Double::sum);
+        }
+      }
+      current = next;
+    }
+    List<StateChance> result = new ArrayList<>(current.size());
+    for (Map.Entry<Node, Double> entry : current.entrySet()) {
+      result.add(new StateChance(entry.getKey().getGameState(), entry.getValue()));
+    }
+    return result;
+  }
+
+  /**
+   * Метод считает ожидаемую оценку хода, если после каждого исхода игрок выбирает лучший
+   * следующий ход. Каждая вершина считается один раз.
+   *
+   * @param evaluator оценка состояния в конце хода.
+   * @return ожидаемая оценка корня.
+   */
+  public double getExpectedValue(ToDoubleFunction<GameState> evaluator) {
+    return expectedValue(root, evaluator, new HashMap<>());
+  }
+
+  private double expectedValue(
+      Node node, ToDoubleFunction<GameState> evaluator, Map<Node, Double> values) {
+    Double known = values.get(node);
+    if (known != null) {
+      return known;
+    }
+    double value;
+    if (node.isLeaf()) {
+      value = evaluator.applyAsDouble(node.getGameState());
+    } else {
+      value = Double.NEGATIVE_INFINITY;
+      for (Edge edge : node.getEdges()) {
+        double expected = 0;
+        for (Outcome outcome : edge.outcomes()) {
+          expected += outcome.chance() * expectedValue(outcome.node(), evaluator, values);
+        }
+        value = Math.max(value, expected);
+      }
+    }
+    values.put(node, value);
+    return value;
+  }
+
+  /** Вершина графа - состояние внутри хода. */
+  public static final class Node {
+    private final GameState gameState;
+    private final long key;
+    private final List<Edge> edges = new ArrayList<>();
+
+    private Node(GameState gameState, long key) {
+      this.gameState = gameState;
+      this.key = key;
+    }
+
+    public GameState getGameState() {
+      return gameState;
+    }
+
+    public long getKey() {
+      return key;
+    }
+
+    public List<Edge> getEdges() {
+      return Collections.unmodifiableList(edges);
+    }
+
+    public boolean isLeaf() {
+      return edges.isEmpty();
+    }
+
+    private Edge findEdge(MakeMoveEvent move) {
+      for (Edge edge : edges) {
+        if (edge.move().getFrom().equals(move.getFrom())
+            && edge.move().getTo().equals(move.getTo())) {
+          return edge;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Ход юнита из вершины.
+   *
+   * @param move ход.
+   * @param outcomes исходы хода, сумма вероятностей равна 1.
+   */
+  public record Edge(MakeMoveEvent move, List<Outcome> outcomes) {}
+
+  /**
+   * Исход хода.
+   *
+   * @param node вершина после хода.
+   * @param chance вероятность исхода.
+   */
+  public record Outcome(Node node, double chance) {}
+}
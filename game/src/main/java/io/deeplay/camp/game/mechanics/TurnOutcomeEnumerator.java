@@ -0,0 +1,170 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.StateChance;
+import io.deeplay.camp.game.entities.UnitType;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Распределение состояний в конце хода игрока при заранее выбранных ходах юнитов.
+ *
+ * <p>Исходы считаются динамикой по ходам: слой - различные состояния после первых k ходов с
+ * вероятностями, следующий слой получается применением (k+1)-го хода ко всем исходам слоя.
+ * Одинаковые состояния в слое сливаются, поэтому размер слоя ограничен количеством различных досок,
+ * а не 2^k. Состояния хранятся в {@link PackedGameState}, копия исхода - копирование одного
+ * массива. Флаги попадания последней атакой в исходах сбрасываются: они не влияют на правила и не
+ * входят в Zobrist-ключ, поэтому иначе одна доска считалась бы несколькими исходами. Ход, ставший
+ * невозможным после предыдущих исходов (атакующий или цель погибли), пропускается, как в {@link
+ * TurnGraph#getOutcomes(List)}.
+ */
+public final class TurnOutcomeEnumerator {
+  /** Без отсечения маловероятных исходов. */
+  public static final double ALL_OUTCOMES = 0;
+
+  private TurnOutcomeEnumerator() {}
+
+  /**
+   * Метод возвращает точное распределение состояний в конце хода.
+   *
+   * @param gameState состояние до хода, не изменяется.
+   * @param moves ходы юнитов в порядке применения.
+   * @return различные состояния по убыванию вероятности, сумма вероятностей равна 1.
+   */
+  public static List<StateChance> enumerate(GameState gameState, List<MakeMoveEvent> moves) {
+    return enumerate(gameState, moves, ALL_OUTCOMES);
+  }
+
+  /**
+   * Метод возвращает распределение состояний в конце хода, отбрасывая после каждого хода исходы с
+   * вероятностью меньше порога. Вероятности оставшихся исходов нормируются, чтобы их сумма была
+   * равна 1.
+   *
+   * @param gameState состояние до хода, не изменяется.
+   * @param moves ходы юнитов в порядке применения.
+   * @param minChance порог вероятности исхода, самый вероятный исход остается всегда.
+   * @return различные состояния по убыванию вероятности.
+   */
+  public static List<StateChance> enumerate(
+      GameState gameState, List<MakeMoveEvent> moves, double minChance) {
+    int[] encoded = new int[moves.size()];
+    for (int i = 0; i < encoded.length; i++) {
+      encoded[i] = PackedGameState.encodeMove(moves.get(i));
+    }
+    return enumerate(gameState, encoded, encoded.length, minChance);
+  }
+
+  /**
+   * Метод возвращает распределение состояний в конце хода по закодированным ходам {@link
+   * PackedGameState#encodeMove(int, int)}.
+   *
+   * @param gameState состояние до хода, не изменяется.
+   * @param moves закодированные ходы.
+   * @param count количество ходов.
+   * @param minChance порог вероятности исхода.
+   * @return различные состояния по убыванию вероятности.
+   */
+  public static List<StateChance> enumerate(
+      GameState gameState, int[] moves, int count, double minChance) {
+    Map<PackedGameState, Double> layer = new LinkedHashMap<>();
+    PackedGameState initial = PackedGameState.fromGameState(gameState);
+    initial.clearHitTargets();
+    layer.put(initial, 1.0);
+    int[] possibleMoves = new int[PackedGameState.MAX_MOVES];
+    for (int i = 0; i < count; i++) {
+      Map<PackedGameState, Double> next = new LinkedHashMap<>();
+      for (Map.Entry<PackedGameState, Double> entry : layer.entrySet()) {
+        PackedGameState state = entry.getKey();
+        if (isPossible(state, moves[i], possibleMoves)) {
+          addOutcomes(state, moves[i], entry.getValue(), next);
+        } else {
+          next.merge(state, entry.getValue(), Double::sum);
+        }
+      }
+      // Самый вероятный исход остается при любом пороге
+      double threshold = Math.min(minChance, Collections.max(next.values()));
+      next.values().removeIf(chance -> chance < threshold);
+      layer = next;
+    }
+
+    double total = 0;
+    for (double chance : layer.values()) {
+      total += chance;
+    }
+    List<StateChance> result = new ArrayList<>(layer.size());
+    for (Map.Entry<PackedGameState, Double> entry : layer.entrySet()) {
+      result.add(new StateChance(entry.getKey().toGameState(), entry.getValue() / total));
+    }
+    result.sort(Comparator.comparingDouble(StateChance::chance).reversed());
+    return result;
+  }
+
+  private static boolean isPossible(PackedGameState state, int move, int[] possibleMoves) {
+    if (state.getGameStage() == GameStage.ENDED) {
+      return false;
+    }
+    int count = state.generateMoves(possibleMoves);
+    for (int i = 0; i < count; i++) {
+      if (possibleMoves[i] == move) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Метод перебирает исходы бросков хода и добавляет их в слой. */
+  private static void addOutcomes(
+      PackedGameState state, int move, double chance, Map<PackedGameState, Double> next) {
+    int from = PackedGameState.moveFrom(move);
+    UnitType attackerType = state.getUnitType(from);
+    if (attackerType == UnitType.HEALER) {
+      PackedGameState outcome = state.getCopy();
+      outcome.makeMove(move, GameState.ALL_HIT);
+      outcome.clearHitTargets();
+      next.merge(outcome, chance, Double::sum);
+      return;
+    }
+
+    int[] targets = new int[PackedGameState.ARMY_SIZE];
+    double[] hitChances = new double[PackedGameState.ARMY_SIZE];
+    int targetCount = 0;
+    if (attackerType == UnitType.MAGE) {
+      int enemyStart = from < PackedGameState.ARMY_SIZE ? PackedGameState.ARMY_SIZE : 0;
+      for (int cell = enemyStart; cell < enemyStart + PackedGameState.ARMY_SIZE; cell++) {
+        if (!state.isEmpty(cell) && state.isAlive(cell)) {
+          targets[targetCount++] = cell;
+        }
+      }
+    } else {
+      targets[targetCount++] = PackedGameState.moveTo(move);
+    }
+    for (int i = 0; i < targetCount; i++) {
+      hitChances[i] =
+          CombatTables.hitChance(state.getAccuracy(from), state.getArmor(targets[i]));
+    }
+
+    for (int pattern = 0; pattern < 1 << targetCount; pattern++) {
+      double outcomeChance = chance;
+      int hitMask = 0;
+      for (int i = 0; i < targetCount; i++) {
+        if ((pattern & 1 << i) != 0) {
+          outcomeChance *= hitChances[i];
+          hitMask |= 1 << targets[i];
+        } else {
+          outcomeChance *= 1 - hitChances[i];
+        }
+      }
+      if (outcomeChance == 0) {
+        continue;
+      }
+      PackedGameState outcome = state.getCopy();
+      outcome.makeMove(move, hitMask);
+      outcome.clearHitTargets();
+      next.merge(outcome, outcomeChance, Double::sum);
+    }
+  }
+}
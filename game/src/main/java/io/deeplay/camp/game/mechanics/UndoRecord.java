@@ -0,0 +1,109 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.Army;
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitType;
+
+/**
+ * Запись для отмены хода. Хранит только изменяемые ходом примитивы: хп юнитов, флаги хода,
+ * состояние бафов армий и данные партии. Характеристики юнитов восстанавливаются повторным
+ * наложением бафа генерала.
+ */
+public final class UndoRecord {
+  private static final int CELLS = Board.ROWS * Board.COLUMNS;
+
+  private final byte[] hp = new byte[CELLS];
+  private final int movedMask;
+  private final int hitTargetMask;
+  private final ArmyFlags armyFirst;
+  private final ArmyFlags armySecond;
+  private final int countRound;
+  private final PlayerType currentPlayer;
+  private final GameStage gameStage;
+  private final PlayerType winner;
+  private final long zobristKey;
+
+  UndoRecord(GameState gameState) {
+    Board board = gameState.getBoard();
+    int moved = 0;
+    int hitTarget = 0;
+    for (int cell = 0; cell < CELLS; cell++) {
+      Unit unit = board.getUnit(cell % Board.COLUMNS, cell / Board.COLUMNS);
+      if (unit == null) {
+        continue;
+      }
+      hp[cell] = (byte) unit.getCurrentHp();
+      if (unit.isMoved()) {
+        moved |= 1 << cell;
+      }
+      if (unit.isHitTarget()) {
+        hitTarget |= 1 << cell;
+      }
+    }
+    movedMask = moved;
+    hitTargetMask = hitTarget;
+    armyFirst = new ArmyFlags(gameState.getArmyFirst());
+    armySecond = new ArmyFlags(gameState.getArmySecond());
+    countRound = gameState.getCountRound();
+    currentPlayer = gameState.getCurrentPlayer();
+    gameStage = gameState.getGameStage();
+    winner = gameState.getWinner();
+    zobristKey = gameState.getZobristKey();
+  }
+
+  /**
+   * Метод возвращает состояние к моменту создания записи.
+   *
+   * @param gameState состояние, на котором была создана запись.
+   */
+  void restore(GameState gameState) {
+    armyFirst.restore(gameState.getArmyFirst());
+    armySecond.restore(gameState.getArmySecond());
+    Board board = gameState.getBoard();
+    for (int cell = 0; cell < CELLS; cell++) {
+      Unit unit = board.getUnit(cell % Board.COLUMNS, cell / Board.COLUMNS);
+      if (unit == null) {
+        continue;
+      }
+      unit.setCurrentHp(hp[cell]);
+      unit.setMoved((movedMask & 1 << cell) != 0);
+      unit.setHitTarget((hitTargetMask & 1 << cell) != 0);
+    }
+    gameState.getArmyFirst().refreshAlive();
+    gameState.getArmySecond().refreshAlive();
+    gameState.setCountRound(countRound);
+    gameState.setCurrentPlayer(currentPlayer);
+    gameState.setGameStage(gameStage);
+    gameState.setWinner(winner);
+    gameState.restoreZobristKey(zobristKey);
+  }
+
+  private record ArmyFlags(UnitType generalType, boolean isAliveGeneral, boolean isBuffed) {
+    ArmyFlags(Army army) {
+      this(army.getGeneralType(), army.isAliveGeneral, army.isBuffed());
+    }
+
+    void restore(Army army) {
+      if (army.isBuffed() != isBuffed || army.getGeneralType() != generalType) {
+        if (army.isBuffed()) {
+          for (Unit unit : army.getUnits()) {
+            if (unit != null) {
+              unit.removeBuff(unit, army.getGeneralType());
+            }
+          }
+        }
+        if (isBuffed) {
+          for (Unit unit : army.getUnits()) {
+            if (unit != null) {
+              unit.applyBuff(unit, generalType);
+            }
+          }
+        }
+      }
+      army.generalType = generalType;
+      army.isAliveGeneral = isAliveGeneral;
+      army.isBuffed = isBuffed;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitType;
+import java.util.SplittableRandom;
+
+/**
+ * Таблицы Zobrist-хеширования игровых состояний. Ключ состояния - XOR ключей юнитов в клетках (тип,
+ * хп, флаги хода и генерала) и ключей партии (текущий игрок, оставшиеся раунды, стадия, победитель).
+ * Таблицы заполняются с фиксированным seed, поэтому ключи совпадают между запусками.
+ *
+ * <p>Характеристики юнитов в ключ не входят: они определяются типом юнита и бафом генерала, а баф - живым
+ * генералом на доске.
+ */
+public final class Zobrist {
+  private static final int CELLS = Board.ROWS * Board.COLUMNS;
+  private static final int HP_KEYS = 64;
+  private static final int ROUND_KEYS = 16;
+
+  private static final long[][] UNIT_TYPE = new long[CELLS][UnitType.COUNT];
+  private static final long[][] HP = new long[CELLS][HP_KEYS];
+  private static final long[] MOVED = new long[CELLS];
+  private static final long[] GENERAL = new long[CELLS];
+  private static final long SECOND_PLAYER;
+  private static final long[] ROUND = new long[ROUND_KEYS];
+  private static final long[] STAGE = new long[GameStage.COUNT];
+  private static final long[] WINNER = new long[PlayerType.COUNT + 1];
+  private static final long[][] MOVE = new long[CELLS][CELLS];
+
+  static {
+    SplittableRandom random = new SplittableRandom(0x5EED_2024L);
+    for (int cell = 0; cell < CELLS; cell++) {
+      for (int type = 0; type < UNIT_TYPE[cell].length; type++) {
+        UNIT_TYPE[cell][type] = random.nextLong();
+      }
+      for (int hp = 0; hp < HP_KEYS; hp++) {
+        HP[cell][hp] = random.nextLong();
+      }
+      MOVED[cell] = random.nextLong();
+      GENERAL[cell] = random.nextLong();
+    }
+    SECOND_PLAYER = random.nextLong();
+    for (int round = 0; round < ROUND_KEYS; round++) {
+      ROUND[round] = random.nextLong();
+    }
+    for (int stage = 0; stage < STAGE.length; stage++) {
+      STAGE[stage] = random.nextLong();
+    }
+    for (int winner = 0; winner < WINNER.length; winner++) {
+      WINNER[winner] = random.nextLong();
+    }
+    for (int from = 0; from < CELLS; from++) {
+      for (int to = 0; to < CELLS; to++) {
+        MOVE[from][to] = random.nextLong();
+      }
+    }
+  }
+
+  private Zobrist() {}
+
+  /**
+   * Метод возвращает ключ юнита в клетке.
+   *
+   * @param x колонка.
+   * @param y полоса.
+   * @param unit юнит или null.
+   * @return ключ, 0 для пустой клетки.
+   */
+  public static long unitKey(int x, int y, Unit unit) {
+    if (unit == null) {
+      return 0;
+    }
+    int cell = y * Board.COLUMNS + x;
+    long key =
+        UNIT_TYPE[cell][unit.getUnitType().index()]
+            ^ HP[cell][Math.min(Math.max(unit.getCurrentHp(), 0), HP_KEYS - 1)];
+    if (unit.isMoved()) {
+      key ^= MOVED[cell];
+    }
+    if (unit.isGeneral()) {
+      key ^= GENERAL[cell];
+    }
+    return key;
+  }
+
+  /**
+   * Метод возвращает ключ флага хода в клетке.
+   *
+   * @param x колонка.
+   * @param y полоса.
+   * @return ключ.
+   */
+  public static long movedKey(int x, int y) {
+    return MOVED[y * Board.COLUMNS + x];
+  }
+
+  /**
+   * Метод возвращает ключ хода. XOR ключей ходов не зависит от их порядка, поэтому кодирует набор
+   * сделанных за ход действий.
+   *
+   * @param from клетка атакующего {@code y * Board.COLUMNS + x}.
+   * @param to клетка цели.
+   * @return ключ.
+   */
+  public static long moveKey(int from, int to) {
+    return MOVE[from][to];
+  }
+
+  /**
+   * Метод возвращает ключ данных партии: текущего игрока, оставшихся раундов, стадии и победителя.
+   *
+   * @param gameState игровое состояние.
+   * @return ключ.
+   */
+  public static long matchKey(GameState gameState) {
+    long key = ROUND[Math.floorMod(gameState.getCountRound(), ROUND_KEYS)];
+    if (gameState.getCurrentPlayer() == PlayerType.SECOND_PLAYER) {
+      key ^= SECOND_PLAYER;
+    }
+    if (gameState.getGameStage() != null) {
+      key ^= STAGE[gameState.getGameStage().index()];
+    }
+    key ^= WINNER[gameState.getWinner() == null ? 0 : gameState.getWinner().index() + 1];
+    return key;
+  }
+
+  /**
+   * Метод считает ключ состояния с нуля.
+   *
+   * @param gameState игровое состояние.
+   * @return ключ.
+   */
+  public static long compute(GameState gameState) {
+    long key = matchKey(gameState);
+    Board board = gameState.getBoard();
+    if (board == null) {
+      return key;
+    }
+    for (int x = 0; x < Board.COLUMNS; x++) {
+      for (int y = 0; y < Board.ROWS; y++) {
+        key ^= unitKey(x, y, board.getUnit(x, y));
+      }
+    }
+    return key;
+  }
+}
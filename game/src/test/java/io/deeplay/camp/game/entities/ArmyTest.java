@@ -45,4 +45,42 @@ class ArmyTest {
     army.getUnits()[1].setGeneral(false);
     Assertions.assertNotEquals(true, army.isAliveGeneral());
   }
+
+  @Test
+  void aliveCountTracksRefreshedCells() {
+    Board board = new Board();
+    for (int x = 0; x < Board.COLUMNS; x++) {
+      for (int y = 0; y < Board.ROWS; y++) {
+        PlayerType owner = y < Board.ROWS / 2 ? PlayerType.FIRST_PLAYER : PlayerType.SECOND_PLAYER;
+        board.setUnit(x, y, new Knight(owner));
+      }
+    }
+    Army first = new Army(PlayerType.FIRST_PLAYER);
+    first.fillArmy(board);
+    Assertions.assertEquals(6, first.getAliveCount());
+
+    board.getUnit(1, 1).setCurrentHp(0);
+    first.refreshAlive(1, 1);
+    Assertions.assertEquals(5, first.getAliveCount());
+
+    board.getUnit(1, 2).setCurrentHp(0);
+    first.refreshAlive(1, 2);
+    Assertions.assertEquals(5, first.getAliveCount());
+  }
+
+  @Test
+  void healerBuffRevivesTrackedUnits() {
+    Army healerArmy = new Army(PlayerType.FIRST_PLAYER);
+    Board board = new Board();
+    board.setUnit(0, 0, new Healer(PlayerType.FIRST_PLAYER));
+    board.setUnit(1, 0, new Knight(PlayerType.FIRST_PLAYER));
+    board.getUnit(0, 0).setGeneral(true);
+    board.getUnit(1, 0).setCurrentHp(0);
+    healerArmy.fillArmy(board);
+    Assertions.assertEquals(1, healerArmy.getAliveCount());
+
+    Assertions.assertTrue(healerArmy.isAliveGeneral());
+    Assertions.assertEquals(2, healerArmy.getAliveCount());
+    Assertions.assertTrue(healerArmy.hasAliveUnits());
+  }
 }
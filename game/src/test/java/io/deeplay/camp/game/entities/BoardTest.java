@@ -0,0 +1,50 @@
+package io.deeplay.camp.game.entities;
+
+import io.deeplay.camp.game.mechanics.GameState;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BoardTest {
+
+  Board board;
+
+  @BeforeEach
+  void setUp() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    board = gameState.getBoard();
+  }
+
+  @Test
+  void getCopyTest() {
+    Board copy = board.getCopy();
+    Assertions.assertEquals(board, copy);
+    Assertions.assertNotSame(board.getUnit(0, 0), copy.getUnit(0, 0));
+  }
+
+  @Test
+  void copyIntoReusesUnitsTest() {
+    Board target = board.getCopy();
+    Unit reused = target.getUnit(0, 0);
+    board.getUnit(0, 0).setCurrentHp(3);
+    board.getUnit(1, 0).setMoved(true);
+
+    board.copyInto(target);
+
+    Assertions.assertEquals(board, target);
+    Assertions.assertSame(reused, target.getUnit(0, 0));
+    Assertions.assertEquals(3, target.getUnit(0, 0).getCurrentHp());
+  }
+
+  @Test
+  void copyIntoReplacesOtherTypesTest() {
+    Board target = new Board();
+    target.setUnit(1, 0, new Archer(board.getUnit(1, 0).getPlayerType()));
+
+    board.copyInto(target);
+
+    Assertions.assertEquals(board, target);
+    Assertions.assertEquals(UnitType.MAGE, target.getUnit(1, 0).getUnitType());
+  }
+}
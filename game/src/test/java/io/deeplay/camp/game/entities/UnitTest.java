@@ -1,5 +1,9 @@
 package io.deeplay.camp.game.entities;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.deeplay.camp.game.mechanics.PlayerType;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -69,4 +73,76 @@ class UnitTest {
     boolean actual = false;
     Assertions.assertEquals(expected, actual);
   }
+
+  @Test
+  void statsAreSharedByType() {
+    Knight first = new Knight(PlayerType.FIRST_PLAYER);
+    Knight second = new Knight(PlayerType.SECOND_PLAYER);
+    Assertions.assertSame(first.getStats(), second.getStats());
+    Assertions.assertSame(first.getStats(), first.getCopy().getStats());
+    Assertions.assertSame(StatModifier.NONE, first.getModifier());
+  }
+
+  @Test
+  void buffIsRemovedWithoutTrace() {
+    for (UnitType generalType : UnitType.values()) {
+      Knight unit = new Knight(PlayerType.FIRST_PLAYER);
+      unit.setCurrentHp(9);
+      unit.applyBuff(unit, generalType);
+      Assertions.assertSame(StatModifier.buff(generalType), unit.getModifier());
+      unit.removeBuff(unit, generalType);
+      Assertions.assertSame(StatModifier.NONE, unit.getModifier());
+      Assertions.assertEquals(new Knight(PlayerType.FIRST_PLAYER).getArmor(), unit.getArmor());
+    }
+  }
+
+  @Test
+  void healerBuffHealsAndClampsHp() {
+    Archer unit = new Archer(PlayerType.FIRST_PLAYER);
+    unit.setCurrentHp(1);
+    unit.applyBuff(unit, UnitType.HEALER);
+    Assertions.assertEquals(17, unit.getMaxHp());
+    Assertions.assertEquals(17, unit.getCurrentHp());
+    unit.removeBuff(unit, UnitType.HEALER);
+    Assertions.assertEquals(10, unit.getCurrentHp());
+  }
+
+  @Test
+  void setterOverridesEffectiveStat() {
+    Archer unit = new Archer(PlayerType.FIRST_PLAYER);
+    unit.applyBuff(unit, UnitType.KNIGHT);
+    unit.setArmor(40);
+    Assertions.assertEquals(40, unit.getArmor());
+    Assertions.assertEquals(7, unit.getAccuracy());
+    Assertions.assertNotEquals(new Archer(PlayerType.FIRST_PLAYER), unit);
+  }
+
+  @Test
+  void equalUnitsHaveEqualHashes() {
+    Mage first = new Mage(PlayerType.SECOND_PLAYER);
+    Mage second = new Mage(PlayerType.SECOND_PLAYER);
+    first.applyBuff(first, UnitType.MAGE);
+    second.setDamage(second.getDamage() + 1);
+    Assertions.assertEquals(first, second);
+    Assertions.assertEquals(first.hashCode(), second.hashCode());
+  }
+
+  @Test
+  void jsonRoundTripKeepsBuffedDamagedUnit() throws JsonProcessingException {
+    Knight unit = new Knight(PlayerType.FIRST_PLAYER);
+    unit.applyBuff(unit, UnitType.HEALER);
+    unit.setCurrentHp(unit.getMaxHp() - 1);
+    Assertions.assertEquals(21, unit.getCurrentHp());
+
+    // Сервер пишет состояние по полям, как JsonConverter
+    ObjectMapper fieldMapper = new ObjectMapper();
+    fieldMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+    fieldMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    for (ObjectMapper mapper : new ObjectMapper[] {new ObjectMapper(), fieldMapper}) {
+      Unit copy = mapper.readValue(mapper.writeValueAsString(unit), Unit.class);
+      Assertions.assertEquals(unit, copy);
+      Assertions.assertEquals(21, copy.getCurrentHp());
+      Assertions.assertEquals(22, copy.getMaxHp());
+    }
+  }
 }
@@ -0,0 +1,75 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+public class BatchSimulatorTest {
+
+  @Test
+  public void testSameAsPackedGameState() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    int[] moves = new int[PackedGameState.MAX_MOVES];
+    int[] batchMoves = new int[PackedGameState.MAX_MOVES];
+    for (long seed = 0; seed < 50; seed++) {
+      PackedGameState packed = PackedGameState.fromGameState(gameState);
+      SplittableRandom packedRandom = new SplittableRandom(seed);
+      BatchSimulator simulator = new BatchSimulator(gameState, 1, new SplittableRandom(seed));
+
+      while (packed.getGameStage() != GameStage.ENDED) {
+        int count = packed.generateMoves(moves);
+        assertEquals(count, simulator.generateMoves(0, batchMoves));
+        for (int i = 0; i < count; i++) {
+          assertEquals(moves[i], batchMoves[i]);
+        }
+        if (count == 0) {
+          packed.changeCurrentPlayer();
+        } else {
+          packed.makeRandomMove(moves[packedRandom.nextInt(count)], packedRandom);
+        }
+        simulator.step(BatchSimulator.RANDOM);
+
+        for (int cell = 0; cell < PackedGameState.CELLS; cell++) {
+          assertEquals(packed.getHp(cell), simulator.getHp(0, cell));
+          assertEquals(packed.getMaxHp(cell), simulator.getMaxHp(0, cell));
+        }
+        assertEquals(packed.getCurrentPlayer(), simulator.getCurrentPlayer(0));
+      }
+      assertEquals(expectedOutcome(packed.getWinner()), simulator.getOutcome(0));
+    }
+  }
+
+  @Test
+  public void testRunCountsAllGames() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+
+    BatchSimulator.Result result =
+        new BatchSimulator(gameState, 1000, new SplittableRandom(1)).run(BatchSimulator.RANDOM);
+
+    assertEquals(1000, result.games());
+    assertEquals(
+        result, new BatchSimulator(gameState, 1000, new SplittableRandom(1)).run(BatchSimulator.RANDOM));
+  }
+
+  @Test
+  public void testPolicyCanPass() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    BatchSimulator simulator = new BatchSimulator(gameState, 10, new SplittableRandom(1));
+
+    BatchSimulator.Result result = simulator.run((batch, game, moves, count, random) -> -1);
+
+    assertEquals(10, result.draws());
+    assertEquals(0, simulator.getCountRound(0));
+  }
+
+  private int expectedOutcome(PlayerType winner) {
+    if (winner == PlayerType.FIRST_PLAYER) {
+      return BatchSimulator.FIRST_WIN;
+    }
+    return winner == PlayerType.SECOND_PLAYER ? BatchSimulator.SECOND_WIN : BatchSimulator.DRAW;
+  }
+}
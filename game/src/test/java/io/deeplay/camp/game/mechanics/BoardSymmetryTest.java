@@ -0,0 +1,70 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.Position;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class BoardSymmetryTest {
+
+  @Test
+  public void testMirroredKeyMatchesMirroredState() {
+    for (long seed = 0; seed < 20; seed++) {
+      GameState gameState = TestGameStates.randomGameState(new Random(seed), true);
+      GameState mirrored = gameState.getCopy();
+      mirrored.setBoard(BoardSymmetry.Transform.MIRROR.apply(gameState.getBoard()));
+
+      assertEquals(Zobrist.compute(mirrored), BoardSymmetry.mirroredKey(gameState));
+      assertEquals(
+          BoardSymmetry.canonicalKey(gameState), BoardSymmetry.canonicalKey(mirrored));
+    }
+  }
+
+  @Test
+  public void testCanonicalKeyTransformSharesMoves() {
+    for (long seed = 0; seed < 20; seed++) {
+      GameState gameState = TestGameStates.randomGameState(new Random(seed), true);
+      GameState mirrored = gameState.getCopy();
+      mirrored.setBoard(BoardSymmetry.Transform.MIRROR.apply(gameState.getBoard()));
+      BoardSymmetry.Transform transform = BoardSymmetry.canonicalKeyTransform(gameState);
+      BoardSymmetry.Transform mirroredTransform = BoardSymmetry.canonicalKeyTransform(mirrored);
+
+      for (int from = 0; from < PackedGameState.CELLS; from++) {
+        int move = PackedGameState.encodeMove(from, PackedGameState.CELLS - 1 - from);
+        assertEquals(
+            transform.move(move),
+            mirroredTransform.move(BoardSymmetry.Transform.MIRROR.move(move)));
+      }
+    }
+  }
+
+  @Test
+  public void testCanonicalOrientationIsShared() {
+    for (long seed = 0; seed < 20; seed++) {
+      Board board = TestGameStates.randomGameState(new Random(seed), true).getBoard();
+      Board mirrored = BoardSymmetry.Transform.MIRROR.apply(board);
+
+      Board canonical = BoardSymmetry.canonicalTransform(board).apply(board);
+      Board canonicalMirrored = BoardSymmetry.canonicalTransform(mirrored).apply(mirrored);
+
+      assertEquals(canonical, canonicalMirrored);
+      assertEquals(
+          BoardSymmetry.Transform.IDENTITY, BoardSymmetry.canonicalTransform(canonical));
+    }
+  }
+
+  @Test
+  public void testTransformMapsBack() {
+    BoardSymmetry.Transform transform = BoardSymmetry.Transform.MIRROR;
+    Position position = new Position(0, 3);
+
+    assertEquals(new Position(2, 3), transform.apply(position));
+    assertEquals(position, transform.inverse().apply(transform.apply(position)));
+    assertEquals(5, transform.cell(3));
+    assertEquals(4, transform.cell(4));
+    assertEquals(
+        PackedGameState.encodeMove(5, 4), transform.move(PackedGameState.encodeMove(3, 4)));
+  }
+}
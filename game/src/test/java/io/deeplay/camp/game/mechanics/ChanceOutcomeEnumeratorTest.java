@@ -0,0 +1,124 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.StateChance;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitType;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.exceptions.GameException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ChanceOutcomeEnumeratorTest {
+
+  @Test
+  public void testMassAttackHasOutcomePerHitPattern() throws GameException {
+    GameState gameState = TestGameStates.defaultGameState();
+    MakeMoveEvent move = findMove(gameState, UnitType.MAGE);
+
+    List<StateChance> outcomes = ChanceOutcomeEnumerator.enumerate(gameState, move);
+
+    assertEquals(1 << 6, outcomes.size());
+    assertEquals(1, totalChance(outcomes), 1e-9);
+    for (int i = 1; i < outcomes.size(); i++) {
+      assertTrue(outcomes.get(i - 1).chance() >= outcomes.get(i).chance());
+    }
+  }
+
+  @Test
+  public void testDeadTargetsAreMerged() throws GameException {
+    GameState gameState = TestGameStates.defaultGameState();
+    gameState.getBoard().getUnit(0, 2).setCurrentHp(0);
+    MakeMoveEvent move = findMove(gameState, UnitType.MAGE);
+
+    List<StateChance> outcomes = ChanceOutcomeEnumerator.enumerate(gameState, move);
+
+    assertEquals(1 << 5, outcomes.size());
+    assertEquals(1, totalChance(outcomes), 1e-9);
+  }
+
+  @Test
+  public void testOutcomeMatchesPerTargetChance() throws GameException {
+    GameState gameState = TestGameStates.defaultGameState();
+    MakeMoveEvent move = findMove(gameState, UnitType.MAGE);
+    Unit mage = gameState.getBoard().getUnit(move.getFrom().x(), move.getFrom().y());
+
+    double expected = 1;
+    for (int x = 0; x < Board.COLUMNS; x++) {
+      for (int y = Board.ROWS / 2; y < Board.ROWS; y++) {
+        expected *= ChanceOutcomeEnumerator.hitChance(mage, gameState.getBoard().getUnit(x, y));
+      }
+    }
+    GameState allHit = gameState.getCopy();
+    allHit.makeMove(move, true);
+
+    for (StateChance outcome : ChanceOutcomeEnumerator.enumerate(gameState, move)) {
+      if (outcome.gameState().getZobristKey() == allHit.getZobristKey()) {
+        assertEquals(expected, outcome.chance(), 1e-12);
+        return;
+      }
+    }
+    fail("Нет исхода с попаданием по всем целям");
+  }
+
+  @Test
+  public void testTopOutcomesAreNormalized() throws GameException {
+    GameState gameState = TestGameStates.defaultGameState();
+    MakeMoveEvent move = findMove(gameState, UnitType.MAGE);
+
+    List<StateChance> outcomes = ChanceOutcomeEnumerator.enumerate(gameState, move, 4);
+    List<StateChance> allOutcomes = ChanceOutcomeEnumerator.enumerate(gameState, move);
+
+    assertEquals(4, outcomes.size());
+    assertEquals(1, totalChance(outcomes), 1e-9);
+    for (int i = 0; i < outcomes.size(); i++) {
+      assertEquals(
+          allOutcomes.get(i).gameState().getZobristKey(),
+          outcomes.get(i).gameState().getZobristKey());
+    }
+  }
+
+  @Test
+  public void testSingleTargetAttack() throws GameException {
+    GameState gameState = TestGameStates.defaultGameState();
+    MakeMoveEvent move = findMove(gameState, UnitType.ARCHER);
+    Unit archer = gameState.getBoard().getUnit(move.getFrom().x(), move.getFrom().y());
+    Unit target = gameState.getBoard().getUnit(move.getTo().x(), move.getTo().y());
+
+    List<StateChance> outcomes = ChanceOutcomeEnumerator.enumerate(gameState, move);
+
+    double hitChance = ChanceOutcomeEnumerator.hitChance(archer, target);
+    assertEquals(hitChance > 0 && hitChance < 1 ? 2 : 1, outcomes.size());
+    assertEquals(1, totalChance(outcomes), 1e-9);
+  }
+
+  @Test
+  public void testHitChanceIsClamped() {
+    Unit archer = Unit.createUnitByUnitType(UnitType.ARCHER, PlayerType.FIRST_PLAYER);
+    Unit knight = Unit.createUnitByUnitType(UnitType.KNIGHT, PlayerType.SECOND_PLAYER);
+
+    archer.setAccuracy(100);
+    assertEquals(1, ChanceOutcomeEnumerator.hitChance(archer, knight));
+    archer.setAccuracy(-100);
+    assertEquals(0, ChanceOutcomeEnumerator.hitChance(archer, knight));
+  }
+
+  private MakeMoveEvent findMove(GameState gameState, UnitType unitType) {
+    for (MakeMoveEvent move : gameState.getPossibleMoves()) {
+      if (move.getAttacker().getUnitType() == unitType) {
+        return move;
+      }
+    }
+    throw new AssertionError("Нет хода для " + unitType);
+  }
+
+  private double totalChance(List<StateChance> outcomes) {
+    double total = 0;
+    for (StateChance outcome : outcomes) {
+      total += outcome.chance();
+    }
+    return total;
+  }
+}
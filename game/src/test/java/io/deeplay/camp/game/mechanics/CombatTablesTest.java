@@ -0,0 +1,67 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.game.entities.StatModifier;
+import io.deeplay.camp.game.entities.UnitStats;
+import io.deeplay.camp.game.entities.UnitType;
+import org.junit.jupiter.api.Test;
+
+public class CombatTablesTest {
+  private static final UnitType[] BUFFS = {
+    null, UnitType.KNIGHT, UnitType.ARCHER, UnitType.MAGE, UnitType.HEALER
+  };
+
+  @Test
+  public void testHitChanceCountsDiceFaces() {
+    for (int accuracy = -30; accuracy <= 30; accuracy++) {
+      for (int armor = 0; armor <= 30; armor++) {
+        int hitFaces = 0;
+        for (int roll = 0; roll < Dice.FACES; roll++) {
+          if (roll + accuracy > armor) {
+            hitFaces++;
+          }
+        }
+        assertEquals(
+            (double) hitFaces / Dice.FACES, CombatTables.hitChance(accuracy, armor), 1e-12);
+      }
+    }
+  }
+
+  @Test
+  public void testTablesMatchStats() {
+    for (UnitType attacker : UnitType.values()) {
+      for (UnitType attackerBuff : BUFFS) {
+        UnitStats stats = UnitStats.of(attacker);
+        StatModifier modifier =
+            attackerBuff == null ? StatModifier.NONE : StatModifier.buff(attackerBuff);
+        int damage = stats.damage() + modifier.damage();
+        assertEquals(stats.maxHp() + modifier.maxHp(), CombatTables.maxHp(attacker, attackerBuff));
+        assertEquals(damage, CombatTables.damage(attacker, attackerBuff));
+        assertEquals(
+            stats.accuracy() + modifier.accuracy(), CombatTables.accuracy(attacker, attackerBuff));
+        assertEquals(stats.armor() + modifier.armor(), CombatTables.armor(attacker, attackerBuff));
+        assertTrue(CombatTables.maxHp(attacker, attackerBuff) <= CombatTables.MAX_HP);
+        for (int hp = 0; hp <= CombatTables.MAX_HP; hp++) {
+          assertEquals(
+              Math.max(0, hp - damage), CombatTables.hpAfterHit(attacker, attackerBuff, hp));
+        }
+
+        for (UnitType defender : UnitType.values()) {
+          for (UnitType defenderBuff : BUFFS) {
+            double chance =
+                CombatTables.hitChance(
+                    CombatTables.accuracy(attacker, attackerBuff),
+                    CombatTables.armor(defender, defenderBuff));
+            assertEquals(
+                chance, CombatTables.hitChance(attacker, attackerBuff, defender, defenderBuff));
+            assertEquals(
+                chance * damage,
+                CombatTables.expectedDamage(attacker, attackerBuff, defender, defenderBuff),
+                1e-12);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.exceptions.GameException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class DiceTest {
+
+  @Test
+  public void testRollRange() {
+    Dice dice = new SeededDice(7);
+    boolean[] seen = new boolean[Dice.FACES];
+    for (int i = 0; i < 10_000; i++) {
+      int roll = dice.roll();
+      assertTrue(roll >= 0 && roll < Dice.FACES);
+      seen[roll] = true;
+      int threadLocalRoll = Dice.THREAD_LOCAL.roll();
+      assertTrue(threadLocalRoll >= 0 && threadLocalRoll < Dice.FACES);
+    }
+    for (boolean face : seen) {
+      assertTrue(face);
+    }
+  }
+
+  @Test
+  public void testSameSeedSameRolls() {
+    Dice first = new SeededDice(42);
+    Dice second = new SeededDice(42);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(first.roll(), second.roll());
+    }
+  }
+
+  @Test
+  public void testSplitIsReproducible() {
+    Dice first = new SeededDice(42).split();
+    Dice second = new SeededDice(42).split();
+    for (int i = 0; i < 100; i++) {
+      assertEquals(first.roll(), second.roll());
+    }
+  }
+
+  @Test
+  public void testSameSeedSameGame() throws GameException {
+    for (long seed = 0; seed < 20; seed++) {
+      assertEquals(playGame(seed, true), playGame(seed, true));
+    }
+  }
+
+  @Test
+  public void testRollsOnCopiesDoNotShiftGame() throws GameException {
+    for (long seed = 0; seed < 20; seed++) {
+      assertEquals(playGame(seed, false), playGame(seed, true));
+    }
+  }
+
+  @Test
+  public void testCopiesGetOwnDice() {
+    GameState gameState = new GameState();
+    gameState.setDice(new SeededDice(42));
+    Dice first = gameState.getCopy().getDice();
+    Dice second = gameState.getCopy().getDice();
+    assertNotSame(gameState.getDice(), first);
+    assertNotSame(first, second);
+  }
+
+  /**
+   * Играет партию первыми возможными ходами и возвращает ключи всех состояний.
+   *
+   * @param rollOnCopies флаг, обозначающий, что перед каждым ходом последний ход делается на копии.
+   */
+  private List<Long> playGame(long seed, boolean rollOnCopies) throws GameException {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    gameState.setDice(new SeededDice(seed));
+    List<Long> keys = new ArrayList<>();
+    while (gameState.getGameStage() != GameStage.ENDED) {
+      List<MakeMoveEvent> possibleMoves = gameState.getPossibleMoves();
+      if (possibleMoves.isEmpty()) {
+        gameState.changeCurrentPlayer();
+      } else {
+        if (rollOnCopies) {
+          gameState.getCopy().makeMove(possibleMoves.get(possibleMoves.size() - 1));
+        }
+        gameState.makeMove(possibleMoves.get(0));
+      }
+      keys.add(gameState.getZobristKey());
+    }
+    return keys;
+  }
+}
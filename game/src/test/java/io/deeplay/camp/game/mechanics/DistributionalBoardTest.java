@@ -0,0 +1,92 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.game.entities.AttackType;
+import io.deeplay.camp.game.entities.StateChance;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.exceptions.GameException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class DistributionalBoardTest {
+
+  @Test
+  public void testSingleMoveMatchesEnumeration() throws GameException {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    for (MakeMoveEvent move : gameState.getPossibleMoves()) {
+      DistributionalBoard board = DistributionalBoard.of(gameState);
+      board.makeMove(move);
+
+      double[] expectedHp = new double[PackedGameState.CELLS];
+      for (StateChance stateChance : ChanceOutcomeEnumerator.enumerate(gameState, move)) {
+        for (int cell = 0; cell < PackedGameState.CELLS; cell++) {
+          Unit unit =
+              stateChance
+                  .gameState()
+                  .getBoard()
+                  .getUnit(PackedGameState.x(cell), PackedGameState.y(cell));
+          expectedHp[cell] += stateChance.chance() * unit.getCurrentHp();
+        }
+      }
+      for (int cell = 0; cell < PackedGameState.CELLS; cell++) {
+        assertEquals(expectedHp[cell], board.getExpectedHp(cell), 1e-9);
+        assertEquals(1, sum(board.getHpDistribution(cell)), 1e-9);
+      }
+    }
+  }
+
+  @Test
+  public void testMoveSequenceMatchesSimulation() throws GameException {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    gameState.setDice(new SeededDice(5));
+    List<MakeMoveEvent> moves = new ArrayList<>();
+    GameState planning = gameState.getCopy();
+    while (!planning.getPossibleMoves().isEmpty()) {
+      MakeMoveEvent move =
+          planning.getPossibleMoves().stream()
+              .filter(
+                  possibleMove ->
+                      possibleMove.getAttacker().getAttackType() != AttackType.MASS_ATTACK)
+              .findFirst()
+              .orElse(planning.getPossibleMoves().get(0));
+      moves.add(move);
+      planning.makeMove(move, true);
+    }
+
+    DistributionalBoard board = DistributionalBoard.of(gameState);
+    board.makeMoves(moves);
+
+    int games = 20000;
+    double secondAlive = 0;
+    for (int i = 0; i < games; i++) {
+      GameState copy = gameState.getCopy();
+      for (MakeMoveEvent move : moves) {
+        MakeMoveEvent copyMove = copy.toMakeMoveEvent(PackedGameState.encodeMove(move));
+        if (copy.checkMove(copyMove).isValid()) {
+          copy.makeMove(copyMove);
+        }
+      }
+      for (int cell = PackedGameState.ARMY_SIZE; cell < PackedGameState.CELLS; cell++) {
+        if (copy.getBoard().getUnit(PackedGameState.x(cell), PackedGameState.y(cell)).isAlive()) {
+          secondAlive++;
+        }
+      }
+    }
+
+    assertEquals(
+        secondAlive / games, board.getExpectedAliveCount(PlayerType.SECOND_PLAYER), 0.05);
+  }
+
+  private double sum(double[] distribution) {
+    double sum = 0;
+    for (double chance : distribution) {
+      sum += chance;
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,45 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class EngineTraceTest {
+
+  @Test
+  public void testDisabledByDefault() {
+    assertFalse(EngineTrace.ENABLED);
+  }
+
+  @Test
+  public void testRecentEventsAreFormattedInOrder() {
+    EngineTrace.clear();
+    EngineTrace.trace("Empty cell (X-{},Y-{})", 1, 2);
+    EngineTrace.trace("Result {}, game is {}", PlayerType.DRAW, GameStage.ENDED);
+
+    List<EngineTrace.Event> events = EngineTrace.recentEvents();
+
+    assertEquals(2, events.size());
+    assertEquals("Empty cell (X-1,Y-2)", events.get(0).message());
+    assertEquals("Result DRAW, game is ENDED", events.get(1).message());
+    assertTrue(events.get(0).sequence() < events.get(1).sequence());
+  }
+
+  @Test
+  public void testRingBufferKeepsLatestEvents() {
+    EngineTrace.clear();
+    for (int i = 0; i < 3000; i++) {
+      EngineTrace.trace("Event {}", i);
+    }
+
+    List<EngineTrace.Event> events = EngineTrace.recentEvents();
+
+    assertFalse(events.isEmpty());
+    assertTrue(events.size() < 3000);
+    assertEquals("Event 2999", events.getLast().message());
+    for (int i = 1; i < events.size(); i++) {
+      assertEquals(events.get(i - 1).sequence() + 1, events.get(i).sequence());
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.game.entities.AttackType;
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.exceptions.GameException;
+import org.junit.jupiter.api.Test;
+
+public class GameStateSnapshotTest {
+
+  @Test
+  public void testMoveSharesUntouchedRows() throws GameException {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    GameStateSnapshot before = GameStateSnapshot.of(gameState);
+    MakeMoveEvent move =
+        gameState.getPossibleMoves().stream()
+            .filter(
+                possibleMove ->
+                    possibleMove.getAttacker().getAttackType() != AttackType.MASS_ATTACK)
+            .findFirst()
+            .orElseThrow();
+
+    gameState.makeMove(move, true);
+    GameStateSnapshot after = before.next(gameState);
+
+    for (int y = 0; y < Board.ROWS; y++) {
+      if (y == move.getFrom().y() || y == move.getTo().y()) {
+        assertNotSame(before.row(y), after.row(y));
+      } else {
+        assertSame(before.row(y), after.row(y));
+      }
+    }
+    for (int x = 0; x < Board.COLUMNS; x++) {
+      if (x != move.getFrom().x()) {
+        assertSame(
+            before.getUnit(x, move.getFrom().y()), after.getUnit(x, move.getFrom().y()));
+      }
+    }
+    assertTrue(after.getUnit(move.getFrom().x(), move.getFrom().y()).moved());
+    assertFalse(before.getUnit(move.getFrom().x(), move.getFrom().y()).moved());
+  }
+
+  @Test
+  public void testUnchangedStateReturnsSameSnapshot() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    GameStateSnapshot snapshot = GameStateSnapshot.of(gameState);
+
+    assertSame(snapshot, snapshot.next(gameState));
+  }
+
+  @Test
+  public void testToGameStateRestoresState() throws GameException {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    gameState.makeMove(gameState.getPossibleMoves().get(0), true);
+    GameStateSnapshot snapshot = GameStateSnapshot.of(gameState);
+
+    GameState restored = snapshot.toGameState();
+
+    assertEquals(gameState.getZobristKey(), restored.getZobristKey());
+    assertEquals(gameState.getBoard(), restored.getBoard());
+    assertEquals(gameState.getArmyFirst().isBuffed(), restored.getArmyFirst().isBuffed());
+    assertEquals(gameState.getPossibleMoves().size(), restored.getPossibleMoves().size());
+  }
+}
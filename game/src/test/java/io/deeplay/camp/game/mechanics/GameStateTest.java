@@ -14,7 +14,11 @@ import io.deeplay.camp.game.exceptions.GameException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 public class GameStateTest {
@@ -269,4 +273,176 @@ public class GameStateTest {
     copiedGameState.setWinner(PlayerType.FIRST_PLAYER);
     assertNotEquals(gameState.getWinner(), copiedGameState.getWinner());
   }
+
+  @Test
+  void makeMoveWithHitAndUndo() throws GameException {
+    gameState.setGameStage(GameStage.MOVEMENT_STAGE);
+    GameState before = gameState.getCopy();
+    MakeMoveEvent move =
+        new MakeMoveEvent(
+            new Position(1, 0), new Position(2, 3), gameState.getCurrentBoard().getUnit(1, 0));
+
+    UndoRecord undoRecord = gameState.makeMove(move, true);
+    assertEquals(5, gameState.getCurrentBoard().getUnit(2, 3).getCurrentHp());
+    assertTrue(gameState.getCurrentBoard().getUnit(1, 0).isMoved());
+    assertTrue(gameState.getCurrentBoard().getUnit(1, 0).isHitTarget());
+
+    gameState.undo(undoRecord);
+    assertEquals(before, gameState);
+  }
+
+  @Test
+  void undoRestoresGeneralBuff() throws GameException {
+    gameState.setGameStage(GameStage.MOVEMENT_STAGE);
+    gameState.getCurrentBoard().getUnit(1, 3).setGeneral(true);
+    gameState.getArmySecond().isAliveGeneral();
+    gameState.getCurrentBoard().getUnit(1, 3).setCurrentHp(1);
+    gameState.getCurrentBoard().getUnit(0, 3).setCurrentHp(3);
+    GameState before = gameState.getCopy();
+    MakeMoveEvent move =
+        new MakeMoveEvent(
+            new Position(1, 0), new Position(1, 3), gameState.getCurrentBoard().getUnit(1, 0));
+
+    UndoRecord undoRecord = gameState.makeMove(move, true);
+    assertFalse(gameState.getArmySecond().isBuffed());
+    assertEquals(10, gameState.getCurrentBoard().getUnit(0, 3).getMaxHp());
+
+    gameState.undo(undoRecord);
+    assertEquals(before, gameState);
+    assertEquals(17, gameState.getCurrentBoard().getUnit(0, 3).getMaxHp());
+    assertEquals(3, gameState.getCurrentBoard().getUnit(0, 3).getCurrentHp());
+  }
+
+  @Test
+  void undoWholeGameInReverseOrder() throws GameException {
+    GameState state = new GameState();
+    state.setDefaultPlacement();
+    Random random = new Random(11);
+    Deque<UndoRecord> undoRecords = new ArrayDeque<>();
+    Deque<GameState> copies = new ArrayDeque<>();
+
+    while (state.getGameStage() != GameStage.ENDED) {
+      copies.push(state.getCopy());
+      List<MakeMoveEvent> possibleMoves = state.getPossibleMoves();
+      if (possibleMoves.isEmpty()) {
+        undoRecords.push(state.changeCurrentPlayerWithUndo());
+      } else {
+        MakeMoveEvent move = possibleMoves.get(random.nextInt(possibleMoves.size()));
+        undoRecords.push(state.makeMove(move, random.nextBoolean()));
+      }
+    }
+
+    while (!undoRecords.isEmpty()) {
+      state.undo(undoRecords.pop());
+      assertEquals(copies.pop(), state);
+    }
+  }
+
+  @Test
+  void checkMoveVerdicts() {
+    Board board = gameState.getCurrentBoard();
+    assertEquals(
+        MoveVerdict.OK,
+        gameState.checkMove(
+            new MakeMoveEvent(new Position(1, 1), new Position(1, 2), board.getUnit(1, 1))));
+    assertEquals(
+        MoveVerdict.OUT_OF_RADIUS,
+        gameState.checkMove(
+            new MakeMoveEvent(new Position(0, 1), new Position(2, 2), board.getUnit(0, 1))));
+    assertEquals(
+        MoveVerdict.WRONG_TARGET,
+        gameState.checkMove(
+            new MakeMoveEvent(new Position(1, 1), new Position(0, 1), board.getUnit(1, 1))));
+    assertEquals(
+        MoveVerdict.WRONG_SIDE,
+        gameState.checkMove(
+            new MakeMoveEvent(new Position(1, 2), new Position(1, 1), board.getUnit(1, 2))));
+
+    board.getUnit(2, 2).setCurrentHp(0);
+    assertEquals(
+        MoveVerdict.WRONG_TARGET,
+        gameState.checkMove(
+            new MakeMoveEvent(new Position(1, 0), new Position(2, 2), board.getUnit(1, 0))));
+
+    board.getUnit(1, 1).setCurrentHp(0);
+    assertEquals(
+        MoveVerdict.DEAD_ATTACKER,
+        gameState.checkMove(
+            new MakeMoveEvent(new Position(1, 1), new Position(1, 2), board.getUnit(1, 1))));
+
+    board.getUnit(2, 1).setMoved(true);
+    assertEquals(
+        MoveVerdict.ALREADY_MOVED,
+        gameState.checkMove(
+            new MakeMoveEvent(new Position(2, 1), new Position(1, 2), board.getUnit(2, 1))));
+  }
+
+  @Test
+  void hashCodeFollowsKey() throws GameException {
+    GameState initial = new GameState();
+    initial.setDefaultPlacement();
+    GameState copy = initial.getCopy();
+    assertEquals(initial, copy);
+    assertEquals(initial.key(), copy.key());
+    assertEquals(initial.hashCode(), copy.hashCode());
+    assertEquals(initial.getBoard().hashCode(), copy.getBoard().hashCode());
+
+    Set<GameState> states = new HashSet<>();
+    states.add(initial);
+    states.add(copy);
+    MakeMoveEvent move = initial.getPossibleMoves().get(0);
+    GameState hit = initial.getCopy();
+    hit.makeMove(move, true);
+    states.add(hit);
+    GameState sameHit = initial.getCopy();
+    sameHit.makeMove(move, true);
+    states.add(sameHit);
+
+    assertEquals(2, states.size());
+    assertNotEquals(initial, hit);
+  }
+
+  @Test
+  void equalsAndHashCodeSeeDirectUnitChanges() {
+    GameState keyed = new GameState();
+    keyed.setDefaultPlacement();
+    keyed.getZobristKey();
+    GameState unkeyed = new GameState();
+    unkeyed.setDefaultPlacement();
+
+    keyed.getBoard().getUnit(0, 0).setCurrentHp(3);
+    unkeyed.getBoard().getUnit(0, 0).setCurrentHp(3);
+    Set<GameState> states = new HashSet<>();
+    states.add(keyed);
+
+    assertEquals(keyed, unkeyed);
+    assertEquals(keyed.hashCode(), unkeyed.hashCode());
+    assertTrue(states.contains(unkeyed));
+    assertTrue(states.contains(keyed.getCopy()));
+  }
+
+  @Test
+  void generateMovesMatchesPossibleMoves() throws GameException {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    Random random = new Random(3);
+    int[] moves = new int[PackedGameState.MAX_MOVES];
+
+    while (gameState.getGameStage() != GameStage.ENDED) {
+      List<MakeMoveEvent> possibleMoves = gameState.getPossibleMoves();
+      int count = gameState.generateMoves(moves);
+      assertEquals(possibleMoves.size(), count);
+      for (int i = 0; i < count; i++) {
+        MakeMoveEvent decoded = gameState.toMakeMoveEvent(moves[i]);
+        assertEquals(possibleMoves.get(i), decoded);
+        assertSame(decoded.getAttacker(), possibleMoves.get(i).getAttacker());
+        assertSame(decoded.getFrom(), gameState.toMakeMoveEvent(moves[i]).getFrom());
+      }
+      if (count == 0) {
+        gameState.changeCurrentPlayer();
+      } else {
+        gameState.makeMove(gameState.toMakeMoveEvent(moves[random.nextInt(count)]));
+      }
+    }
+  }
 }
@@ -0,0 +1,54 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class KnightReachTest {
+
+  private static int cell(int x, int y) {
+    return y * 3 + x;
+  }
+
+  private static int row(int y) {
+    return 0b111 << (y * 3);
+  }
+
+  @Test
+  public void testFullFrontRowLimitsRadius() {
+    int aliveMask = row(0) | row(1) | row(2) | row(3);
+    int reach = KnightReach.reachMask(PlayerType.FIRST_PLAYER, cell(0, 1), aliveMask);
+
+    assertNotEquals(0, reach & 1 << cell(0, 2));
+    assertNotEquals(0, reach & 1 << cell(1, 2));
+    assertEquals(0, reach & 1 << cell(2, 2));
+    assertEquals(0, reach & row(3));
+  }
+
+  @Test
+  public void testOneUnitInFrontRow() {
+    int aliveMask = row(0) | row(1) | 1 << cell(2, 2) | row(3);
+    int reach = KnightReach.reachMask(PlayerType.FIRST_PLAYER, cell(0, 1), aliveMask);
+
+    assertNotEquals(0, reach & 1 << cell(2, 2));
+    assertEquals(0, reach & row(3));
+  }
+
+  @Test
+  public void testEmptyRowsExtendRadius() {
+    int aliveMask = row(0) | row(1) | row(3);
+    assertNotEquals(
+        0, KnightReach.reachMask(PlayerType.FIRST_PLAYER, cell(0, 1), aliveMask) & 1 << cell(2, 3));
+
+    aliveMask = row(2) | row(3);
+    int reach = KnightReach.reachMask(PlayerType.SECOND_PLAYER, cell(1, 2), aliveMask);
+    assertNotEquals(0, reach & 1 << cell(0, 1));
+    assertNotEquals(0, reach & 1 << cell(2, 0));
+  }
+
+  @Test
+  public void testNoReachFromFrontRow() {
+    int aliveMask = row(0) | row(1) | row(2) | row(3);
+    assertEquals(0, KnightReach.reachMask(PlayerType.FIRST_PLAYER, cell(1, 2), aliveMask));
+  }
+}
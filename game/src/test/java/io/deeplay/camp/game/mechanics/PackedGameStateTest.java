@@ -0,0 +1,130 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitType;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.exceptions.GameException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class PackedGameStateTest {
+
+  @Test
+  public void testRoundTripDefaultPlacement() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+
+    PackedGameState packed = PackedGameState.fromGameState(gameState);
+
+    assertEquals(gameState, packed.toGameState());
+    assertEquals(packed, PackedGameState.fromGameState(packed.toGameState()));
+  }
+
+  @Test
+  public void testStatsDependOnBuff() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    PackedGameState packed = PackedGameState.fromGameState(gameState);
+
+    Board board = gameState.getBoard();
+    for (int cell = 0; cell < PackedGameState.CELLS; cell++) {
+      Unit unit = board.getUnit(PackedGameState.x(cell), PackedGameState.y(cell));
+      assertEquals(unit.getArmor(), packed.getArmor(cell));
+      assertEquals(unit.getAccuracy(), packed.getAccuracy(cell));
+      assertEquals(unit.getDamage(), packed.getDamage(cell));
+      assertEquals(unit.getMaxHp(), packed.getMaxHp(cell));
+    }
+  }
+
+  @Test
+  public void testEncodeMove() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    for (MakeMoveEvent move : gameState.getPossibleMoves()) {
+      int encoded = PackedGameState.encodeMove(move);
+      assertEquals(move, PackedGameState.toMakeMoveEvent(encoded, gameState.getBoard()));
+    }
+  }
+
+  @Test
+  public void testSameAsGameStateDefaultPlacement() throws GameException {
+    for (long seed = 0; seed < 50; seed++) {
+      GameState gameState = new GameState();
+      gameState.setDefaultPlacement();
+      playSame(gameState, new Random(seed));
+    }
+  }
+
+  @Test
+  public void testSameAsGameStateRandomPlacement() throws GameException {
+    for (long seed = 0; seed < 200; seed++) {
+      Random random = new Random(seed);
+      playSame(TestGameStates.randomGameState(random), random);
+    }
+  }
+
+  @Test
+  public void testRandomMoveUsesGameRules() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    PackedGameState packed = PackedGameState.fromGameState(gameState);
+    Random random = new Random(7);
+    int[] moves = new int[PackedGameState.MAX_MOVES];
+
+    while (packed.getGameStage() != GameStage.ENDED) {
+      int count = packed.generateMoves(moves);
+      if (count == 0) {
+        packed.changeCurrentPlayer();
+        continue;
+      }
+      packed.makeRandomMove(moves[random.nextInt(count)], random);
+    }
+
+    assertNotNull(packed.getWinner());
+  }
+
+  /** Играет партию одинаковыми ходами и исходами на обоих представлениях и сравнивает их. */
+  private void playSame(GameState gameState, Random random) throws GameException {
+    PackedGameState packed = PackedGameState.fromGameState(gameState);
+    int[] moves = new int[PackedGameState.MAX_MOVES];
+
+    while (gameState.getGameStage() != GameStage.ENDED) {
+      List<MakeMoveEvent> possibleMoves = gameState.getPossibleMoves();
+      int count = packed.generateMoves(moves);
+      List<Integer> expected = new ArrayList<>();
+      for (MakeMoveEvent move : possibleMoves) {
+        expected.add(PackedGameState.encodeMove(move));
+      }
+      List<Integer> actual = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        actual.add(moves[i]);
+      }
+      assertEquals(expected, actual);
+
+      if (possibleMoves.isEmpty()) {
+        gameState.changeCurrentPlayer();
+        packed.changeCurrentPlayer();
+      } else {
+        int index = random.nextInt(count);
+        MakeMoveEvent move = possibleMoves.get(index);
+        boolean hit = random.nextBoolean();
+        if (move.getAttacker().getUnitType() == UnitType.HEALER) {
+          gameState.makeMove(move);
+        } else if (hit) {
+          gameState.makeAccurateMove(move);
+        } else {
+          gameState.makeNotAccurateMove(move);
+        }
+        packed.makeMove(moves[index], hit ? -1 : 0);
+      }
+      assertEquals(PackedGameState.fromGameState(gameState), packed);
+    }
+    assertEquals(gameState.getWinner(), packed.getWinner());
+    assertEquals(gameState, packed.toGameState());
+  }
+}
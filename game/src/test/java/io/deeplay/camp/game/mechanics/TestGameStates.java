@@ -0,0 +1,66 @@
+package io.deeplay.camp.game.mechanics;
+
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.Unit;
+import io.deeplay.camp.game.entities.UnitType;
+import java.util.Random;
+
+/** Общие для тестов механики начальные состояния игры. */
+final class TestGameStates {
+
+  private TestGameStates() {}
+
+  /**
+   * Метод создает состояние с расстановкой по умолчанию.
+   *
+   * @return состояние на стадии расстановки.
+   */
+  static GameState defaultGameState() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    return gameState;
+  }
+
+  /**
+   * Метод создает состояние стадии ходов со случайными полными армиями и генералами.
+   *
+   * @param random источник случайности.
+   * @return новое состояние.
+   */
+  static GameState randomGameState(Random random) {
+    return randomGameState(random, false);
+  }
+
+  /**
+   * Метод создает состояние стадии ходов со случайными полными армиями и генералами.
+   *
+   * @param random источник случайности.
+   * @param damaged выдавать ли юнитам случайное хп от 1 до максимального.
+   * @return новое состояние.
+   */
+  static GameState randomGameState(Random random, boolean damaged) {
+    GameState gameState = new GameState();
+    Board board = gameState.getBoard();
+    for (int row = 0; row < Board.ROWS; row++) {
+      PlayerType owner = row < Board.ROWS / 2 ? PlayerType.FIRST_PLAYER : PlayerType.SECOND_PLAYER;
+      for (int col = 0; col < Board.COLUMNS; col++) {
+        UnitType unitType = UnitType.byIndex(random.nextInt(UnitType.COUNT));
+        Unit unit = Unit.createUnitByUnitType(unitType, owner);
+        if (damaged) {
+          unit.setCurrentHp(1 + random.nextInt(unit.getMaxHp()));
+        }
+        board.setUnit(col, row, unit);
+      }
+    }
+    board.getUnit(random.nextInt(Board.COLUMNS), random.nextInt(Board.ROWS / 2)).setGeneral(true);
+    board
+        .getUnit(random.nextInt(Board.COLUMNS), Board.ROWS / 2 + random.nextInt(Board.ROWS / 2))
+        .setGeneral(true);
+    gameState.getArmyFirst().fillArmy(board);
+    gameState.getArmySecond().fillArmy(board);
+    gameState.getArmyFirst().isAliveGeneral();
+    gameState.getArmySecond().isAliveGeneral();
+    gameState.setGameStage(GameStage.MOVEMENT_STAGE);
+    return gameState;
+  }
+}
@@ -0,0 +1,108 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.game.entities.Board;
+import io.deeplay.camp.game.entities.StateChance;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.exceptions.GameException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class TurnGraphTest {
+
+  @Test
+  public void testComplexMovesWithoutPermutations() throws GameException {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacementWithoutMage();
+
+    List<List<MakeMoveEvent>> complexMoves = gameState.getPossibleComplexMoves();
+    Set<Set<Integer>> moveSets = new HashSet<>();
+    for (List<MakeMoveEvent> complexMove : complexMoves) {
+      assertTrue(moveSets.add(moveSet(complexMove)));
+    }
+
+    Set<Set<Integer>> allMoveSets = new HashSet<>();
+    collectAllMoveSets(gameState.getCopy(), new ArrayList<>(), allMoveSets);
+    assertEquals(allMoveSets, moveSets);
+  }
+
+  @Test
+  public void testOutcomesAreDistributions() throws GameException {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacementWithoutMage();
+
+    TurnGraph turnGraph = TurnGraph.build(gameState);
+
+    Set<Long> keys = new HashSet<>();
+    for (TurnGraph.Node node : turnGraph.getNodes()) {
+      assertTrue(keys.add(node.getKey()));
+      assertEquals(Zobrist.compute(node.getGameState()), node.getKey());
+      for (TurnGraph.Edge edge : node.getEdges()) {
+        double total = 0;
+        for (TurnGraph.Outcome outcome : edge.outcomes()) {
+          total += outcome.chance();
+        }
+        assertEquals(1, total, 1e-9);
+      }
+    }
+    for (TurnGraph.Node leaf : turnGraph.getLeaves()) {
+      assertTrue(
+          leaf.getGameState().getGameStage() == GameStage.ENDED
+              || leaf.getGameState().getPossibleMoves().isEmpty());
+    }
+    for (List<MakeMoveEvent> complexMove : gameState.getPossibleComplexMoves()) {
+      double total = 0;
+      for (StateChance stateChance : turnGraph.getOutcomes(complexMove)) {
+        total += stateChance.chance();
+      }
+      assertEquals(1, total, 1e-9);
+    }
+    assertEquals(1, turnGraph.getExpectedValue(state -> 1), 1e-9);
+  }
+
+  @Test
+  public void testMassAttackOutcomesAreBounded() throws GameException {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+
+    TurnGraph turnGraph = TurnGraph.build(gameState, 2);
+
+    for (TurnGraph.Node node : turnGraph.getNodes()) {
+      for (TurnGraph.Edge edge : node.getEdges()) {
+        assertTrue(edge.outcomes().size() <= 2);
+      }
+    }
+    assertTrue(turnGraph.getExpectedValue(state -> state.getBoard().getAliveMask()) > 0);
+  }
+
+  /** Полный перебор всех порядков ходов с промахами. */
+  private void collectAllMoveSets(
+      GameState gameState, List<MakeMoveEvent> complexMove, Set<Set<Integer>> result)
+      throws GameException {
+    List<MakeMoveEvent> possibleMoves = gameState.getPossibleMoves();
+    if (possibleMoves.isEmpty()) {
+      result.add(moveSet(complexMove));
+    }
+    for (MakeMoveEvent move : possibleMoves) {
+      GameState copy = gameState.getCopy();
+      copy.makeMove(move, false);
+      complexMove.add(move);
+      collectAllMoveSets(copy, complexMove, result);
+      complexMove.removeLast();
+    }
+  }
+
+  private Set<Integer> moveSet(List<MakeMoveEvent> complexMove) {
+    Set<Integer> moveSet = new HashSet<>();
+    for (MakeMoveEvent move : complexMove) {
+      int from = move.getFrom().y() * Board.COLUMNS + move.getFrom().x();
+      int to = move.getTo().y() * Board.COLUMNS + move.getTo().x();
+      moveSet.add(from << 4 | to);
+    }
+    return moveSet;
+  }
+}
@@ -0,0 +1,65 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.game.entities.StateChance;
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.exceptions.GameException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class TurnOutcomeEnumeratorTest {
+
+  @Test
+  public void testSameAsTurnGraph() throws GameException {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacementWithoutMage();
+    TurnGraph turnGraph = TurnGraph.build(gameState);
+
+    for (List<MakeMoveEvent> complexMove : gameState.getPossibleComplexMoves()) {
+      Map<Long, Double> expected = chances(turnGraph.getOutcomes(complexMove));
+      Map<Long, Double> actual = chances(TurnOutcomeEnumerator.enumerate(gameState, complexMove));
+
+      assertEquals(expected.keySet(), actual.keySet());
+      for (Map.Entry<Long, Double> entry : expected.entrySet()) {
+        assertEquals(entry.getValue(), actual.get(entry.getKey()), 1e-9);
+      }
+    }
+  }
+
+  @Test
+  public void testMinChanceBoundsOutcomes() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    List<MakeMoveEvent> complexMove = gameState.getPossibleComplexMoves().get(0);
+
+    List<StateChance> all = TurnOutcomeEnumerator.enumerate(gameState, complexMove);
+    List<StateChance> bounded = TurnOutcomeEnumerator.enumerate(gameState, complexMove, 0.01);
+
+    assertTrue(bounded.size() < all.size());
+    assertEquals(1, total(all), 1e-9);
+    assertEquals(1, total(bounded), 1e-9);
+    for (int i = 1; i < bounded.size(); i++) {
+      assertTrue(bounded.get(i - 1).chance() >= bounded.get(i).chance());
+    }
+    assertEquals(1, TurnOutcomeEnumerator.enumerate(gameState, complexMove, 2).size());
+  }
+
+  private Map<Long, Double> chances(List<StateChance> outcomes) {
+    Map<Long, Double> chances = new HashMap<>();
+    for (StateChance stateChance : outcomes) {
+      chances.merge(stateChance.gameState().getZobristKey(), stateChance.chance(), Double::sum);
+    }
+    return chances;
+  }
+
+  private double total(List<StateChance> outcomes) {
+    double total = 0;
+    for (StateChance stateChance : outcomes) {
+      total += stateChance.chance();
+    }
+    return total;
+  }
+}
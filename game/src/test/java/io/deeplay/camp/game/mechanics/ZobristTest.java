@@ -0,0 +1,73 @@
+package io.deeplay.camp.game.mechanics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.deeplay.camp.game.events.MakeMoveEvent;
+import io.deeplay.camp.game.exceptions.GameException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class ZobristTest {
+
+  @Test
+  public void testCopyHasSameKey() {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+
+    assertEquals(gameState.getZobristKey(), gameState.getCopy().getZobristKey());
+    assertEquals(Zobrist.compute(gameState), gameState.getZobristKey());
+  }
+
+  @Test
+  public void testHitChangesKey() throws GameException {
+    GameState gameState = new GameState();
+    gameState.setDefaultPlacement();
+    MakeMoveEvent move = gameState.getPossibleMoves().get(0);
+    GameState hit = gameState.getCopy();
+    GameState miss = gameState.getCopy();
+
+    hit.makeMove(move, true);
+    miss.makeMove(move, false);
+
+    assertNotEquals(gameState.getZobristKey(), miss.getZobristKey());
+    assertNotEquals(hit.getZobristKey(), miss.getZobristKey());
+  }
+
+  @Test
+  public void testIncrementalKeyMatchesRecomputed() throws GameException {
+    for (long seed = 0; seed < 100; seed++) {
+      Random random = new Random(seed);
+      GameState gameState =
+          seed % 4 == 0
+              ? TestGameStates.defaultGameState()
+              : TestGameStates.randomGameState(random);
+      gameState.getZobristKey();
+      Deque<UndoRecord> undoRecords = new ArrayDeque<>();
+      Deque<Long> keys = new ArrayDeque<>();
+
+      while (gameState.getGameStage() != GameStage.ENDED) {
+        keys.push(gameState.getZobristKey());
+        List<MakeMoveEvent> possibleMoves = gameState.getPossibleMoves();
+        if (possibleMoves.isEmpty()) {
+          undoRecords.push(gameState.changeCurrentPlayerWithUndo());
+        } else if (random.nextBoolean()) {
+          MakeMoveEvent move = possibleMoves.get(random.nextInt(possibleMoves.size()));
+          undoRecords.push(gameState.makeMove(move, random.nextBoolean()));
+        } else {
+          undoRecords.push(new UndoRecord(gameState));
+          gameState.makeMove(possibleMoves.get(random.nextInt(possibleMoves.size())));
+        }
+        assertEquals(Zobrist.compute(gameState), gameState.getZobristKey());
+      }
+
+      while (!undoRecords.isEmpty()) {
+        gameState.undo(undoRecords.pop());
+        assertEquals(keys.pop(), gameState.getZobristKey());
+        assertEquals(Zobrist.compute(gameState), gameState.getZobristKey());
+      }
+    }
+  }
+}